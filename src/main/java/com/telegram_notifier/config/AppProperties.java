@@ -13,6 +13,12 @@ public class AppProperties {
     private Storage storage = new Storage();
     private Cloudinary cloudinary = new Cloudinary();
     private Resume resume = new Resume();
+    private Http http = new Http();
+    private State state = new State();
+    private Dedup dedup = new Dedup();
+    private Pipeline pipeline = new Pipeline();
+    private Latex latex = new Latex();
+    private Health health = new Health();
 
     // Getters
     public Telegram getTelegram() { return telegram; }
@@ -21,6 +27,12 @@ public class AppProperties {
     public Storage getStorage() { return storage; }
     public Cloudinary getCloudinary() { return cloudinary; }
     public Resume getResume() { return resume; }
+    public Http getHttp() { return http; }
+    public State getState() { return state; }
+    public Dedup getDedup() { return dedup; }
+    public Pipeline getPipeline() { return pipeline; }
+    public Latex getLatex() { return latex; }
+    public Health getHealth() { return health; }
 
     // Setters
     public void setTelegram(Telegram telegram) { this.telegram = telegram; }
@@ -29,6 +41,12 @@ public class AppProperties {
     public void setStorage(Storage storage) { this.storage = storage; }
     public void setCloudinary(Cloudinary cloudinary) { this.cloudinary = cloudinary; }
     public void setResume(Resume resume) { this.resume = resume; }
+    public void setHttp(Http http) { this.http = http; }
+    public void setState(State state) { this.state = state; }
+    public void setDedup(Dedup dedup) { this.dedup = dedup; }
+    public void setPipeline(Pipeline pipeline) { this.pipeline = pipeline; }
+    public void setLatex(Latex latex) { this.latex = latex; }
+    public void setHealth(Health health) { this.health = health; }
 
     public static class Telegram {
         private String apiId = "";
@@ -37,6 +55,17 @@ public class AppProperties {
         @NotBlank private String channels = "";
         private int pollIntervalMinutes = 30;
         private String sessionFile = "telegram-session";
+        private int fetchConcurrency = 8; // Max channels scraped in parallel
+        private long hostRequestIntervalMillis = 100; // Min spacing between request starts to the same host
+        private int fetchTimeoutSeconds = 20;
+        private int backfillMaxPages = 5; // Extra ?before= pages walked back per channel per poll
+        private int maxDeliveryAttempts = 3; // Failed pipeline runs before a message stops holding its cursor back
+        private boolean adaptivePolling = true; // false = every channel polled every pollIntervalMinutes
+        private int minPollIntervalMinutes = 5;
+        private int maxPollIntervalMinutes = 180;
+        private double targetPostsPerPoll = 3.0;
+        private int schedulerTickSeconds = 60;
+        private Prefilter prefilter = new Prefilter();
 
         // Getters
         public String getApiId() { return apiId; }
@@ -45,6 +74,17 @@ public class AppProperties {
         public String getChannels() { return channels; }
         public int getPollIntervalMinutes() { return pollIntervalMinutes; }
         public String getSessionFile() { return sessionFile; }
+        public int getFetchConcurrency() { return fetchConcurrency; }
+        public long getHostRequestIntervalMillis() { return hostRequestIntervalMillis; }
+        public int getFetchTimeoutSeconds() { return fetchTimeoutSeconds; }
+        public int getBackfillMaxPages() { return backfillMaxPages; }
+        public int getMaxDeliveryAttempts() { return maxDeliveryAttempts; }
+        public boolean isAdaptivePolling() { return adaptivePolling; }
+        public int getMinPollIntervalMinutes() { return minPollIntervalMinutes; }
+        public int getMaxPollIntervalMinutes() { return maxPollIntervalMinutes; }
+        public double getTargetPostsPerPoll() { return targetPostsPerPoll; }
+        public int getSchedulerTickSeconds() { return schedulerTickSeconds; }
+        public Prefilter getPrefilter() { return prefilter; }
 
         // Setters
         public void setApiId(String apiId) { this.apiId = apiId; }
@@ -53,27 +93,142 @@ public class AppProperties {
         public void setChannels(String channels) { this.channels = channels; }
         public void setPollIntervalMinutes(int pollIntervalMinutes) { this.pollIntervalMinutes = pollIntervalMinutes; }
         public void setSessionFile(String sessionFile) { this.sessionFile = sessionFile; }
+        public void setFetchConcurrency(int fetchConcurrency) { this.fetchConcurrency = fetchConcurrency; }
+        public void setHostRequestIntervalMillis(long hostRequestIntervalMillis) { this.hostRequestIntervalMillis = hostRequestIntervalMillis; }
+        public void setFetchTimeoutSeconds(int fetchTimeoutSeconds) { this.fetchTimeoutSeconds = fetchTimeoutSeconds; }
+        public void setBackfillMaxPages(int backfillMaxPages) { this.backfillMaxPages = backfillMaxPages; }
+        public void setMaxDeliveryAttempts(int maxDeliveryAttempts) { this.maxDeliveryAttempts = maxDeliveryAttempts; }
+        public void setAdaptivePolling(boolean adaptivePolling) { this.adaptivePolling = adaptivePolling; }
+        public void setMinPollIntervalMinutes(int minPollIntervalMinutes) { this.minPollIntervalMinutes = minPollIntervalMinutes; }
+        public void setMaxPollIntervalMinutes(int maxPollIntervalMinutes) { this.maxPollIntervalMinutes = maxPollIntervalMinutes; }
+        public void setTargetPostsPerPoll(double targetPostsPerPoll) { this.targetPostsPerPoll = targetPostsPerPoll; }
+        public void setSchedulerTickSeconds(int schedulerTickSeconds) { this.schedulerTickSeconds = schedulerTickSeconds; }
+        public void setPrefilter(Prefilter prefilter) { this.prefilter = prefilter; }
+
+        // Keyword gate applied before any AI call; lists are comma-separated and case-insensitive
+        public static class Prefilter {
+            private int minLength = 50;
+            private String includeKeywords = "job,hiring,position,vacancy,developer,engineer,salary,remote,experience,apply";
+            private String excludeKeywords = "subscribe to,join our,follow us";
+            private String excludePrefixes = "👆,⬆️";
+
+            public int getMinLength() { return minLength; }
+            public String getIncludeKeywords() { return includeKeywords; }
+            public String getExcludeKeywords() { return excludeKeywords; }
+            public String getExcludePrefixes() { return excludePrefixes; }
+            public void setMinLength(int minLength) { this.minLength = minLength; }
+            public void setIncludeKeywords(String includeKeywords) { this.includeKeywords = includeKeywords; }
+            public void setExcludeKeywords(String excludeKeywords) { this.excludeKeywords = excludeKeywords; }
+            public void setExcludePrefixes(String excludePrefixes) { this.excludePrefixes = excludePrefixes; }
+        }
     }
 
     public static class AI {
         private Gemini gemini = new Gemini();
+        private Cache cache = new Cache();
+        private LocalClassifier localClassifier = new LocalClassifier();
         public Gemini getGemini() { return gemini; }
+        public Cache getCache() { return cache; }
+        public LocalClassifier getLocalClassifier() { return localClassifier; }
         public void setGemini(Gemini gemini) { this.gemini = gemini; }
+        public void setCache(Cache cache) { this.cache = cache; }
+        public void setLocalClassifier(LocalClassifier localClassifier) { this.localClassifier = localClassifier; }
+
+        // Content-addressed cache of relevance/extraction results (see AiResultCache)
+        public static class Cache {
+            private boolean enabled = true;
+            private int memoryMaxEntries = 5000;
+            private boolean diskEnabled = true;
+            private int diskMaxEntries = 20000;
+
+            public boolean isEnabled() { return enabled; }
+            public int getMemoryMaxEntries() { return memoryMaxEntries; }
+            public boolean isDiskEnabled() { return diskEnabled; }
+            public int getDiskMaxEntries() { return diskMaxEntries; }
+            public void setEnabled(boolean enabled) { this.enabled = enabled; }
+            public void setMemoryMaxEntries(int memoryMaxEntries) { this.memoryMaxEntries = memoryMaxEntries; }
+            public void setDiskEnabled(boolean diskEnabled) { this.diskEnabled = diskEnabled; }
+            public void setDiskMaxEntries(int diskMaxEntries) { this.diskMaxEntries = diskMaxEntries; }
+        }
+
+        // In-process relevance model trained on Gemini verdicts (see LocalRelevanceClassifier)
+        public static class LocalClassifier {
+            private boolean enabled = true;
+            private int minTrainingExamples = 300; // Gemini verdicts seen before answering locally
+            private double positiveThreshold = 0.97; // Probability at or above which a post is relevant locally
+            private double negativeThreshold = 0.03; // Probability at or below which a post is irrelevant locally
+            private double shadowRate = 0.05; // Fraction of confident posts still checked by Gemini
+            private double minAgreement = 0.95; // Local answers are suspended below this shadow agreement
+            private int agreementWindow = 200;
+            private int hashBits = 18;
+            private double learningRate = 0.5;
+            private double l2 = 0.000001;
+
+            public boolean isEnabled() { return enabled; }
+            public int getMinTrainingExamples() { return minTrainingExamples; }
+            public double getPositiveThreshold() { return positiveThreshold; }
+            public double getNegativeThreshold() { return negativeThreshold; }
+            public double getShadowRate() { return shadowRate; }
+            public double getMinAgreement() { return minAgreement; }
+            public int getAgreementWindow() { return agreementWindow; }
+            public int getHashBits() { return hashBits; }
+            public double getLearningRate() { return learningRate; }
+            public double getL2() { return l2; }
+            public void setEnabled(boolean enabled) { this.enabled = enabled; }
+            public void setMinTrainingExamples(int minTrainingExamples) { this.minTrainingExamples = minTrainingExamples; }
+            public void setPositiveThreshold(double positiveThreshold) { this.positiveThreshold = positiveThreshold; }
+            public void setNegativeThreshold(double negativeThreshold) { this.negativeThreshold = negativeThreshold; }
+            public void setShadowRate(double shadowRate) { this.shadowRate = shadowRate; }
+            public void setMinAgreement(double minAgreement) { this.minAgreement = minAgreement; }
+            public void setAgreementWindow(int agreementWindow) { this.agreementWindow = agreementWindow; }
+            public void setHashBits(int hashBits) { this.hashBits = hashBits; }
+            public void setLearningRate(double learningRate) { this.learningRate = learningRate; }
+            public void setL2(double l2) { this.l2 = l2; }
+        }
 
         public static class Gemini {
             @NotBlank private String apiKey;
             @NotBlank String model = "gemini-1.5-flash";
             @NotBlank String relevancePrompt;
-            private int rateLimitDelaySeconds = 10;
+            private RateLimit rateLimit = new RateLimit();
+            private int batchTokenBudget = 6000; // Estimated post tokens per batched relevance prompt
+            private int batchMaxItems = 40;
+            private String pipelineMode = "batched"; // batched = batch relevance then extraction; combined = one classify+extract call per post
+            private int maxConcurrentRequests = 4; // Gemini calls in flight at once from async callers
 
             public String getApiKey() { return apiKey; }
             public String getModel() { return model; }
             public String getRelevancePrompt() { return relevancePrompt; }
-            public int getRateLimitDelaySeconds() { return rateLimitDelaySeconds; }
+            public RateLimit getRateLimit() { return rateLimit; }
+            public int getBatchTokenBudget() { return batchTokenBudget; }
+            public int getBatchMaxItems() { return batchMaxItems; }
+            public String getPipelineMode() { return pipelineMode; }
+            public int getMaxConcurrentRequests() { return maxConcurrentRequests; }
             public void setApiKey(String apiKey) { this.apiKey = apiKey; }
             public void setModel(String model) { this.model = model; }
             public void setRelevancePrompt(String relevancePrompt) { this.relevancePrompt = relevancePrompt; }
-            public void setRateLimitDelaySeconds(int rateLimitDelaySeconds) { this.rateLimitDelaySeconds = rateLimitDelaySeconds; }
+            public void setRateLimit(RateLimit rateLimit) { this.rateLimit = rateLimit; }
+            public void setBatchTokenBudget(int batchTokenBudget) { this.batchTokenBudget = batchTokenBudget; }
+            public void setBatchMaxItems(int batchMaxItems) { this.batchMaxItems = batchMaxItems; }
+            public void setPipelineMode(String pipelineMode) { this.pipelineMode = pipelineMode; }
+            public void setMaxConcurrentRequests(int maxConcurrentRequests) { this.maxConcurrentRequests = maxConcurrentRequests; }
+
+            // Shared budget for all Gemini calls (see GeminiRateLimiter)
+            public static class RateLimit {
+                private int requestsPerMinute = 15; // Ceiling the adaptive rate climbs back to
+                private int minRequestsPerMinute = 1;
+                private long tokensPerMinute = 1_000_000;
+                private int maxRetries = 3; // Retries of a throttled (429/503) call
+
+                public int getRequestsPerMinute() { return requestsPerMinute; }
+                public int getMinRequestsPerMinute() { return minRequestsPerMinute; }
+                public long getTokensPerMinute() { return tokensPerMinute; }
+                public int getMaxRetries() { return maxRetries; }
+                public void setRequestsPerMinute(int requestsPerMinute) { this.requestsPerMinute = requestsPerMinute; }
+                public void setMinRequestsPerMinute(int minRequestsPerMinute) { this.minRequestsPerMinute = minRequestsPerMinute; }
+                public void setTokensPerMinute(long tokensPerMinute) { this.tokensPerMinute = tokensPerMinute; }
+                public void setMaxRetries(int maxRetries) { this.maxRetries = maxRetries; }
+            }
         }
     }
 
@@ -81,20 +236,58 @@ public class AppProperties {
         private String integrationToken = "";
         private String databaseId = "";
         private String version = "2022-06-28";
+        private String jobIdProperty = "Job ID"; // Text column for the local job id of copied jobs; only written if the database has it
 
         public String getIntegrationToken() { return integrationToken; }
         public String getDatabaseId() { return databaseId; }
         public String getVersion() { return version; }
+        public String getJobIdProperty() { return jobIdProperty; }
         public void setIntegrationToken(String integrationToken) { this.integrationToken = integrationToken; }
         public void setDatabaseId(String databaseId) { this.databaseId = databaseId; }
         public void setVersion(String version) { this.version = version; }
+        public void setJobIdProperty(String jobIdProperty) { this.jobIdProperty = jobIdProperty; }
     }
     
     public static class Storage {
-        private String type = "notion"; // Only notion storage is supported
+        private String type = "sqlite"; // System of record: sqlite, or notion to save straight to Notion
+        private String sinks = "notion"; // Comma-separated backends that receive copies of saved jobs (sqlite only)
+        private String sqlitePath = ""; // Blank = jobs.db in app.state.dir
+        private int batchSize = 64; // Max writes committed in one SQLite transaction
+        private Outbox outbox = new Outbox();
 
         public String getType() { return type; }
+        public String getSinks() { return sinks; }
+        public String getSqlitePath() { return sqlitePath; }
+        public int getBatchSize() { return batchSize; }
+        public Outbox getOutbox() { return outbox; }
         public void setType(String type) { this.type = type; }
+        public void setSinks(String sinks) { this.sinks = sinks; }
+        public void setSqlitePath(String sqlitePath) { this.sqlitePath = sqlitePath; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+        public void setOutbox(Outbox outbox) { this.outbox = outbox; }
+    }
+
+    // Replication of saved jobs from the local outbox to the sinks
+    public static class Outbox {
+        private double requestsPerSecond = 3.0; // Per sink; Notion allows about 3 requests per second
+        private int concurrency = 2; // Requests in flight per sink
+        private long pollIntervalMillis = 1000;
+        private int batchSize = 30; // Entries fetched per poll
+        private int baseBackoffSeconds = 5; // Doubles with every failed attempt
+        private int maxBackoffSeconds = 900;
+
+        public double getRequestsPerSecond() { return requestsPerSecond; }
+        public int getConcurrency() { return concurrency; }
+        public long getPollIntervalMillis() { return pollIntervalMillis; }
+        public int getBatchSize() { return batchSize; }
+        public int getBaseBackoffSeconds() { return baseBackoffSeconds; }
+        public int getMaxBackoffSeconds() { return maxBackoffSeconds; }
+        public void setRequestsPerSecond(double requestsPerSecond) { this.requestsPerSecond = requestsPerSecond; }
+        public void setConcurrency(int concurrency) { this.concurrency = concurrency; }
+        public void setPollIntervalMillis(long pollIntervalMillis) { this.pollIntervalMillis = pollIntervalMillis; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+        public void setBaseBackoffSeconds(int baseBackoffSeconds) { this.baseBackoffSeconds = baseBackoffSeconds; }
+        public void setMaxBackoffSeconds(int maxBackoffSeconds) { this.maxBackoffSeconds = maxBackoffSeconds; }
     }
     
     public static class Cloudinary {
@@ -113,10 +306,165 @@ public class AppProperties {
     public static class Resume {
         private String templatePath = "resume-template.tex";
         private boolean generateEnabled = true;
+        private int queueConcurrency = 2; // Resumes generated at once by the background queue
+        private int maxAttempts = 3;
+        private int retryDelaySeconds = 60; // Doubles after every failed attempt
 
         public String getTemplatePath() { return templatePath; }
         public boolean isGenerateEnabled() { return generateEnabled; }
+        public int getQueueConcurrency() { return queueConcurrency; }
+        public int getMaxAttempts() { return maxAttempts; }
+        public int getRetryDelaySeconds() { return retryDelaySeconds; }
         public void setTemplatePath(String templatePath) { this.templatePath = templatePath; }
         public void setGenerateEnabled(boolean generateEnabled) { this.generateEnabled = generateEnabled; }
+        public void setQueueConcurrency(int queueConcurrency) { this.queueConcurrency = queueConcurrency; }
+        public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+        public void setRetryDelaySeconds(int retryDelaySeconds) { this.retryDelaySeconds = retryDelaySeconds; }
+    }
+
+    // Shared outbound HTTP connection pools (see WebClientFactory)
+    public static class Http {
+        private int maxConnectionsPerHost = 16;
+        private int pendingAcquireMaxCount = 256;
+        private int pendingAcquireTimeoutSeconds = 30;
+        private int maxIdleSeconds = 55;
+        private int maxLifeMinutes = 10;
+        private int connectTimeoutMillis = 5000;
+        private boolean http2Enabled = true;
+        private boolean prewarmOnStartup = true;
+        private int geminiTimeoutSeconds = 90;
+        private int notionTimeoutSeconds = 30;
+        private int latexTimeoutSeconds = 20;
+
+        public int getMaxConnectionsPerHost() { return maxConnectionsPerHost; }
+        public int getPendingAcquireMaxCount() { return pendingAcquireMaxCount; }
+        public int getPendingAcquireTimeoutSeconds() { return pendingAcquireTimeoutSeconds; }
+        public int getMaxIdleSeconds() { return maxIdleSeconds; }
+        public int getMaxLifeMinutes() { return maxLifeMinutes; }
+        public int getConnectTimeoutMillis() { return connectTimeoutMillis; }
+        public boolean isHttp2Enabled() { return http2Enabled; }
+        public boolean isPrewarmOnStartup() { return prewarmOnStartup; }
+        public int getGeminiTimeoutSeconds() { return geminiTimeoutSeconds; }
+        public int getNotionTimeoutSeconds() { return notionTimeoutSeconds; }
+        public int getLatexTimeoutSeconds() { return latexTimeoutSeconds; }
+        public void setMaxConnectionsPerHost(int maxConnectionsPerHost) { this.maxConnectionsPerHost = maxConnectionsPerHost; }
+        public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) { this.pendingAcquireMaxCount = pendingAcquireMaxCount; }
+        public void setPendingAcquireTimeoutSeconds(int pendingAcquireTimeoutSeconds) { this.pendingAcquireTimeoutSeconds = pendingAcquireTimeoutSeconds; }
+        public void setMaxIdleSeconds(int maxIdleSeconds) { this.maxIdleSeconds = maxIdleSeconds; }
+        public void setMaxLifeMinutes(int maxLifeMinutes) { this.maxLifeMinutes = maxLifeMinutes; }
+        public void setConnectTimeoutMillis(int connectTimeoutMillis) { this.connectTimeoutMillis = connectTimeoutMillis; }
+        public void setHttp2Enabled(boolean http2Enabled) { this.http2Enabled = http2Enabled; }
+        public void setPrewarmOnStartup(boolean prewarmOnStartup) { this.prewarmOnStartup = prewarmOnStartup; }
+        public void setGeminiTimeoutSeconds(int geminiTimeoutSeconds) { this.geminiTimeoutSeconds = geminiTimeoutSeconds; }
+        public void setNotionTimeoutSeconds(int notionTimeoutSeconds) { this.notionTimeoutSeconds = notionTimeoutSeconds; }
+        public void setLatexTimeoutSeconds(int latexTimeoutSeconds) { this.latexTimeoutSeconds = latexTimeoutSeconds; }
+    }
+
+    // Local durable state (channel cursors etc.) that must survive restarts
+    public static class State {
+        private String dir = "data";
+        private boolean fsync = false; // true = also survive power loss, one fsync per update
+        private int compactionThreshold = 1000; // Log records before compaction is considered
+
+        public String getDir() { return dir; }
+        public boolean isFsync() { return fsync; }
+        public int getCompactionThreshold() { return compactionThreshold; }
+        public void setDir(String dir) { this.dir = dir; }
+        public void setFsync(boolean fsync) { this.fsync = fsync; }
+        public void setCompactionThreshold(int compactionThreshold) { this.compactionThreshold = compactionThreshold; }
+    }
+
+    // Near-duplicate job post detection (MinHash/LSH) ahead of the AI stage
+    public static class Dedup {
+        private boolean enabled = true;
+        private double similarityThreshold = 0.8; // Estimated Jaccard similarity of word shingles
+        private int windowSize = 5000; // Recent posts kept for comparison
+        private int windowHours = 168;
+        private int shingleSize = 3; // Words per shingle
+
+        public boolean isEnabled() { return enabled; }
+        public double getSimilarityThreshold() { return similarityThreshold; }
+        public int getWindowSize() { return windowSize; }
+        public int getWindowHours() { return windowHours; }
+        public int getShingleSize() { return shingleSize; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public void setSimilarityThreshold(double similarityThreshold) { this.similarityThreshold = similarityThreshold; }
+        public void setWindowSize(int windowSize) { this.windowSize = windowSize; }
+        public void setWindowHours(int windowHours) { this.windowHours = windowHours; }
+        public void setShingleSize(int shingleSize) { this.shingleSize = shingleSize; }
+    }
+
+    // Staged job processing pipeline (see JobPipeline): per-stage concurrency and queue size
+    public static class Pipeline {
+        private int queueCapacity = 32; // Items buffered between two stages before upstream is held back
+        private int relevanceConcurrency = 2; // Relevance batches in flight
+        private int extractionConcurrency = 4;
+        private int storageConcurrency = 2;
+
+        public int getQueueCapacity() { return queueCapacity; }
+        public int getRelevanceConcurrency() { return relevanceConcurrency; }
+        public int getExtractionConcurrency() { return extractionConcurrency; }
+        public int getStorageConcurrency() { return storageConcurrency; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+        public void setRelevanceConcurrency(int relevanceConcurrency) { this.relevanceConcurrency = relevanceConcurrency; }
+        public void setExtractionConcurrency(int extractionConcurrency) { this.extractionConcurrency = extractionConcurrency; }
+        public void setStorageConcurrency(int storageConcurrency) { this.storageConcurrency = storageConcurrency; }
+    }
+
+    // LaTeX to PDF compilation backends (see LatexCompilationService)
+    public static class Latex {
+        // The resume template's packages plus a few common ones
+        private static final String DEFAULT_ALLOWED_PACKAGES = "latexsym,xcolor,float,ragged2e,fullpage,wrapfig,lipsum,"
+                + "tabularx,titlesec,geometry,marvosym,verbatim,enumitem,hyperref,fancyhdr,fontawesome5,multicol,"
+                + "graphicx,cfr-lm,fontenc,inputenc,tcolorbox,amsmath,amssymb,lmodern,babel,url,array,xurl";
+
+        private String backend = "auto"; // auto = local engine with remote fallback; local; remote
+        private String engine = "pdflatex"; // pdflatex or tectonic, on PATH or as a full path
+        private int poolSize = 2; // Local engine processes at once
+        private int timeoutSeconds = 30;
+        private String workDir = ""; // Blank = a temporary directory removed on shutdown
+        private boolean preloadFormat = true; // pdflatex only: dump each preamble into a format file once
+        private boolean cacheEnabled = true; // Keep compiled PDFs by LaTeX hash under app.state.dir
+        private int cacheMaxEntries = 200;
+        private String allowedPackages = DEFAULT_ALLOWED_PACKAGES; // Comma-separated; blank allows any package
+        private double maxLengthGrowth = 0.1; // Generated resumes may be this much longer than the template (estimated lines)
+
+        public String getBackend() { return backend; }
+        public String getEngine() { return engine; }
+        public int getPoolSize() { return poolSize; }
+        public int getTimeoutSeconds() { return timeoutSeconds; }
+        public String getWorkDir() { return workDir; }
+        public boolean isPreloadFormat() { return preloadFormat; }
+        public boolean isCacheEnabled() { return cacheEnabled; }
+        public int getCacheMaxEntries() { return cacheMaxEntries; }
+        public String getAllowedPackages() { return allowedPackages; }
+        public double getMaxLengthGrowth() { return maxLengthGrowth; }
+        public void setBackend(String backend) { this.backend = backend; }
+        public void setEngine(String engine) { this.engine = engine; }
+        public void setPoolSize(int poolSize) { this.poolSize = poolSize; }
+        public void setTimeoutSeconds(int timeoutSeconds) { this.timeoutSeconds = timeoutSeconds; }
+        public void setWorkDir(String workDir) { this.workDir = workDir; }
+        public void setPreloadFormat(boolean preloadFormat) { this.preloadFormat = preloadFormat; }
+        public void setCacheEnabled(boolean cacheEnabled) { this.cacheEnabled = cacheEnabled; }
+        public void setCacheMaxEntries(int cacheMaxEntries) { this.cacheMaxEntries = cacheMaxEntries; }
+        public void setAllowedPackages(String allowedPackages) { this.allowedPackages = allowedPackages; }
+        public void setMaxLengthGrowth(double maxLengthGrowth) { this.maxLengthGrowth = maxLengthGrowth; }
+    }
+
+    // Background health probes of external services (see HealthProbeService)
+    public static class Health {
+        private boolean enabled = true;
+        private int intervalSeconds = 300;
+        private int timeoutSeconds = 10;
+        private int ttlSeconds = 900; // Older probe results are reported as stale
+
+        public boolean isEnabled() { return enabled; }
+        public int getIntervalSeconds() { return intervalSeconds; }
+        public int getTimeoutSeconds() { return timeoutSeconds; }
+        public int getTtlSeconds() { return ttlSeconds; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public void setIntervalSeconds(int intervalSeconds) { this.intervalSeconds = intervalSeconds; }
+        public void setTimeoutSeconds(int timeoutSeconds) { this.timeoutSeconds = timeoutSeconds; }
+        public void setTtlSeconds(int ttlSeconds) { this.ttlSeconds = ttlSeconds; }
     }
-}
\ No newline at end of file
+}
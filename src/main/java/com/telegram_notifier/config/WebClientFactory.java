@@ -0,0 +1,200 @@
+package com.telegram_notifier.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import jakarta.annotation.PreDestroy;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single source of outbound {@link WebClient}s.
+ * <p>
+ * All clients share one Reactor Netty {@link ConnectionProvider}, which keeps a separate
+ * keep-alive pool per remote host, so connections and TLS sessions are reused across calls and
+ * across services. Each service gets its own client with its own request timeout and codec
+ * limit on top of the shared pools. HTTP/2 is offered via ALPN where the server supports it.
+ * <p>
+ * The request timeout bounds a whole exchange, from sending the request to the last byte of the
+ * response body, and fails it with a {@link TimeoutException}. Netty's response timeout alone only
+ * bounds the wait between reads.
+ */
+@Component
+public class WebClientFactory {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(WebClientFactory.class);
+
+    private final AppProperties properties;
+    private final ConnectionProvider connectionProvider;
+    private final HttpClient baseHttpClient;
+
+    private final Map<String, ConnectionPoolMetrics> poolMetrics = new ConcurrentHashMap<>();
+    private final Map<String, String> prewarmTargets = new ConcurrentHashMap<>();
+    private final Map<String, ClientCounters> clientCounters = new ConcurrentHashMap<>();
+
+    public WebClientFactory(AppProperties properties) {
+        this.properties = properties;
+        AppProperties.Http http = properties.getHttp();
+
+        this.connectionProvider = ConnectionProvider.builder("shared-outbound")
+                .maxConnections(http.getMaxConnectionsPerHost())
+                .pendingAcquireMaxCount(http.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(Duration.ofSeconds(http.getPendingAcquireTimeoutSeconds()))
+                .maxIdleTime(Duration.ofSeconds(http.getMaxIdleSeconds()))
+                .maxLifeTime(Duration.ofMinutes(http.getMaxLifeMinutes()))
+                .evictInBackground(Duration.ofSeconds(30))
+                .metrics(true, () -> new PoolMetricsRegistrar())
+                .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .compress(true)
+                .keepAlive(true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, http.getConnectTimeoutMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true);
+        if (http.isHttp2Enabled()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        this.baseHttpClient = httpClient;
+    }
+
+    /**
+     * Builder for a named client on the shared pools.
+     * @param name client name used in stats (e.g. "gemini")
+     * @param prewarmUrl URL to open a connection to at startup, or null
+     * @param requestTimeout bound on each whole request to this host, body included
+     * @param maxInMemorySize codec buffer limit in bytes
+     */
+    public WebClient.Builder builder(String name, String prewarmUrl, Duration requestTimeout, int maxInMemorySize) {
+        if (prewarmUrl != null) {
+            prewarmTargets.put(name, prewarmUrl);
+        }
+        ClientCounters counters = clientCounters.computeIfAbsent(name, n -> new ClientCounters());
+
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(baseHttpClient.responseTimeout(requestTimeout)))
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(maxInMemorySize))
+                .filter(countingFilter(counters))
+                .filter(requestTimeoutFilter(requestTimeout));
+    }
+
+    /**
+     * Fails an exchange that has not received its whole response body by the deadline
+     */
+    private static ExchangeFilterFunction requestTimeoutFilter(Duration timeout) {
+        return (request, next) -> Mono.defer(() -> {
+            long deadline = System.nanoTime() + timeout.toNanos();
+            return next.exchange(request)
+                    .timeout(timeout, Mono.error(() -> timedOut(request.url().getHost(), timeout)))
+                    .map(response -> response.mutate()
+                            .body(body -> body.timeout(untilDeadline(deadline), buffer -> untilDeadline(deadline),
+                                    Flux.error(() -> timedOut(request.url().getHost(), timeout))))
+                            .build());
+        });
+    }
+
+    private static Mono<Long> untilDeadline(long deadline) {
+        return Mono.delay(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())));
+    }
+
+    private static TimeoutException timedOut(String host, Duration timeout) {
+        return new TimeoutException("Request to " + host + " did not complete within " + timeout.toSeconds() + " s");
+    }
+
+    private ExchangeFilterFunction countingFilter(ClientCounters counters) {
+        return (request, next) -> {
+            counters.requests.incrementAndGet();
+            return next.exchange(request)
+                    .doOnNext(response -> {
+                        if (response.statusCode().isError()) counters.errorResponses.incrementAndGet();
+                    })
+                    .doOnError(e -> counters.failures.incrementAndGet());
+        };
+    }
+
+    /**
+     * Open one connection to every registered host so the first real call skips DNS, TCP and TLS setup
+     */
+    public void prewarm() {
+        if (!properties.getHttp().isPrewarmOnStartup()) {
+            return;
+        }
+        baseHttpClient.warmup().block(Duration.ofSeconds(10));
+
+        Flux.fromIterable(prewarmTargets.entrySet())
+                .flatMap(target -> baseHttpClient
+                        .responseTimeout(Duration.ofSeconds(10))
+                        .head()
+                        .uri(target.getValue())
+                        .response()
+                        .doOnNext(response -> log.debug("Pre-warmed connection to {} ({})", target.getKey(), response.status().code()))
+                        .onErrorResume(e -> {
+                            log.debug("Pre-warm of {} failed: {}", target.getKey(), e.getMessage());
+                            return Mono.empty();
+                        }))
+                .then()
+                .subscribe(null, e -> {}, () -> log.info("✅ Pre-warmed connections to {} hosts", prewarmTargets.size()));
+    }
+
+    public Map<String, Object> getPoolStats() {
+        Map<String, Object> pools = new TreeMap<>();
+        poolMetrics.forEach((key, metrics) -> {
+            Map<String, Object> pool = new LinkedHashMap<>();
+            pool.put("active", metrics.acquiredSize());
+            pool.put("idle", metrics.idleSize());
+            pool.put("allocated", metrics.allocatedSize());
+            pool.put("pending_acquire", metrics.pendingAcquireSize());
+            pool.put("max_connections", metrics.maxAllocatedSize());
+            pools.put(key, pool);
+        });
+
+        Map<String, Object> clients = new TreeMap<>();
+        clientCounters.forEach((name, counters) -> clients.put(name, Map.of(
+                "requests", counters.requests.get(),
+                "error_responses", counters.errorResponses.get(),
+                "failures", counters.failures.get())));
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("http2_enabled", properties.getHttp().isHttp2Enabled());
+        stats.put("pools", pools);
+        stats.put("clients", clients);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connectionProvider.disposeLater().block(Duration.ofSeconds(5));
+    }
+
+    private class PoolMetricsRegistrar implements ConnectionProvider.MeterRegistrar {
+        @Override
+        public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+            poolMetrics.put(remoteAddress.toString(), metrics);
+        }
+
+        @Override
+        public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+            poolMetrics.remove(remoteAddress.toString());
+        }
+    }
+
+    private static final class ClientCounters {
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong errorResponses = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+    }
+}
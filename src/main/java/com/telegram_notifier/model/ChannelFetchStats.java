@@ -0,0 +1,65 @@
+package com.telegram_notifier.model;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-channel fetch latency and error counters, updated from concurrent fetches.
+ */
+public class ChannelFetchStats {
+    private final String channelName;
+    private long fetchCount;
+    private long errorCount;
+    private long lastLatencyMs;
+    private long maxLatencyMs;
+    private long totalLatencyMs;
+    private int lastMessageCount;
+    private String lastError;
+    private LocalDateTime lastFetchedAt;
+
+    public ChannelFetchStats(String channelName) {
+        this.channelName = channelName;
+    }
+
+    public synchronized void recordSuccess(long latencyMs, int messageCount) {
+        recordLatency(latencyMs);
+        lastMessageCount = messageCount;
+        lastError = null;
+    }
+
+    public synchronized void recordError(long latencyMs, String error) {
+        recordLatency(latencyMs);
+        errorCount++;
+        lastMessageCount = 0;
+        lastError = error;
+    }
+
+    private void recordLatency(long latencyMs) {
+        fetchCount++;
+        lastLatencyMs = latencyMs;
+        maxLatencyMs = Math.max(maxLatencyMs, latencyMs);
+        totalLatencyMs += latencyMs;
+        lastFetchedAt = LocalDateTime.now();
+    }
+
+    public String getChannelName() { return channelName; }
+    public synchronized long getFetchCount() { return fetchCount; }
+    public synchronized long getErrorCount() { return errorCount; }
+    public synchronized long getLastLatencyMs() { return lastLatencyMs; }
+
+    public synchronized Map<String, Object> toStatusMap() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("fetch_count", fetchCount);
+        status.put("error_count", errorCount);
+        status.put("last_latency_ms", lastLatencyMs);
+        status.put("avg_latency_ms", fetchCount == 0 ? 0 : totalLatencyMs / fetchCount);
+        status.put("max_latency_ms", maxLatencyMs);
+        status.put("last_message_count", lastMessageCount);
+        status.put("last_error", lastError != null ? lastError : "none");
+        status.put("last_fetched_at", lastFetchedAt != null ?
+                lastFetchedAt.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : "Never");
+        return status;
+    }
+}
@@ -0,0 +1,28 @@
+package com.telegram_notifier.model;
+
+/**
+ * Outcome of screening a post: whether it is a relevant job and, if so, its extracted details
+ * (null when extraction failed).
+ */
+public class JobClassification {
+    private static final JobClassification NOT_RELEVANT = new JobClassification(false, null);
+
+    private final boolean relevant;
+    private final JobDetails jobDetails;
+
+    private JobClassification(boolean relevant, JobDetails jobDetails) {
+        this.relevant = relevant;
+        this.jobDetails = jobDetails;
+    }
+
+    public static JobClassification notRelevant() {
+        return NOT_RELEVANT;
+    }
+
+    public static JobClassification relevant(JobDetails jobDetails) {
+        return new JobClassification(true, jobDetails);
+    }
+
+    public boolean isRelevant() { return relevant; }
+    public JobDetails getJobDetails() { return jobDetails; }
+}
@@ -6,11 +6,26 @@ public class TelegramMessage {
     private final String content;
     private final LocalDateTime timestamp;
     private final String channelName;
+    private final String postId;
+    private final long messageId;
     
     public TelegramMessage(String content, LocalDateTime timestamp, String channelName) {
+        this(content, timestamp, channelName, null, 0);
+    }
+    
+    public TelegramMessage(String content, LocalDateTime timestamp, String channelName, String postId, long messageId) {
         this.content = content;
         this.timestamp = timestamp;
         this.channelName = channelName;
+        this.postId = postId;
+        this.messageId = messageId;
+    }
+    
+    /**
+     * Copy of this message with a different timestamp (used when the page carried no datetime)
+     */
+    public TelegramMessage withTimestamp(LocalDateTime timestamp) {
+        return new TelegramMessage(content, timestamp, channelName, postId, messageId);
     }
     
     public String getContent() {
@@ -25,9 +40,23 @@ public class TelegramMessage {
         return channelName;
     }
     
+    /**
+     * Raw {@code data-post} attribute, e.g. "channel/1234"
+     */
+    public String getPostId() {
+        return postId;
+    }
+    
+    /**
+     * Numeric message id parsed from {@code data-post}, or 0 if unknown
+     */
+    public long getMessageId() {
+        return messageId;
+    }
+    
     @Override
     public String toString() {
-        return String.format("TelegramMessage{channel='%s', time=%s, content='%s'}", 
-                           channelName, timestamp, content.substring(0, Math.min(content.length(), 50)) + "...");
+        return String.format("TelegramMessage{channel='%s', id=%d, time=%s, content='%s'}", 
+                           channelName, messageId, timestamp, content.substring(0, Math.min(content.length(), 50)) + "...");
     }
 }
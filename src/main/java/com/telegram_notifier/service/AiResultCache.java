@@ -0,0 +1,241 @@
+package com.telegram_notifier.service;
+
+import com.telegram_notifier.config.AppProperties;
+import com.telegram_notifier.util.FrequencyAwareCache;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content-addressed cache of Gemini results.
+ * <p>
+ * Keys are a SHA-256 over the stage, the model, the prompt template and the post text
+ * normalized for case and whitespace, so a cross-posted or replayed ad hits the cache, while
+ * changing the model or a prompt invalidates it. Values are the stage's serialized result. The
+ * in-memory tier is a {@link FrequencyAwareCache}; the optional disk tier is a SQLite table under
+ * {@code app.state.dir}, so results survive restarts without being held in memory. Once it has
+ * more than {@code disk-max-entries} rows, the oldest rows (plus some slack, so this does not
+ * happen on every put) are deleted in one statement.
+ */
+@Service
+public class AiResultCache {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(AiResultCache.class);
+
+    private static final String CACHE_FILE = "ai-result-cache.db";
+
+    // Rowids grow with every insert or replace, so the lowest ones are the oldest entries
+    private static final String SCHEMA = "CREATE TABLE IF NOT EXISTS results (key TEXT PRIMARY KEY, value TEXT NOT NULL)";
+    private static final String EVICT_OLDEST = "DELETE FROM results WHERE rowid IN (SELECT rowid FROM results ORDER BY rowid LIMIT ?)";
+
+    // Fraction of disk-max-entries evicted beyond the cap, so eviction runs once per that many puts
+    private static final double EVICTION_SLACK = 0.05;
+
+    public enum Stage { RELEVANCE, EXTRACTION, CLASSIFY_EXTRACT }
+
+    private final AppProperties properties;
+    private FrequencyAwareCache<String, String> memory;
+    private Connection disk;
+    private PreparedStatement selectValue;
+    private PreparedStatement upsertValue;
+    private PreparedStatement evictOldest;
+    private long diskEntries;
+    private final AtomicLong diskEvictions = new AtomicLong();
+
+    private final Map<Stage, StageCounters> counters = new EnumMap<>(Stage.class);
+
+    public AiResultCache(AppProperties properties) {
+        this.properties = properties;
+        for (Stage stage : Stage.values()) {
+            counters.put(stage, new StageCounters());
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        AppProperties.AI.Cache config = properties.getAi().getCache();
+        memory = new FrequencyAwareCache<>(config.getMemoryMaxEntries());
+        if (!config.isEnabled() || !config.isDiskEnabled()) {
+            return;
+        }
+        Path file = Paths.get(properties.getState().getDir(), CACHE_FILE);
+        try {
+            if (file.toAbsolutePath().getParent() != null) Files.createDirectories(file.toAbsolutePath().getParent());
+            Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA journal_mode=WAL");
+                statement.execute("PRAGMA synchronous=NORMAL");
+                statement.execute(SCHEMA);
+                try (ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM results")) {
+                    diskEntries = rows.next() ? rows.getLong(1) : 0;
+                }
+            }
+            selectValue = connection.prepareStatement("SELECT value FROM results WHERE key = ?");
+            upsertValue = connection.prepareStatement("INSERT OR REPLACE INTO results (key, value) VALUES (?, ?)");
+            evictOldest = connection.prepareStatement(EVICT_OLDEST);
+            disk = connection;
+            log.info("✅ AI result cache has {} entries in {}", diskEntries, file);
+        } catch (IOException | SQLException e) {
+            log.warn("Could not open AI result disk cache {} - using memory only", file, e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (disk == null) return;
+        try {
+            disk.close();
+        } catch (SQLException e) {
+            log.warn("Failed to close AI result disk cache", e);
+        }
+        disk = null;
+    }
+
+    /**
+     * Cached result for this stage, prompt and post, or null
+     */
+    public String get(Stage stage, String promptTemplate, String content) {
+        if (!properties.getAi().getCache().isEnabled()) return null;
+        StageCounters stageCounters = counters.get(stage);
+        String key = key(stage, promptTemplate, content);
+
+        String value = memory.get(key);
+        if (value != null) {
+            stageCounters.memoryHits.incrementAndGet();
+            return value;
+        }
+        if ((value = diskGet(key)) != null) {
+            stageCounters.diskHits.incrementAndGet();
+            memory.put(key, value);
+            return value;
+        }
+        stageCounters.misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(Stage stage, String promptTemplate, String content, String value) {
+        if (!properties.getAi().getCache().isEnabled() || value == null) return;
+        String key = key(stage, promptTemplate, content);
+        memory.put(key, value);
+        diskPut(key, value);
+    }
+
+    private synchronized String diskGet(String key) {
+        if (disk == null) return null;
+        try {
+            selectValue.setString(1, key);
+            try (ResultSet rows = selectValue.executeQuery()) {
+                return rows.next() ? rows.getString(1) : null;
+            }
+        } catch (SQLException e) {
+            log.warn("Failed to read AI result from disk cache", e);
+            return null;
+        }
+    }
+
+    private synchronized void diskPut(String key, String value) {
+        if (disk == null) return;
+        try {
+            upsertValue.setString(1, key);
+            upsertValue.setString(2, value);
+            upsertValue.executeUpdate();
+            // A replaced key keeps the count; re-counting only when over the cap keeps puts to one statement
+            diskEntries++;
+            int max = properties.getAi().getCache().getDiskMaxEntries();
+            if (diskEntries > max) {
+                try (Statement statement = disk.createStatement();
+                     ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM results")) {
+                    diskEntries = rows.next() ? rows.getLong(1) : 0;
+                }
+                long excess = diskEntries - max;
+                if (excess > 0) {
+                    evictOldest.setLong(1, excess + (long) (max * EVICTION_SLACK));
+                    int evicted = evictOldest.executeUpdate();
+                    diskEntries -= evicted;
+                    diskEvictions.addAndGet(evicted);
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("Failed to write AI result to disk cache", e);
+        }
+    }
+
+    private synchronized long diskEntries() {
+        return disk != null ? diskEntries : 0;
+    }
+
+    private String key(Stage stage, String promptTemplate, String content) {
+        String model = properties.getAi().getGemini().getModel();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(stage.name().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(model).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(promptTemplate).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(normalize(content).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Lowercase and collapse whitespace, so formatting-only differences share an entry
+     */
+    static String normalize(String content) {
+        if (content == null) return "";
+        return content.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.getAi().getCache().isEnabled());
+        stats.put("memory_entries", memory != null ? memory.size() : 0);
+        stats.put("memory_evictions", memory != null ? memory.evictions() : 0);
+        stats.put("memory_admission_rejections", memory != null ? memory.rejections() : 0);
+        stats.put("disk_entries", diskEntries());
+        stats.put("disk_evictions", diskEvictions.get());
+
+        Map<String, Object> stages = new LinkedHashMap<>();
+        counters.forEach((stage, c) -> {
+            long hits = c.memoryHits.get() + c.diskHits.get();
+            long lookups = hits + c.misses.get();
+            Map<String, Object> stageStats = new LinkedHashMap<>();
+            stageStats.put("memory_hits", c.memoryHits.get());
+            stageStats.put("disk_hits", c.diskHits.get());
+            stageStats.put("misses", c.misses.get());
+            stageStats.put("hit_rate", lookups == 0 ? 0.0 : Math.round(hits * 1000.0 / lookups) / 1000.0);
+            stages.put(stage.name().toLowerCase(Locale.ROOT), stageStats);
+        });
+        stats.put("stages", stages);
+        return stats;
+    }
+
+    private static final class StageCounters {
+        private final AtomicLong memoryHits = new AtomicLong();
+        private final AtomicLong diskHits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+    }
+}
@@ -1,78 +1,296 @@
 package com.telegram_notifier.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.telegram_notifier.config.AppProperties;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class AiService {
 
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(AiService.class);
 
+    // Rough chars-per-token for sizing batches; Gemini averages ~4 for English text
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final int PER_POST_OVERHEAD_TOKENS = 12;
+
+    private static final Map<String, Object> BATCH_VERDICT_SCHEMA = Map.of(
+        "type", "ARRAY",
+        "items", GeminiClient.objectSchema(
+            Map.of("id", "STRING", "relevant", "BOOLEAN"), List.of("id", "relevant"))
+    );
+
     private final AppProperties props;
+    private final GeminiClient geminiClient;
+    private final AiResultCache resultCache;
+    private final LocalRelevanceClassifier localClassifier;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicLong batchCalls = new AtomicLong();
+    private final AtomicLong batchedPosts = new AtomicLong();
+    private final AtomicLong singleCalls = new AtomicLong();
+    private final AtomicLong fallbackPosts = new AtomicLong();
 
-    public AiService(AppProperties props) {
+    public AiService(AppProperties props, GeminiClient geminiClient, AiResultCache resultCache,
+                     LocalRelevanceClassifier localClassifier) {
         this.props = props;
+        this.geminiClient = geminiClient;
+        this.resultCache = resultCache;
+        this.localClassifier = localClassifier;
     }
 
-    private WebClient client() {
-        return WebClient.builder()
-                .baseUrl("https://generativelanguage.googleapis.com")
-                .build();
+    public boolean isRelevant(String text) {
+        return Boolean.TRUE.equals(isRelevantAsync(text).block());
     }
 
-    public boolean isRelevant(String text) {
+    /**
+     * Non-blocking {@link #isRelevant}: cached verdict, then the local classifier, then Gemini
+     */
+    public Mono<Boolean> isRelevantAsync(String text) {
+        return Mono.defer(() -> {
+            String prompt = props.getAi().getGemini().getRelevancePrompt();
+            String cached = resultCache.get(AiResultCache.Stage.RELEVANCE, prompt, text);
+            if (cached != null) {
+                return Mono.just(Boolean.parseBoolean(cached));
+            }
+            Boolean local = localClassifier.decide(text);
+            if (local != null) {
+                return Mono.just(local);
+            }
+            return askGemini(text);
+        });
+    }
+
+    /**
+     * True if the local classifier is confident the post is irrelevant. Used where relevance
+     * comes from another Gemini call (classify+extract), which that call can then be skipped
+     * for; every other post reports back via {@link #learnVerdict}.
+     */
+    public boolean isLocallyIrrelevant(String text) {
+        return Boolean.FALSE.equals(localClassifier.decideIrrelevant(text));
+    }
+
+    public void learnVerdict(String text, boolean relevant) {
+        localClassifier.learn(text, relevant);
+    }
+
+    private Mono<Boolean> askGemini(String text) {
         String prompt = props.getAi().getGemini().getRelevancePrompt();
-        String model = props.getAi().getGemini().getModel();
-        String apiKey = props.getAi().getGemini().getApiKey();
+        Map<String, Object> body = GeminiClient.textRequest(prompt + "\n\nPOST:\n" + text);
 
-        Map<String, Object> body = Map.of(
-            "contents", List.of(
-                Map.of("parts", List.of(
-                    Map.of("text", prompt + "\n\nPOST:\n" + text)
-                ))
-            )
-        );
+        return Mono.defer(() -> {
+                    singleCalls.incrementAndGet();
+                    return geminiClient.generateContent(body);
+                })
+                .map(res -> {
+                    String textOut = geminiClient.extractText(res);
+                    if (textOut == null) {
+                        log.warn("Empty Gemini relevance response, defaulting to NO");
+                        return false;
+                    }
+                    boolean yes = textOut.trim().toUpperCase().startsWith("YES");
+                    log.debug("Gemini relevance response: {}", textOut);
+                    resultCache.put(AiResultCache.Stage.RELEVANCE, prompt, text, Boolean.toString(yes));
+                    localClassifier.learn(text, yes);
+                    return yes;
+                })
+                .onErrorResume(e -> {
+                    log.error("Gemini relevance call failed, defaulting to NO", e);
+                    return Mono.just(false);
+                });
+    }
 
+    /**
+     * Classify many posts with as few Gemini calls as possible.
+     * <p>
+     * Cached verdicts and posts the {@link LocalRelevanceClassifier} is confident about are
+     * answered without Gemini. The rest are packed into batches up to
+     * {@code app.ai.gemini.batch-token-budget} estimated tokens (and {@code batch-max-items}
+     * posts); each batch is one request that returns a JSON verdict per post id. Posts too large
+     * for any batch, and posts a batch failed to return a verdict for, fall back to single calls.
+     * If the thread is interrupted, posts not yet classified are left out of the result.
+     * @param postsById post text keyed by a caller-chosen unique id
+     * @return relevance verdict per post id
+     */
+    public Map<String, Boolean> classifyBatch(Map<String, String> postsById) {
+        Map<String, Boolean> verdicts = new ConcurrentHashMap<>();
         try {
-            Map<?, ?> res = client()
-                    .post()
-                    .uri("/v1beta/models/" + model + ":generateContent?key=" + apiKey)
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .bodyValue(body)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .block();
-
-            String textOut = extractText(res);
-            boolean yes = textOut != null && textOut.trim().toUpperCase().startsWith("YES");
-            log.debug("Gemini relevance response: {}", textOut);
-            return yes;
-        } catch (Exception e) {
-            log.error("Gemini relevance call failed, defaulting to NO", e);
+            classifyInto(postsById, verdicts).block();
+        } catch (RuntimeException e) {
+            if (!(Exceptions.unwrap(e) instanceof InterruptedException)) throw e;
+            // block() clears the flag; restore it so the caller stops too
+            Thread.currentThread().interrupt();
+            log.warn("⚠️ Relevance classification interrupted");
+        }
+        return new LinkedHashMap<>(verdicts);
+    }
+
+    /**
+     * Non-blocking {@link #classifyBatch}. Up to {@code app.ai.gemini.max-concurrent-requests}
+     * Gemini calls are in flight at once; their start times are still paced by the shared
+     * {@link GeminiRateLimiter}.
+     */
+    public Mono<Map<String, Boolean>> classifyBatchAsync(Map<String, String> postsById) {
+        return Mono.defer(() -> {
+            Map<String, Boolean> verdicts = new ConcurrentHashMap<>();
+            return classifyInto(postsById, verdicts).then(Mono.fromSupplier(() -> new LinkedHashMap<>(verdicts)));
+        });
+    }
+
+    private Mono<Void> classifyInto(Map<String, String> postsById, Map<String, Boolean> verdicts) {
+        return Mono.defer(() -> {
+            String prompt = props.getAi().getGemini().getRelevancePrompt();
+            Map<String, String> escalated = new LinkedHashMap<>();
+            int cachedCount = 0;
+            for (Map.Entry<String, String> post : postsById.entrySet()) {
+                String cached = resultCache.get(AiResultCache.Stage.RELEVANCE, prompt, post.getValue());
+                Boolean verdict = cached != null ? Boolean.valueOf(cached) : localClassifier.decide(post.getValue());
+                if (cached != null) cachedCount++;
+                if (verdict != null) {
+                    verdicts.put(post.getKey(), verdict);
+                } else {
+                    escalated.put(post.getKey(), post.getValue());
+                }
+            }
+
+            List<String> singles = new ArrayList<>();
+            List<List<String>> batches = planBatches(escalated, singles);
+
+            log.info("🤖 Classifying {} posts: {} cached, {} local, {} batched calls, {} individually",
+                    postsById.size(), cachedCount, verdicts.size() - cachedCount, batches.size(), singles.size());
+
+            int concurrency = Math.max(1, props.getAi().getGemini().getMaxConcurrentRequests());
+            Flux<String> uncovered = Flux.fromIterable(batches)
+                    .flatMap(batch -> classifyOneBatch(batch, postsById)
+                            .flatMapIterable(batchVerdicts -> {
+                                verdicts.putAll(batchVerdicts);
+                                batchVerdicts.forEach((id, verdict) -> {
+                                    resultCache.put(AiResultCache.Stage.RELEVANCE, prompt, postsById.get(id), Boolean.toString(verdict));
+                                    localClassifier.learn(postsById.get(id), verdict);
+                                });
+                                return batch.stream().filter(id -> !batchVerdicts.containsKey(id)).toList();
+                            }), concurrency);
+
+            return Flux.concat(Flux.fromIterable(singles), uncovered)
+                    .flatMap(id -> {
+                        fallbackPosts.incrementAndGet();
+                        return askGemini(postsById.get(id)).doOnNext(verdict -> verdicts.put(id, verdict));
+                    }, concurrency)
+                    .then();
+        });
+    }
+
+    private List<List<String>> planBatches(Map<String, String> postsById, List<String> singles) {
+        AppProperties.AI.Gemini config = props.getAi().getGemini();
+        int budget = config.getBatchTokenBudget();
+        int maxItems = Math.max(1, config.getBatchMaxItems());
+
+        List<List<String>> batches = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        int currentTokens = 0;
+
+        for (Map.Entry<String, String> post : postsById.entrySet()) {
+            int tokens = estimateTokens(post.getValue());
+            if (tokens > budget) {
+                singles.add(post.getKey());
+                continue;
+            }
+            if (!current.isEmpty() && (currentTokens + tokens > budget || current.size() >= maxItems)) {
+                batches.add(current);
+                current = new ArrayList<>();
+                currentTokens = 0;
+            }
+            current.add(post.getKey());
+            currentTokens += tokens;
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+
+        // A batch of one is just a single call with a longer prompt
+        batches.removeIf(batch -> {
+            if (batch.size() == 1) {
+                singles.add(batch.get(0));
+                return true;
+            }
             return false;
+        });
+        return batches;
+    }
+
+    private Mono<Map<String, Boolean>> classifyOneBatch(List<String> ids, Map<String, String> postsById) {
+        StringBuilder prompt = new StringBuilder(props.getAi().getGemini().getRelevancePrompt())
+                .append("\n\nApply this filter to EACH post below independently. ")
+                .append("Instead of YES/NO, return one {\"id\", \"relevant\"} object per post, ")
+                .append("where id is the post id given after ### POST.\n");
+        for (String id : ids) {
+            prompt.append("\n### POST ").append(id).append('\n').append(postsById.get(id)).append('\n');
         }
+
+        return Mono.defer(() -> {
+                    batchCalls.incrementAndGet();
+                    return geminiClient.generateContent(GeminiClient.jsonRequest(prompt.toString(), BATCH_VERDICT_SCHEMA));
+                })
+                .map(res -> parseBatchVerdicts(ids, geminiClient.extractText(res)))
+                .onErrorResume(e -> {
+                    log.error("Gemini batch relevance call failed for {} posts, falling back to single calls", ids.size(), e);
+                    return Mono.just(new LinkedHashMap<String, Boolean>());
+                });
     }
 
-    private String extractText(Map<?, ?> res) {
-        if (res == null) return null;
+    private Map<String, Boolean> parseBatchVerdicts(List<String> ids, String json) {
+        Map<String, Boolean> verdicts = new LinkedHashMap<>();
+        if (json == null) {
+            log.warn("Empty batch relevance response for {} posts, falling back to single calls", ids.size());
+            return verdicts;
+        }
         try {
-            var candidates = (List<?>) res.get("candidates");
-            if (candidates == null || candidates.isEmpty()) return null;
-            var content = (Map<?, ?>) ((Map<?, ?>) candidates.get(0)).get("content");
-            var parts = (List<?>) content.get("parts");
-            if (parts == null || parts.isEmpty()) return null;
-            var first = (Map<?, ?>) parts.get(0);
-            return (String) first.get("text");
-        } catch (Exception e) {
-            log.error("Failed to extract text from Gemini response", e);
-            return null;
+            for (JsonNode verdict : objectMapper.readTree(json)) {
+                String id = verdict.path("id").asText();
+                if (ids.contains(id) && verdict.path("relevant").isBoolean()) {
+                    verdicts.put(id, verdict.path("relevant").asBoolean());
+                }
+            }
+        } catch (JsonProcessingException e) {
+            log.error("Unreadable batch relevance response for {} posts, falling back to single calls", ids.size(), e);
+            return verdicts;
         }
+        batchedPosts.addAndGet(verdicts.size());
+        if (verdicts.size() < ids.size()) {
+            log.warn("Batch relevance response covered {}/{} posts, falling back for the rest", verdicts.size(), ids.size());
+        }
+        return verdicts;
+    }
+
+    private int estimateTokens(String text) {
+        return (text == null ? 0 : text.length() / CHARS_PER_TOKEN) + PER_POST_OVERHEAD_TOKENS;
+    }
+
+    public Map<String, Object> getBatchStats() {
+        long batches = batchCalls.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("batch_calls", batches);
+        stats.put("batched_posts", batchedPosts.get());
+        stats.put("avg_batch_size", batches == 0 ? 0.0 : Math.round(batchedPosts.get() * 10.0 / batches) / 10.0);
+        stats.put("single_calls", singleCalls.get());
+        stats.put("fallback_posts", fallbackPosts.get());
+        return stats;
+    }
+
+    public Map<String, Object> getLocalClassifierStats() {
+        return localClassifier.getStats();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,171 @@
+package com.telegram_notifier.service;
+
+import com.telegram_notifier.config.AppProperties;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides when each channel is next polled.
+ * <p>
+ * Every channel keeps an exponentially weighted posting rate and relevant-job rate. The poll
+ * interval is sized so that a poll is expected to pick up about
+ * {@code app.telegram.target-posts-per-poll} posts, with relevant jobs counting extra, and is
+ * clamped to the configured min/max. Polls that find nothing stretch the interval, so quiet or
+ * dead channels drift towards the max.
+ */
+@Service
+public class ChannelPollScheduler {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ChannelPollScheduler.class);
+
+    private static final double RATE_SMOOTHING = 0.3;
+    private static final double RELEVANT_WEIGHT = 3.0;
+    private static final double EMPTY_POLL_BACKOFF = 1.5;
+
+    private final AppProperties properties;
+    private final Map<String, ChannelPollState> states = new ConcurrentHashMap<>();
+
+    public ChannelPollScheduler(AppProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Channels whose next poll is due. Channels never polled before are always due.
+     */
+    public List<String> dueChannels(List<String> channels) {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> due = new ArrayList<>();
+        for (String channel : channels) {
+            ChannelPollState state = states.get(channel);
+            if (state == null || !state.nextDueAt.isAfter(now)) {
+                due.add(channel);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Record a completed poll and schedule the next one.
+     * @param newPosts number of posts that were new since the previous poll
+     */
+    public void recordPoll(String channel, int newPosts) {
+        LocalDateTime now = LocalDateTime.now();
+        ChannelPollState state = states.computeIfAbsent(channel, c -> new ChannelPollState());
+
+        synchronized (state) {
+            Duration interval = nextInterval(state, now, newPosts);
+            state.lastPolledAt = now;
+            state.currentInterval = interval;
+            state.nextDueAt = now.plus(interval);
+            state.pollCount++;
+
+            log.debug("Channel @{}: {} new posts, {} posts/h, {} relevant/h, next poll in {} min",
+                    channel, newPosts, round(state.postsPerHour), round(state.relevantPerHour), interval.toMinutes());
+        }
+    }
+
+    /**
+     * Record that a post from this channel was classified as a relevant job
+     */
+    public void recordRelevant(String channel) {
+        ChannelPollState state = states.computeIfAbsent(channel, c -> new ChannelPollState());
+        synchronized (state) {
+            state.relevantSinceLastPoll++;
+            state.totalRelevant++;
+        }
+    }
+
+    private Duration nextInterval(ChannelPollState state, LocalDateTime now, int newPosts) {
+        AppProperties.Telegram config = properties.getTelegram();
+        Duration base = Duration.ofMinutes(config.getPollIntervalMinutes());
+        if (!config.isAdaptivePolling()) {
+            return base;
+        }
+
+        Duration min = Duration.ofMinutes(Math.max(1, config.getMinPollIntervalMinutes()));
+        Duration max = Duration.ofMinutes(Math.max(config.getMinPollIntervalMinutes(), config.getMaxPollIntervalMinutes()));
+
+        if (state.lastPolledAt == null) {
+            // First poll only tells us the backlog, not a rate
+            return clamp(base, min, max);
+        }
+
+        double hours = Math.max(1.0 / 60, Duration.between(state.lastPolledAt, now).toSeconds() / 3600.0);
+        state.postsPerHour = smooth(state.postsPerHour, newPosts / hours);
+        state.relevantPerHour = smooth(state.relevantPerHour, state.relevantSinceLastPoll / hours);
+        state.relevantSinceLastPoll = 0;
+
+        double score = state.postsPerHour + RELEVANT_WEIGHT * state.relevantPerHour;
+        Duration interval;
+        if (newPosts == 0 || score <= 0) {
+            interval = Duration.ofSeconds((long) (state.currentInterval.toSeconds() * EMPTY_POLL_BACKOFF));
+        } else {
+            double targetHours = config.getTargetPostsPerPoll() / score;
+            interval = Duration.ofSeconds((long) (targetHours * 3600));
+        }
+        return clamp(interval, min, max);
+    }
+
+    private double smooth(double previous, double observed) {
+        return previous == 0 ? observed : RATE_SMOOTHING * observed + (1 - RATE_SMOOTHING) * previous;
+    }
+
+    private Duration clamp(Duration value, Duration min, Duration max) {
+        if (value.compareTo(min) < 0) return min;
+        if (value.compareTo(max) > 0) return max;
+        return value;
+    }
+
+    private double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * Next due time and observed rates for every channel that has been polled
+     */
+    public Map<String, Object> getScheduleStatus() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        Map<String, Object> status = new TreeMap<>();
+
+        states.forEach((channel, state) -> {
+            synchronized (state) {
+                Map<String, Object> channelStatus = new LinkedHashMap<>();
+                channelStatus.put("next_due_at", state.nextDueAt.format(formatter));
+                channelStatus.put("interval_minutes", state.currentInterval.toMinutes());
+                channelStatus.put("posts_per_hour", round(state.postsPerHour));
+                channelStatus.put("relevant_per_hour", round(state.relevantPerHour));
+                channelStatus.put("total_relevant", state.totalRelevant);
+                channelStatus.put("poll_count", state.pollCount);
+                channelStatus.put("last_polled_at", state.lastPolledAt != null ? state.lastPolledAt.format(formatter) : "Never");
+                status.put("@" + channel, channelStatus);
+            }
+        });
+
+        return status;
+    }
+
+    public void reset() {
+        states.clear();
+        log.info("Reset channel poll schedule - all channels are due");
+    }
+
+    private static final class ChannelPollState {
+        private LocalDateTime lastPolledAt;
+        private LocalDateTime nextDueAt = LocalDateTime.now();
+        private Duration currentInterval = Duration.ZERO;
+        private double postsPerHour;
+        private double relevantPerHour;
+        private int relevantSinceLastPoll;
+        private long totalRelevant;
+        private long pollCount;
+    }
+}
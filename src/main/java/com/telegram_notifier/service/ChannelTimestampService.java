@@ -1,18 +1,118 @@
 package com.telegram_notifier.service;
 
+import com.telegram_notifier.config.AppProperties;
+import com.telegram_notifier.model.TelegramMessage;
+import com.telegram_notifier.util.DurableKeyValueLog;
 import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Per-channel fetch cursors (last message id and last fetch time).
+ * <p>
+ * Cursors are held in memory and written through to a {@link DurableKeyValueLog} under
+ * {@code app.state.dir}, one record per update, so a restart or a kill -9 resumes from the last
+ * written cursor instead of re-processing the past 24 hours.
+ * <p>
+ * The message id cursor is acknowledgement based: fetched messages are in flight until the
+ * pipeline acks them, and the durable cursor only moves to the highest id with nothing in flight
+ * or awaiting redelivery below it. A crash mid-batch therefore re-delivers the unfinished
+ * messages on the next start instead of dropping them, and messages may finish in any order.
+ */
 @Service
 public class ChannelTimestampService {
 
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ChannelTimestampService.class);
     
-    // Store last fetch time per channel
-    private final Map<String, LocalDateTime> lastFetchTimes = new HashMap<>();
+    private static final String CURSOR_FILE = "channel-cursors.log";
+    
+    private final AppProperties properties;
+    
+    // Store last fetch time per channel (updated from concurrent channel fetches)
+    private final Map<String, LocalDateTime> lastFetchTimes = new ConcurrentHashMap<>();
+    
+    // Committed message id cursor per channel (persisted); only advanced by acks
+    private final Map<String, Long> lastMessageIds = new ConcurrentHashMap<>();
+    
+    // In-process delivery state: what was handed to the pipeline and not yet acked
+    private final Map<String, ChannelCheckpoint> checkpoints = new ConcurrentHashMap<>();
+    
+    // Null when the state directory is unusable; cursors are then in-memory only
+    private DurableKeyValueLog cursorStore;
+    private final Object persistLock = new Object();
+    
+    public ChannelTimestampService(AppProperties properties) {
+        this.properties = properties;
+    }
+    
+    @PostConstruct
+    public void loadCursors() {
+        AppProperties.State state = properties.getState();
+        Path file = Paths.get(state.getDir(), CURSOR_FILE);
+        try {
+            cursorStore = new DurableKeyValueLog(file, state.isFsync(), state.getCompactionThreshold());
+        } catch (IOException | RuntimeException e) {
+            log.error("❌ Could not open cursor store {} - cursors will not survive a restart", file, e);
+            return;
+        }
+        
+        cursorStore.snapshot().forEach((channel, value) -> {
+            try {
+                String[] parts = value.split(",", 2);
+                if (!parts[0].isEmpty()) {
+                    lastMessageIds.put(channel, Long.parseLong(parts[0]));
+                }
+                if (parts.length > 1 && !parts[1].isEmpty()) {
+                    lastFetchTimes.put(channel, LocalDateTime.parse(parts[1]));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Ignoring unreadable cursor for @{}: {}", channel, value);
+            }
+        });
+        log.info("✅ Restored cursors for {} channels from {}", cursorStore.size(), file);
+    }
+    
+    @PreDestroy
+    public void closeCursorStore() {
+        if (cursorStore == null) return;
+        try {
+            cursorStore.close();
+        } catch (IOException e) {
+            log.warn("Failed to close cursor store", e);
+        }
+    }
+    
+    /**
+     * Write the channel's current cursor through to disk. The value is read under the lock, so
+     * concurrent updates to one channel can never leave an older cursor as the last record.
+     */
+    private void persist(String channelName) {
+        if (cursorStore == null) return;
+        synchronized (persistLock) {
+            Long messageId = lastMessageIds.get(channelName);
+            LocalDateTime fetchTime = lastFetchTimes.get(channelName);
+            String value = (messageId != null ? messageId.toString() : "") + ","
+                    + (fetchTime != null ? fetchTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : "");
+            try {
+                cursorStore.put(channelName, value);
+            } catch (RuntimeException e) {
+                log.error("Failed to persist cursor for @{}", channelName, e);
+            }
+        }
+    }
     
     /**
      * Get the last fetch time for a channel. If never fetched, returns 24 hours ago.
@@ -33,6 +133,7 @@ public class ChannelTimestampService {
      */
     public void updateLastFetchTime(String channelName, LocalDateTime fetchTime) {
         lastFetchTimes.put(channelName, fetchTime);
+        persist(channelName);
         log.debug("Updated last fetch time for @{}: {}", channelName, 
                 fetchTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
     }
@@ -47,6 +148,158 @@ public class ChannelTimestampService {
                 now.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
     }
     
+    /**
+     * Position up to which a channel's messages have been handed out, or 0 if the channel has no
+     * cursor yet. Fetching (and backfill) continues from here; it is ahead of the committed cursor
+     * while messages are in flight and drops back below any message released for redelivery.
+     */
+    public long getLastMessageId(String channelName) {
+        ChannelCheckpoint checkpoint = checkpoints.get(channelName);
+        if (checkpoint == null) {
+            return getCommittedMessageId(channelName);
+        }
+        synchronized (checkpoint) {
+            long position = checkpoint.dispatched;
+            if (!checkpoint.redeliver.isEmpty()) {
+                position = Math.min(position, checkpoint.redeliver.first() - 1);
+            }
+            return position;
+        }
+    }
+    
+    /**
+     * Highest message id handed out or skipped so far, ignoring redeliveries; 0 without a cursor
+     */
+    public long getDispatchedMessageId(String channelName) {
+        ChannelCheckpoint checkpoint = checkpoints.get(channelName);
+        if (checkpoint == null) {
+            return getCommittedMessageId(channelName);
+        }
+        synchronized (checkpoint) {
+            return checkpoint.dispatched;
+        }
+    }
+    
+    /**
+     * Durable cursor: every message at or below it has been fully processed
+     */
+    public long getCommittedMessageId(String channelName) {
+        return lastMessageIds.getOrDefault(channelName, 0L);
+    }
+    
+    /**
+     * True while messages of the channel wait to be handed out again after a nack
+     */
+    public boolean hasPendingRedelivery(String channelName) {
+        ChannelCheckpoint checkpoint = checkpoints.get(channelName);
+        if (checkpoint == null) return false;
+        synchronized (checkpoint) {
+            return !checkpoint.redeliver.isEmpty();
+        }
+    }
+    
+    public boolean hasMessageCursor(String channelName) {
+        return lastMessageIds.containsKey(channelName) || checkpoints.containsKey(channelName);
+    }
+    
+    /**
+     * Record the result of a fetch: {@code delivered} messages go to the pipeline and stay
+     * in flight until acked; everything else up to {@code highestSeenId} (posts that were
+     * filtered out) needs no processing. The committed cursor moves up to just below the oldest
+     * in-flight message.
+     */
+    public void recordDispatched(String channelName, List<TelegramMessage> delivered, long highestSeenId) {
+        ChannelCheckpoint checkpoint = checkpoint(channelName);
+        synchronized (checkpoint) {
+            for (TelegramMessage message : delivered) {
+                if (message.getMessageId() > 0) {
+                    checkpoint.inFlight.add(message.getMessageId());
+                    checkpoint.redeliver.remove(message.getMessageId());
+                }
+            }
+            checkpoint.dispatched = Math.max(checkpoint.dispatched, highestSeenId);
+            commit(channelName, checkpoint);
+        }
+    }
+    
+    /**
+     * Acknowledge that a message went through the whole pipeline
+     */
+    public void ack(TelegramMessage message) {
+        ChannelCheckpoint checkpoint = checkpoints.get(message.getChannelName());
+        if (checkpoint == null || message.getMessageId() <= 0) return;
+        synchronized (checkpoint) {
+            checkpoint.inFlight.remove(message.getMessageId());
+            checkpoint.attempts.remove(message.getMessageId());
+            commit(message.getChannelName(), checkpoint);
+        }
+    }
+    
+    /**
+     * Report that a message was not fully processed. It is handed out again by the next fetch
+     * of its channel and holds the committed cursor back, until it has failed
+     * {@code app.telegram.max-delivery-attempts} times and is given up on.
+     */
+    public void nack(TelegramMessage message) {
+        ChannelCheckpoint checkpoint = checkpoints.get(message.getChannelName());
+        if (checkpoint == null || message.getMessageId() <= 0) return;
+        synchronized (checkpoint) {
+            long messageId = message.getMessageId();
+            checkpoint.inFlight.remove(messageId);
+            int attempts = checkpoint.attempts.merge(messageId, 1, Integer::sum);
+            if (attempts >= properties.getTelegram().getMaxDeliveryAttempts()) {
+                log.warn("⚠️ Giving up on message {} from @{} after {} attempts", messageId, message.getChannelName(), attempts);
+                checkpoint.attempts.remove(messageId);
+                checkpoint.givenUp++;
+            } else {
+                checkpoint.redeliver.add(messageId);
+                log.info("Message {} from @{} will be redelivered (attempt {} failed)", messageId, message.getChannelName(), attempts);
+            }
+            commit(message.getChannelName(), checkpoint);
+        }
+    }
+    
+    private ChannelCheckpoint checkpoint(String channelName) {
+        return checkpoints.computeIfAbsent(channelName, c -> new ChannelCheckpoint(getCommittedMessageId(c)));
+    }
+    
+    /**
+     * Move the committed cursor to the highest position with nothing outstanding below it.
+     * Caller holds the checkpoint's lock.
+     */
+    private void commit(String channelName, ChannelCheckpoint checkpoint) {
+        long target = checkpoint.dispatched;
+        if (!checkpoint.inFlight.isEmpty()) {
+            target = Math.min(target, checkpoint.inFlight.first() - 1);
+        }
+        if (!checkpoint.redeliver.isEmpty()) {
+            target = Math.min(target, checkpoint.redeliver.first() - 1);
+        }
+        if (target <= 0 || target <= getCommittedMessageId(channelName)) {
+            return;
+        }
+        lastMessageIds.merge(channelName, target, Math::max);
+        persist(channelName);
+        log.debug("Committed cursor for @{} is now {}", channelName, target);
+    }
+    
+    /**
+     * Check if a message is new for the channel. Uses the message id cursor when both the
+     * cursor and the message id are known, and falls back to timestamps otherwise. Messages
+     * released for redelivery count as new again.
+     */
+    public boolean isMessageNew(String channelName, long messageId, LocalDateTime messageTimestamp) {
+        if (hasMessageCursor(channelName) && messageId > 0) {
+            ChannelCheckpoint checkpoint = checkpoint(channelName);
+            synchronized (checkpoint) {
+                boolean isNew = messageId > checkpoint.dispatched || checkpoint.redeliver.contains(messageId);
+                log.debug("Message {} from @{} is {} (dispatched up to {})", messageId, channelName, isNew ? "NEW" : "OLD", checkpoint.dispatched);
+                return isNew;
+            }
+        }
+        return isMessageNew(channelName, messageTimestamp);
+    }
+    
     /**
      * Check if a message timestamp is newer than the last fetch time for the channel
      */
@@ -83,11 +336,66 @@ public class ChannelTimestampService {
         return status;
     }
     
+    /**
+     * Committed and dispatched position of every channel, plus messages still outstanding
+     */
+    public Map<String, Object> getChannelCursors() {
+        Map<String, Object> cursors = new TreeMap<>();
+        lastMessageIds.forEach((channel, id) -> {
+            Map<String, Object> cursor = new LinkedHashMap<>();
+            cursor.put("committed", id);
+            cursors.put("@" + channel, cursor);
+        });
+        checkpoints.forEach((channel, checkpoint) -> {
+            synchronized (checkpoint) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> cursor = (Map<String, Object>) cursors.computeIfAbsent("@" + channel, c -> new LinkedHashMap<>());
+                cursor.putIfAbsent("committed", getCommittedMessageId(channel));
+                cursor.put("dispatched", checkpoint.dispatched);
+                cursor.put("in_flight", checkpoint.inFlight.size());
+                cursor.put("awaiting_redelivery", checkpoint.redeliver.size());
+                cursor.put("given_up", checkpoint.givenUp);
+            }
+        });
+        return cursors;
+    }
+    
+    /**
+     * State of the on-disk cursor store
+     */
+    public Map<String, Object> getCursorStoreStatus() {
+        if (cursorStore == null) {
+            return Map.of("persistent", false);
+        }
+        Map<String, Object> status = new HashMap<>(cursorStore.getStats());
+        status.put("persistent", true);
+        return status;
+    }
+    
     /**
      * Reset all channel timestamps (useful for testing)
      */
     public void resetAllChannels() {
         lastFetchTimes.clear();
+        lastMessageIds.clear();
+        checkpoints.clear();
+        if (cursorStore != null) {
+            synchronized (persistLock) {
+                cursorStore.clear();
+            }
+        }
         log.info("Reset all channel timestamps");
     }
+
+    private static final class ChannelCheckpoint {
+        private long dispatched;
+        private final TreeSet<Long> inFlight = new TreeSet<>();
+        private final TreeSet<Long> redeliver = new TreeSet<>();
+        private final Map<Long, Integer> attempts = new HashMap<>();
+        private long givenUp;
+
+        private ChannelCheckpoint(long committed) {
+            this.dispatched = committed;
+        }
+    }
 }
@@ -4,23 +4,48 @@ import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
 import com.telegram_notifier.config.AppProperties;
 import com.telegram_notifier.model.JobDetails;
+import com.telegram_notifier.util.DurableKeyValueLog;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.io.IOException;
 
+/**
+ * Stores resume PDFs in Cloudinary, one asset per job ({@code resumes/<resume id>}), so each
+ * asset carries its own job's context and tags and deleting one job's resume leaves the others
+ * alone. Identical documents are only compiled once (see {@link PdfCache}). The URL of every
+ * upload is remembered in {@code cloudinary-uploads.log} under {@code app.state.dir}, so a retried
+ * upload for the same job returns its URL without contacting Cloudinary, and an upload whose
+ * response was lost keeps the asset already stored under that id.
+ */
 @Service
 public class CloudinaryService {
 
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(CloudinaryService.class);
+
+    private static final String UPLOADS_FILE = "cloudinary-uploads.log";
+    private static final int MAX_KNOWN_UPLOADS = 10_000;
+    private static final String HEALTH_PROBE = "cloudinary";
     
     private final AppProperties properties;
+    private final HealthProbeService healthProbes;
     private Cloudinary cloudinary;
+    private DurableKeyValueLog uploads;
+
+    private final AtomicLong uploadCount = new AtomicLong();
+    private final AtomicLong duplicateUploads = new AtomicLong();
     
-    public CloudinaryService(AppProperties properties) {
+    public CloudinaryService(AppProperties properties, HealthProbeService healthProbes) {
         this.properties = properties;
+        this.healthProbes = healthProbes;
     }
     
     @PostConstruct
@@ -33,9 +58,16 @@ public class CloudinaryService {
             
             this.cloudinary = new Cloudinary(config);
             log.info("✅ Cloudinary service initialized successfully");
-            
-            // Test connection
-            testConnection();
+
+            Path file = Paths.get(properties.getState().getDir(), UPLOADS_FILE);
+            try {
+                uploads = new DurableKeyValueLog(file, false, properties.getState().getCompactionThreshold());
+            } catch (IOException e) {
+                log.warn("Could not open {} - every resume PDF will be uploaded", file, e);
+            }
+
+            // Connectivity is checked by a background probe, not on the startup path
+            healthProbes.register(HEALTH_PROBE, this::pingAsync);
             
         } catch (Exception e) {
             log.error("❌ Failed to initialize Cloudinary service", e);
@@ -43,14 +75,26 @@ public class CloudinaryService {
         }
     }
     
+    @PreDestroy
+    public void close() {
+        if (uploads == null) return;
+        try {
+            uploads.close();
+        } catch (IOException e) {
+            log.warn("Failed to close Cloudinary upload log", e);
+        }
+    }
+    
     /**
-     * Upload PDF resume to Cloudinary and return public URL
+     * Upload PDF resume to Cloudinary and return public URL; a resume id uploaded before returns
+     * the existing URL without a new upload
      * @param pdfBytes PDF file as byte array
-     * @param jobDetails Job details for metadata and filename
+     * @param resumeId Stable id of the resume, e.g. the job id; part of the public id
+     * @param jobDetails Job details for metadata
      * @return Public Cloudinary URL for the uploaded PDF
      * @throws RuntimeException if upload fails
      */
-    public String uploadResumePdf(byte[] pdfBytes, JobDetails jobDetails) {
+    public String uploadResumePdf(byte[] pdfBytes, String resumeId, JobDetails jobDetails) {
         if (pdfBytes == null || pdfBytes.length == 0) {
             throw new IllegalArgumentException("PDF bytes cannot be null or empty");
         }
@@ -59,17 +103,25 @@ public class CloudinaryService {
             throw new IllegalArgumentException("Job details cannot be null");
         }
         
+        // Per-job name: the same resume id always maps to the same public id
+        String fileName = generateFileName(resumeId);
+        String knownUrl = uploads != null ? uploads.get(fileName) : null;
+        if (knownUrl != null) {
+            duplicateUploads.incrementAndGet();
+            log.info("♻️ Resume {} already uploaded - reusing {}", fileName, knownUrl);
+            return knownUrl;
+        }
+        
         log.info("📤 Uploading resume PDF to Cloudinary for {} at {}", jobDetails.getRole(), jobDetails.getCompany());
         
         try {
-            // Generate unique filename based on job details
-            String fileName = generateFileName(jobDetails);
-            
             // Prepare upload options
             Map<String, Object> uploadOptions = ObjectUtils.asMap(
                 "public_id", fileName,
                 "resource_type", "raw", // Important: use 'raw' for PDF files
                 "format", "pdf",
+                "overwrite", false, // Already stored under this id: keep it and return its URL
+                "unique_filename", false,
                 "context", ObjectUtils.asMap(
                     "company", jobDetails.getCompany(),
                     "role", jobDetails.getRole(),
@@ -92,6 +144,8 @@ public class CloudinaryService {
             log.info("✅ Resume PDF uploaded successfully to Cloudinary");
             log.info("🔗 Resume URL: {}", secureUrl);
             log.info("📊 Upload details - Size: {} bytes, Public ID: {}", pdfBytes.length, fileName);
+            uploadCount.incrementAndGet();
+            rememberUpload(fileName, secureUrl);
             
             return secureUrl;
             
@@ -105,16 +159,33 @@ public class CloudinaryService {
     }
     
     /**
-     * Generate a unique filename for the resume PDF
-     * @param jobDetails Job details to use for filename
-     * @return Unique filename string
+     * Non-blocking {@link #uploadResumePdf}. The Cloudinary SDK is blocking, so the upload runs
+     * on the bounded elastic scheduler instead of the caller's thread.
      */
-    private String generateFileName(JobDetails jobDetails) {
-        String company = cleanString(jobDetails.getCompany());
-        String role = cleanString(jobDetails.getRole());
-        long timestamp = System.currentTimeMillis();
-        
-        return String.format("resumes/%s_%s_%d", company, role, timestamp);
+    public Mono<String> uploadResumePdfAsync(byte[] pdfBytes, String resumeId, JobDetails jobDetails) {
+        return Mono.fromCallable(() -> uploadResumePdf(pdfBytes, resumeId, jobDetails))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+    
+    /**
+     * Generate the filename for a resume PDF from its resume id
+     * @param resumeId Stable id of the resume
+     * @return Public id of the PDF
+     */
+    private String generateFileName(String resumeId) {
+        return "resumes/" + cleanString(resumeId);
+    }
+
+    private void rememberUpload(String publicId, String secureUrl) {
+        if (uploads == null) return;
+        try {
+            uploads.put(publicId, secureUrl);
+            while (uploads.size() > MAX_KNOWN_UPLOADS) {
+                uploads.remove(uploads.oldestKey());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to record Cloudinary upload", e);
+        }
     }
     
     /**
@@ -146,6 +217,9 @@ public class CloudinaryService {
             boolean success = "ok".equals(resultStatus);
             
             if (success) {
+                if (uploads != null) {
+                    uploads.remove(publicId);
+                }
                 log.info("✅ Resume deleted from Cloudinary: {}", publicId);
             } else {
                 log.warn("⚠️ Failed to delete resume from Cloudinary: {} (status: {})", publicId, resultStatus);
@@ -182,6 +256,28 @@ public class CloudinaryService {
         }
     }
     
+    /**
+     * Non-blocking Cloudinary ping for the health probe; errors if the API is unreachable or
+     * rejects the credentials
+     */
+    private Mono<String> pingAsync() {
+        return Mono.fromCallable(() -> {
+                    Map<String, Object> result = cloudinary.api().ping(ObjectUtils.emptyMap());
+                    if (result == null || !"ok".equals(result.get("status"))) {
+                        throw new IllegalStateException("unexpected ping result: " + result);
+                    }
+                    return "ping ok";
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+    
+    /**
+     * Cached connectivity from the background health probe (never calls Cloudinary)
+     */
+    public Map<String, Object> getConnectionStatus() {
+        return healthProbes.describe(HEALTH_PROBE);
+    }
+    
     /**
      * Get service status for health checks
      * @return Status information map
@@ -192,7 +288,10 @@ public class CloudinaryService {
         status.put("cloud_name", properties.getCloudinary().getCloudName());
         status.put("api_key_configured", !properties.getCloudinary().getApiKey().isEmpty());
         status.put("api_secret_configured", !properties.getCloudinary().getApiSecret().isEmpty());
-        status.put("connection_test", testConnection());
+        status.put("connection", getConnectionStatus());
+        status.put("uploads", uploadCount.get());
+        status.put("duplicate_uploads_skipped", duplicateUploads.get());
+        status.put("known_uploads", uploads != null ? uploads.size() : 0);
         
         return status;
     }
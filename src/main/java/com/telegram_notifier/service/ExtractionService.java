@@ -1,14 +1,16 @@
 package com.telegram_notifier.service;
 
 import com.telegram_notifier.config.AppProperties;
+import com.telegram_notifier.model.JobClassification;
 import com.telegram_notifier.model.JobDetails;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -18,104 +20,173 @@ public class ExtractionService {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ExtractionService.class);
 
     private final AppProperties props;
+    private final GeminiClient geminiClient;
+    private final AiResultCache resultCache;
 
-    public ExtractionService(AppProperties props) {
+    public ExtractionService(AppProperties props, GeminiClient geminiClient, AiResultCache resultCache) {
         this.props = props;
+        this.geminiClient = geminiClient;
+        this.resultCache = resultCache;
     }
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    private WebClient client() {
-        return WebClient.builder()
-                .baseUrl("https://generativelanguage.googleapis.com")
-                .build();
+    private static final Map<String, String> JOB_FIELDS = jobFields();
+
+    private static final Map<String, Object> EXTRACTION_SCHEMA =
+            GeminiClient.objectSchema(JOB_FIELDS, List.of("company", "role"));
+
+    private static final Map<String, Object> CLASSIFY_AND_EXTRACT_SCHEMA = classifyAndExtractSchema();
+
+    private static Map<String, String> jobFields() {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("company", "STRING");
+        fields.put("role", "STRING");
+        fields.put("location", "STRING");
+        fields.put("url", "STRING");
+        fields.put("salary", "STRING");
+        fields.put("snippet", "STRING");
+        return fields;
     }
 
+    private static Map<String, Object> classifyAndExtractSchema() {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("relevant", "BOOLEAN");
+        fields.putAll(JOB_FIELDS);
+        return GeminiClient.objectSchema(fields, List.of("relevant"));
+    }
+
+    private static final String FIELD_INSTRUCTIONS =
+            "Fields: company (company name), role (job role/title), location (job location), " +
+            "url (application URL or company URL), salary (salary information), " +
+            "snippet (a short snippet from the post, max 200 chars).\n" +
+            "If any field is missing, return empty string for that field.\n\n";
+
+    private static final String EXTRACTION_PROMPT = "Extract the job details from the job post.\n" + FIELD_INSTRUCTIONS;
+
     public JobDetails extract(String post, String sourceChannel) {
-        String model = props.getAi().getGemini().getModel();
-        String apiKey = props.getAi().getGemini().getApiKey();
-        
-        String prompt = "Extract the following fields from the job post, and return in JSON format:\n" +
-                "{\n" +
-                "  \"company\": \"company name\",\n" +
-                "  \"role\": \"job role/title\",\n" +
-                "  \"location\": \"job location\",\n" +
-                "  \"url\": \"application URL or company URL\",\n" +
-                "  \"salary\": \"salary information\",\n" +
-                "  \"rawSnippet\": \"a short snippet from the post (max 200 chars)\"\n" +
-                "}\n" +
-                "If any field is missing, return empty string for that field.\n" +
-                "Return ONLY valid JSON, no additional text.\n\n" +
-                "POST:\n" + post;
-
-        Map<String, Object> body = Map.of(
-            "contents", List.of(
-                Map.of("parts", List.of(
-                    Map.of("text", prompt)
-                ))
-            )
-        );
+        return extractAsync(post, sourceChannel).block();
+    }
 
-        try {
-            Map<?, ?> res = client()
-                    .post()
-                    .uri("/v1beta/models/" + model + ":generateContent?key=" + apiKey)
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .bodyValue(body)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .block();
-
-            String json = extractText(res);
-            if (json == null) {
-                log.warn("No response from Gemini extraction API");
-                return null;
+    /**
+     * Non-blocking {@link #extract}; completes empty if no details could be extracted
+     */
+    public Mono<JobDetails> extractAsync(String post, String sourceChannel) {
+        return Mono.defer(() -> {
+            Map<String, Object> cached = cachedJson(AiResultCache.Stage.EXTRACTION, EXTRACTION_PROMPT, post);
+            if (cached != null) {
+                return Mono.just(cached);
             }
+            return callForJson(EXTRACTION_PROMPT + "POST:\n" + post, EXTRACTION_SCHEMA)
+                    .doOnNext(m -> cache(AiResultCache.Stage.EXTRACTION, EXTRACTION_PROMPT, post, m))
+                    .switchIfEmpty(Mono.fromRunnable(() -> log.warn("No response from Gemini extraction API")));
+        })
+        .map(m -> toJobDetails(m, sourceChannel))
+        .onErrorResume(e -> {
+            log.error("Gemini extraction call failed, returning null", e);
+            return Mono.empty();
+        });
+    }
 
-            // Clean JSON response (remove markdown formatting if present)
-            json = json.trim();
-            if (json.startsWith("```json")) {
-                json = json.substring(7);
-            }
-            if (json.endsWith("```")) {
-                json = json.substring(0, json.length() - 3);
+    /**
+     * Decide relevance and extract job details in one Gemini call.
+     * @return the classification, or null if the call failed
+     */
+    public JobClassification classifyAndExtract(String post, String sourceChannel) {
+        return classifyAndExtractAsync(post, sourceChannel).block();
+    }
+
+    /**
+     * Non-blocking {@link #classifyAndExtract}; completes empty if the call failed
+     */
+    public Mono<JobClassification> classifyAndExtractAsync(String post, String sourceChannel) {
+        String promptTemplate = classifyAndExtractPrompt(props.getAi().getGemini().getRelevancePrompt());
+
+        return Mono.defer(() -> {
+            Map<String, Object> cached = cachedJson(AiResultCache.Stage.CLASSIFY_EXTRACT, promptTemplate, post);
+            if (cached != null) {
+                return Mono.just(cached);
             }
-            json = json.trim();
+            return callForJson(promptTemplate + "POST:\n" + post, CLASSIFY_AND_EXTRACT_SCHEMA)
+                    .filter(m -> m.get("relevant") instanceof Boolean)
+                    .doOnNext(m -> {
+                        log.debug("Gemini classify-and-extract response: {}", m);
+                        cache(AiResultCache.Stage.CLASSIFY_EXTRACT, promptTemplate, post, m);
+                    })
+                    .switchIfEmpty(Mono.fromRunnable(() -> log.warn("No usable response from Gemini classify-and-extract call")));
+        })
+        .map(m -> (Boolean) m.get("relevant")
+                ? JobClassification.relevant(toJobDetails(m, sourceChannel))
+                : JobClassification.notRelevant())
+        .onErrorResume(e -> {
+            log.error("Gemini classify-and-extract call failed", e);
+            return Mono.empty();
+        });
+    }
+
+    /**
+     * Prompt of the combined call, built around the relevance prompt
+     */
+    static String classifyAndExtractPrompt(String relevancePrompt) {
+        return relevancePrompt + "\n\n" +
+                "Instead of YES/NO, set \"relevant\" to true or false. " +
+                "If relevant, also extract the job details; otherwise leave them empty.\n" +
+                FIELD_INSTRUCTIONS;
+    }
 
+    private Map<String, Object> cachedJson(AiResultCache.Stage stage, String promptTemplate, String post) {
+        String cached = resultCache.get(stage, promptTemplate, post);
+        if (cached == null) {
+            return null;
+        }
+        try {
             @SuppressWarnings("unchecked")
-            Map<String, String> m = objectMapper.readValue(json, Map.class);
-
-            return JobDetails.builder()
-                    .company(s(m.get("company")))
-                    .role(s(m.get("role")))
-                    .location(s(m.get("location")))
-                    .url(s(m.get("url")))
-                    .salary(s(m.get("salary")))
-                    .rawSnippet(s(m.get("rawSnippet")))
-                    .sourceChannel(sourceChannel)
-                    .postedAt(java.time.OffsetDateTime.now())
-                    .build();
-        } catch (Exception e) {
-            log.error("Gemini extraction call failed, returning null", e);
+            Map<String, Object> m = objectMapper.readValue(cached, Map.class);
+            return m;
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unreadable cached {} result", stage, e);
             return null;
         }
     }
 
-    private String extractText(Map<?, ?> res) {
-        if (res == null) return null;
+    private void cache(AiResultCache.Stage stage, String promptTemplate, String post, Map<String, Object> m) {
         try {
-            var candidates = (List<?>) res.get("candidates");
-            if (candidates == null || candidates.isEmpty()) return null;
-            var content = (Map<?, ?>) ((Map<?, ?>) candidates.get(0)).get("content");
-            var parts = (List<?>) content.get("parts");
-            if (parts == null || parts.isEmpty()) return null;
-            var first = (Map<?, ?>) parts.get(0);
-            return (String) first.get("text");
-        } catch (Exception e) {
-            log.error("Failed to extract text from response", e);
-            return null;
+            resultCache.put(stage, promptTemplate, post, objectMapper.writeValueAsString(m));
+        } catch (JsonProcessingException e) {
+            log.warn("Could not cache {} result", stage, e);
         }
     }
 
+    /**
+     * Schema-constrained call; the response text is plain JSON, no markdown fences to strip.
+     * Completes empty if Gemini returned no text.
+     */
+    private Mono<Map<String, Object>> callForJson(String prompt, Map<String, Object> schema) {
+        return geminiClient.generateContent(GeminiClient.jsonRequest(prompt, schema))
+                .mapNotNull(geminiClient::extractText)
+                .<Map<String, Object>>handle((json, sink) -> {
+                    try {
+                        @SuppressWarnings("unchecked")
+                        Map<String, Object> m = objectMapper.readValue(json, Map.class);
+                        sink.next(m);
+                    } catch (JsonProcessingException e) {
+                        sink.error(e);
+                    }
+                });
+    }
+
+    private JobDetails toJobDetails(Map<String, Object> m, String sourceChannel) {
+        return JobDetails.builder()
+                .company(s(m.get("company")))
+                .role(s(m.get("role")))
+                .location(s(m.get("location")))
+                .url(s(m.get("url")))
+                .salary(s(m.get("salary")))
+                .rawSnippet(s(m.get("snippet")))
+                .sourceChannel(sourceChannel)
+                .postedAt(java.time.OffsetDateTime.now())
+                .build();
+    }
+
     private String s(Object o) {
         return o == null ? "" : String.valueOf(o).trim();
     }
@@ -0,0 +1,201 @@
+package com.telegram_notifier.service;
+
+import com.telegram_notifier.config.AppProperties;
+import com.telegram_notifier.config.WebClientFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Shared Gemini generateContent client used by the relevance, extraction and resume services.
+ * One long-lived WebClient on the shared connection pools instead of one per call, with every
+ * request paced by the shared {@link GeminiRateLimiter}.
+ */
+@Service
+public class GeminiClient {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(GeminiClient.class);
+
+    private static final String GEMINI_BASE_URL = "https://generativelanguage.googleapis.com";
+
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final int EXPECTED_OUTPUT_TOKENS = 256;
+    private static final Pattern RETRY_DELAY = Pattern.compile("\"retryDelay\"\\s*:\\s*\"(\\d+(?:\\.\\d+)?)s\"");
+
+    private final AppProperties props;
+    private final GeminiRateLimiter rateLimiter;
+    private final WebClient webClient;
+
+    public GeminiClient(AppProperties props, WebClientFactory webClientFactory, GeminiRateLimiter rateLimiter) {
+        this.props = props;
+        this.rateLimiter = rateLimiter;
+        this.webClient = webClientFactory
+                .builder("gemini", GEMINI_BASE_URL, Duration.ofSeconds(props.getHttp().getGeminiTimeoutSeconds()), 2 * 1024 * 1024)
+                .baseUrl(GEMINI_BASE_URL)
+                .build();
+    }
+
+    /**
+     * POST a generateContent request for the configured model. The call first waits for a slot
+     * from the shared {@link GeminiRateLimiter}; 429/503 responses feed back into the limiter and
+     * are retried (each retry waits for a new slot) up to {@code rate-limit.max-retries} times.
+     */
+    public Mono<Map<String, Object>> generateContent(Map<String, Object> body) {
+        int estimatedTokens = estimateTokens(body);
+
+        return Mono.defer(() -> rateLimiter.acquire(estimatedTokens).then(post(body)))
+                .doOnNext(res -> rateLimiter.onSuccess(estimatedTokens, usedTokens(res)))
+                .doOnError(GeminiClient::isThrottled, e -> rateLimiter.onThrottled(retryAfter((WebClientResponseException) e)))
+                .retryWhen(Retry.max(props.getAi().getGemini().getRateLimit().getMaxRetries())
+                        .filter(GeminiClient::isThrottled)
+                        .doBeforeRetry(signal -> log.info("Retrying throttled Gemini call (attempt {})", signal.totalRetries() + 2))
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mono<Map<String, Object>> post(Map<String, Object> body) {
+        String model = props.getAi().getGemini().getModel();
+        String apiKey = props.getAi().getGemini().getApiKey();
+
+        return webClient
+                .post()
+                .uri("/v1beta/models/" + model + ":generateContent?key=" + apiKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .retrieve()
+                .bodyToMono(Map.class)
+                .map(res -> (Map<String, Object>) res);
+    }
+
+    private static boolean isThrottled(Throwable e) {
+        if (!(e instanceof WebClientResponseException responseException)) return false;
+        int status = responseException.getStatusCode().value();
+        return status == 429 || status == 503;
+    }
+
+    /**
+     * Server-requested pause from the Retry-After header or the RetryInfo detail in the body
+     */
+    private static Duration retryAfter(WebClientResponseException e) {
+        String header = e.getHeaders().getFirst("Retry-After");
+        if (header != null) {
+            try {
+                return Duration.ofSeconds(Long.parseLong(header.trim()));
+            } catch (NumberFormatException ignored) {
+                // HTTP-date form; fall through to the body
+            }
+        }
+        Matcher matcher = RETRY_DELAY.matcher(e.getResponseBodyAsString());
+        if (matcher.find()) {
+            return Duration.ofMillis((long) (Double.parseDouble(matcher.group(1)) * 1000));
+        }
+        return null;
+    }
+
+    /**
+     * Prompt tokens estimated from the request text, plus a typical response
+     */
+    static int estimateTokens(Map<String, Object> body) {
+        int chars = 0;
+        Object contents = body.get("contents");
+        if (contents instanceof List<?> contentList) {
+            for (Object content : contentList) {
+                if (!(content instanceof Map<?, ?> contentMap)) continue;
+                if (!(contentMap.get("parts") instanceof List<?> parts)) continue;
+                for (Object part : parts) {
+                    if (part instanceof Map<?, ?> partMap && partMap.get("text") instanceof String text) {
+                        chars += text.length();
+                    }
+                }
+            }
+        }
+        return chars / CHARS_PER_TOKEN + EXPECTED_OUTPUT_TOKENS;
+    }
+
+    private static int usedTokens(Map<String, Object> res) {
+        if (res != null && res.get("usageMetadata") instanceof Map<?, ?> usage
+                && usage.get("totalTokenCount") instanceof Number total) {
+            return total.intValue();
+        }
+        return 0;
+    }
+
+    /**
+     * Tokens Gemini generated for a response ({@code usageMetadata.candidatesTokenCount}), or 0
+     */
+    public static int outputTokens(Map<?, ?> res) {
+        if (res != null && res.get("usageMetadata") instanceof Map<?, ?> usage
+                && usage.get("candidatesTokenCount") instanceof Number output) {
+            return output.intValue();
+        }
+        return 0;
+    }
+
+    /**
+     * Request body with a single text prompt
+     */
+    public static Map<String, Object> textRequest(String prompt) {
+        return Map.of(
+            "contents", List.of(
+                Map.of("parts", List.of(
+                    Map.of("text", prompt)
+                ))
+            )
+        );
+    }
+
+    /**
+     * Request body whose response is constrained to JSON matching {@code responseSchema}
+     * (an OpenAPI-style schema object, e.g. {@code {"type": "OBJECT", "properties": {...}}})
+     */
+    public static Map<String, Object> jsonRequest(String prompt, Map<String, Object> responseSchema) {
+        Map<String, Object> body = new LinkedHashMap<>(textRequest(prompt));
+        body.put("generationConfig", Map.of(
+            "responseMimeType", "application/json",
+            "responseSchema", responseSchema
+        ));
+        return body;
+    }
+
+    /**
+     * Schema for an object of string fields plus the given required fields
+     */
+    public static Map<String, Object> objectSchema(Map<String, String> propertyTypes, List<String> required) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        propertyTypes.forEach((name, type) -> properties.put(name, Map.of("type", type)));
+        return Map.of(
+            "type", "OBJECT",
+            "properties", properties,
+            "required", required
+        );
+    }
+
+    /**
+     * Text of the first part of the first candidate, or null
+     */
+    public String extractText(Map<?, ?> res) {
+        if (res == null) return null;
+        try {
+            var candidates = (List<?>) res.get("candidates");
+            if (candidates == null || candidates.isEmpty()) return null;
+            var content = (Map<?, ?>) ((Map<?, ?>) candidates.get(0)).get("content");
+            var parts = (List<?>) content.get("parts");
+            if (parts == null || parts.isEmpty()) return null;
+            var first = (Map<?, ?>) parts.get(0);
+            return (String) first.get("text");
+        } catch (Exception e) {
+            log.error("Failed to extract text from Gemini response", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.telegram_notifier.service;
+
+import com.telegram_notifier.config.AppProperties;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide request and token budget for Gemini, shared by every caller of {@link GeminiClient}.
+ * <p>
+ * Each call reserves a start time: calls are spaced to the current requests-per-minute rate and
+ * held back while the last minute's token usage would exceed the tokens-per-minute budget. The
+ * rate adapts AIMD-style: it starts at the configured ceiling, is halved on every 429/503 (and
+ * nothing starts before a returned {@code Retry-After}), and climbs back by one request per
+ * minute for each minute's worth of successful calls. Waiting is a non-blocking delay on the
+ * returned {@link Mono}, never a sleeping thread.
+ */
+@Service
+public class GeminiRateLimiter {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(GeminiRateLimiter.class);
+
+    private static final long WINDOW_NANOS = Duration.ofMinutes(1).toNanos();
+    private static final double DECREASE_FACTOR = 0.5;
+
+    private final AppProperties properties;
+
+    private double currentRpm;
+    private long nextSlotNanos;
+    private long blockedUntilNanos;
+    private final Deque<long[]> tokenWindow = new ArrayDeque<>(); // {startNanos, tokens}
+    private long tokensInWindow;
+
+    private long granted;
+    private long throttled;
+    private long totalWaitMillis;
+    private Instant lastThrottledAt;
+
+    public GeminiRateLimiter(AppProperties properties) {
+        this.properties = properties;
+        this.currentRpm = config().getRequestsPerMinute();
+        this.nextSlotNanos = System.nanoTime();
+        this.blockedUntilNanos = nextSlotNanos;
+    }
+
+    private AppProperties.AI.Gemini.RateLimit config() {
+        return properties.getAi().getGemini().getRateLimit();
+    }
+
+    /**
+     * Completes when a call estimated at {@code tokens} may start. The slot is reserved at
+     * subscription time, so concurrent callers queue up in order.
+     */
+    public Mono<Void> acquire(int tokens) {
+        return Mono.defer(() -> {
+            long waitNanos = reserve(tokens);
+            if (waitNanos <= 0) {
+                return Mono.empty();
+            }
+            return Mono.delay(Duration.ofNanos(waitNanos)).then();
+        });
+    }
+
+    private synchronized long reserve(int tokens) {
+        long now = System.nanoTime();
+        long start = Math.max(now, Math.max(nextSlotNanos, blockedUntilNanos));
+        start = Math.max(start, tokenBudgetAvailableAt(start, tokens));
+
+        nextSlotNanos = start + (long) (WINDOW_NANOS / currentRpm);
+        tokenWindow.addLast(new long[] { start, tokens });
+        tokensInWindow += tokens;
+        granted++;
+
+        long waitNanos = start - now;
+        totalWaitMillis += waitNanos / 1_000_000;
+        if (waitNanos > 1_000_000_000L) {
+            log.debug("⏳ Gemini call waits {} ms for its rate limit slot", waitNanos / 1_000_000);
+        }
+        return waitNanos;
+    }
+
+    /**
+     * Earliest time at which adding {@code tokens} keeps the trailing minute within budget
+     */
+    private long tokenBudgetAvailableAt(long start, int tokens) {
+        while (!tokenWindow.isEmpty() && tokenWindow.peekFirst()[0] <= start - WINDOW_NANOS) {
+            tokensInWindow -= tokenWindow.pollFirst()[1];
+        }
+        long budget = config().getTokensPerMinute();
+        long excess = tokensInWindow + tokens - budget;
+        if (excess <= 0) {
+            return start;
+        }
+        // Wait until enough of the oldest reservations have aged out of the window
+        long released = 0;
+        for (long[] entry : tokenWindow) {
+            released += entry[1];
+            if (released >= excess) {
+                return entry[0] + WINDOW_NANOS;
+            }
+        }
+        return start;
+    }
+
+    /**
+     * A call finished; correct the token estimate and additively raise the rate
+     */
+    public synchronized void onSuccess(int estimatedTokens, int actualTokens) {
+        if (actualTokens > 0 && actualTokens != estimatedTokens) {
+            long now = System.nanoTime();
+            tokenWindow.addLast(new long[] { now, actualTokens - estimatedTokens });
+            tokensInWindow += actualTokens - estimatedTokens;
+        }
+        double ceiling = config().getRequestsPerMinute();
+        if (currentRpm < ceiling) {
+            currentRpm = Math.min(ceiling, currentRpm + 1.0 / currentRpm);
+        }
+    }
+
+    /**
+     * Gemini answered 429/503: halve the rate and honour {@code Retry-After} if given
+     */
+    public synchronized void onThrottled(Duration retryAfter) {
+        throttled++;
+        lastThrottledAt = Instant.now();
+        double previous = currentRpm;
+        currentRpm = Math.max(config().getMinRequestsPerMinute(), currentRpm * DECREASE_FACTOR);
+
+        long now = System.nanoTime();
+        Duration pause = retryAfter != null ? retryAfter : Duration.ofNanos((long) (WINDOW_NANOS / currentRpm));
+        blockedUntilNanos = Math.max(blockedUntilNanos, now + pause.toNanos());
+        nextSlotNanos = Math.max(nextSlotNanos, blockedUntilNanos);
+
+        log.warn("🚦 Gemini throttled us - rate {} -> {} requests/min, pausing {} s",
+                Math.round(previous * 10) / 10.0, Math.round(currentRpm * 10) / 10.0, pause.toSeconds());
+    }
+
+    public synchronized Map<String, Object> getStatus() {
+        long now = System.nanoTime();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("current_requests_per_minute", Math.round(currentRpm * 10) / 10.0);
+        status.put("max_requests_per_minute", config().getRequestsPerMinute());
+        status.put("tokens_per_minute_budget", config().getTokensPerMinute());
+        status.put("tokens_in_last_minute", tokensInWindow);
+        status.put("granted", granted);
+        status.put("throttled", throttled);
+        status.put("total_wait_ms", totalWaitMillis);
+        status.put("blocked_for_ms", Math.max(0, (blockedUntilNanos - now) / 1_000_000));
+        status.put("last_throttled_at", lastThrottledAt != null ? lastThrottledAt.toString() : "Never");
+        return status;
+    }
+}
@@ -0,0 +1,130 @@
+package com.telegram_notifier.service;
+
+import com.telegram_notifier.config.AppProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Background health checks of external dependencies.
+ * <p>
+ * Services {@link #register} a non-blocking probe (Cloudinary ping, Notion query, ...). Every
+ * {@code app.health.interval-seconds} each probe runs once in the background, bounded by
+ * {@code timeout-seconds}; a probe still running from the last round is not started again. The
+ * latest result is kept in memory, and status calls only read it: {@link #describe} reports the
+ * result with its age, and a result older than {@code ttl-seconds} is reported as stale.
+ */
+@Service
+public class HealthProbeService {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(HealthProbeService.class);
+
+    /**
+     * Outcome of one probe run
+     */
+    public record ProbeResult(boolean healthy, String detail, Instant checkedAt, long latencyMs) {}
+
+    private final AppProperties properties;
+    private final Map<String, Supplier<Mono<String>>> probes = new ConcurrentHashMap<>();
+    private final Map<String, ProbeResult> results = new ConcurrentHashMap<>();
+    private final Map<String, AtomicBoolean> running = new ConcurrentHashMap<>();
+
+    public HealthProbeService(AppProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Register a probe. It should complete with a short detail when the dependency is healthy and
+     * error (or complete empty) when it is not; it must not block the subscribing thread.
+     */
+    public void register(String name, Supplier<Mono<String>> probe) {
+        probes.put(name, probe);
+        running.put(name, new AtomicBoolean());
+    }
+
+    @Scheduled(initialDelay = 5, fixedDelayString = "${app.health.interval-seconds:300}", timeUnit = TimeUnit.SECONDS)
+    public void runProbes() {
+        if (!properties.getHealth().isEnabled()) return;
+        probes.keySet().forEach(this::probe);
+    }
+
+    /**
+     * Start one probe in the background (no-op if it is already running)
+     */
+    public void probe(String name) {
+        Supplier<Mono<String>> probe = probes.get(name);
+        AtomicBoolean inFlight = running.get(name);
+        if (probe == null || !inFlight.compareAndSet(false, true)) return;
+
+        long start = System.nanoTime();
+        Mono.defer(probe)
+                .timeout(Duration.ofSeconds(properties.getHealth().getTimeoutSeconds()))
+                .map(detail -> new ProbeResult(true, detail, Instant.now(), elapsedMs(start)))
+                .switchIfEmpty(Mono.fromSupplier(() -> new ProbeResult(false, "no response", Instant.now(), elapsedMs(start))))
+                .onErrorResume(e -> Mono.just(new ProbeResult(false, String.valueOf(e.getMessage()), Instant.now(), elapsedMs(start))))
+                .doFinally(signal -> inFlight.set(false))
+                .subscribe(result -> record(name, result));
+    }
+
+    private void record(String name, ProbeResult result) {
+        ProbeResult previous = results.put(name, result);
+        if (previous == null || previous.healthy() != result.healthy()) {
+            if (result.healthy()) {
+                log.info("✅ Health probe {} is up ({} ms)", name, result.latencyMs());
+            } else {
+                log.warn("⚠️ Health probe {} is down: {}", name, result.detail());
+            }
+        }
+    }
+
+    /**
+     * Latest result if it is younger than the TTL, otherwise null
+     */
+    public ProbeResult get(String name) {
+        ProbeResult result = results.get(name);
+        return result != null && !isStale(result) ? result : null;
+    }
+
+    /**
+     * Cached status of one probe: up, down, stale or unknown (never run), with its age
+     */
+    public Map<String, Object> describe(String name) {
+        ProbeResult result = results.get(name);
+        Map<String, Object> status = new LinkedHashMap<>();
+        if (result == null) {
+            status.put("status", "unknown");
+            status.put("running", running.containsKey(name) && running.get(name).get());
+            return status;
+        }
+        status.put("status", isStale(result) ? "stale" : result.healthy() ? "up" : "down");
+        status.put("detail", result.detail());
+        status.put("checked_at", result.checkedAt().toString());
+        status.put("age_seconds", Duration.between(result.checkedAt(), Instant.now()).toSeconds());
+        status.put("latency_ms", result.latencyMs());
+        return status;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new TreeMap<>();
+        probes.keySet().forEach(name -> status.put(name, describe(name)));
+        return status;
+    }
+
+    private boolean isStale(ProbeResult result) {
+        return result.checkedAt().isBefore(Instant.now().minusSeconds(properties.getHealth().getTtlSeconds()));
+    }
+
+    private static long elapsedMs(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -1,13 +1,16 @@
 package com.telegram_notifier.service;
 
 import com.telegram_notifier.config.AppProperties;
+import com.telegram_notifier.config.WebClientFactory;
 import com.telegram_notifier.model.JobDetails;
 import com.telegram_notifier.model.TelegramMessage;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -21,9 +24,16 @@ public class JobNotificationService {
 
     private final TelegramService telegramService;
     private final AiService aiService;
-    private final ExtractionService extractionService;
     private final StorageService storageService;
-    private final ResumeGenerationService resumeGenerationService;
+    private final JobPipeline jobPipeline;
+    private final ResumeQueueService resumeQueue;
+    private final ChannelPollScheduler pollScheduler;
+    private final ChannelTimestampService timestampService;
+    private final GeminiRateLimiter geminiRateLimiter;
+    private final AiResultCache aiResultCache;
+    private final NearDuplicateDetector duplicateDetector;
+    private final WebClientFactory webClientFactory;
+    private final HealthProbeService healthProbes;
     private final AppProperties properties;
 
     // Track processing statistics
@@ -33,112 +43,57 @@ public class JobNotificationService {
 
     public JobNotificationService(TelegramService telegramService, 
                                  AiService aiService, 
-                                 ExtractionService extractionService, 
                                  StorageService storageService,
-                                 ResumeGenerationService resumeGenerationService,
+                                 JobPipeline jobPipeline,
+                                 ResumeQueueService resumeQueue,
+                                 ChannelPollScheduler pollScheduler,
+                                 ChannelTimestampService timestampService,
+                                 GeminiRateLimiter geminiRateLimiter,
+                                 AiResultCache aiResultCache,
+                                 NearDuplicateDetector duplicateDetector,
+                                 WebClientFactory webClientFactory,
+                                 HealthProbeService healthProbes,
                                  AppProperties properties) {
         this.telegramService = telegramService;
         this.aiService = aiService;
-        this.extractionService = extractionService;
         this.storageService = storageService;
-        this.resumeGenerationService = resumeGenerationService;
+        this.jobPipeline = jobPipeline;
+        this.resumeQueue = resumeQueue;
+        this.pollScheduler = pollScheduler;
+        this.timestampService = timestampService;
+        this.geminiRateLimiter = geminiRateLimiter;
+        this.aiResultCache = aiResultCache;
+        this.duplicateDetector = duplicateDetector;
+        this.webClientFactory = webClientFactory;
+        this.healthProbes = healthProbes;
         this.properties = properties;
     }
 
-    @Scheduled(fixedRateString = "${app.telegram.poll-interval-minutes:30}", timeUnit = TimeUnit.MINUTES)
+    /**
+     * Scheduler tick: polls only the channels whose adaptive interval has elapsed
+     */
+    @Scheduled(fixedDelayString = "${app.telegram.scheduler-tick-seconds:60}", timeUnit = TimeUnit.SECONDS)
     public void processMessages() {
-        log.info("🔄 Starting scheduled message processing at {}...", 
-                LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss")));
+        List<String> dueChannels = pollScheduler.dueChannels(telegramService.getChannelNames());
+        if (dueChannels.isEmpty()) {
+            log.debug("No channels due for polling");
+            return;
+        }
+        
+        log.info("🔄 Starting scheduled message processing at {} for {} due channels...", 
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss")), dueChannels.size());
         
         try {
-            // Fetch only NEW messages using timestamp filtering
-            List<TelegramMessage> newMessages = telegramService.fetchRecentMessages();
-            log.info("📥 Fetched {} NEW messages from Telegram channels", newMessages.size());
-
-            int processedCount = 0;
-            int relevantCount = 0;
-            int savedCount = 0;
-
-            for (TelegramMessage telegramMessage : newMessages) {
-                try {
-                    processedCount++;
-                    
-                    log.debug("🔍 Processing message from @{} at {}: {}", 
-                            telegramMessage.getChannelName(),
-                            telegramMessage.getTimestamp().format(DateTimeFormatter.ofPattern("HH:mm")),
-                            telegramMessage.getContent().substring(0, Math.min(50, telegramMessage.getContent().length())) + "...");
-                    
-                    // Add delay before AI call to respect rate limits
-                    if (processedCount > 1) {
-                        int delaySeconds = properties.getAi().getGemini().getRateLimitDelaySeconds();
-                        log.debug("⏳ Waiting {} seconds before next Gemini AI call to avoid rate limits...", delaySeconds);
-                        Thread.sleep(delaySeconds * 1000);
-                    }
-                    
-                    // Check if message is job-relevant using AI
-                    boolean isRelevant = aiService.isRelevant(telegramMessage.getContent());
-                    
-                    if (isRelevant) {
-                        relevantCount++;
-                        log.info("✅ Found relevant job post from @{}, extracting details...", 
-                                telegramMessage.getChannelName());
-                        
-                        // Another delay before second AI call (detail extraction)
-                        int delaySeconds = properties.getAi().getGemini().getRateLimitDelaySeconds();
-                        log.debug("⏳ Waiting {} seconds before detail extraction AI call...", delaySeconds);
-                        Thread.sleep(delaySeconds * 1000);
-                        
-                        // Extract job details using AI
-                        JobDetails jobDetails = extractionService.extract(telegramMessage.getContent(), 
-                                "telegram_channel_" + telegramMessage.getChannelName());
-                        
-                        if (jobDetails != null) {
-                            // Add timestamp information to job details
-                            jobDetails.setPostedDate(telegramMessage.getTimestamp().toLocalDate().toString());
-                            
-                            // Generate resume for this job application
-                            String resumeLink = null;
-                            try {
-                                log.info("📝 Generating custom resume for {} at {}...", jobDetails.getRole(), jobDetails.getCompany());
-                                resumeLink = resumeGenerationService.generateCustomizedResume(jobDetails);
-                                if (resumeLink != null) {
-                                    log.info("✅ Resume generated successfully: {}", resumeLink);
-                                } else {
-                                    log.warn("⚠️ Resume generation failed or disabled for this job");
-                                }
-                            } catch (Exception e) {
-                                log.error("❌ Resume generation failed for {} at {}: {}", 
-                                        jobDetails.getRole(), jobDetails.getCompany(), e.getMessage());
-                                // Continue without resume - don't fail the entire job saving process
-                            }
-                            
-                            storageService.saveJob(jobDetails, resumeLink);
-                            savedCount++;
-                            
-                            log.info("💾 Saved job: {} - {} (from @{})", 
-                                    jobDetails.getCompany(), 
-                                    jobDetails.getRole(),
-                                    telegramMessage.getChannelName());
-                            if (resumeLink != null) {
-                                log.info("🔗 Resume link saved: {}", resumeLink);
-                            }
-                        } else {
-                            log.warn("⚠️ Failed to extract job details from relevant message from @{}", 
-                                    telegramMessage.getChannelName());
-                        }
-                    } else {
-                        log.debug("❌ Message from @{} not job-relevant", telegramMessage.getChannelName());
-                    }
+            // Fetch only NEW messages from channels that are due
+            List<TelegramMessage> fetchedMessages = telegramService.fetchRecentMessages(dueChannels);
+            log.info("📥 Fetched {} NEW messages from Telegram channels", fetchedMessages.size());
 
-                } catch (InterruptedException e) {
-                    log.warn("⚠️ Processing interrupted during delay");
-                    Thread.currentThread().interrupt();
-                    break;
-                } catch (Exception e) {
-                    log.error("🚨 Error processing individual message from @{}: {}", 
-                            telegramMessage.getChannelName(), e.getMessage());
-                }
-            }
+            // Relevance, extraction and storage run as concurrent stages, resumes follow from the
+            // resume queue; reposts of recent posts never reach Gemini. Every message is acked or nacked
+            JobPipeline.Result result = runWithoutReposts(fetchedMessages, "telegram_channel_");
+            int processedCount = result.processed();
+            int relevantCount = result.relevant();
+            int savedCount = result.saved();
 
             // Update statistics
             lastProcessingTime = LocalDateTime.now();
@@ -165,65 +120,11 @@ public class JobNotificationService {
         log.info("🚀 Manual message processing triggered");
         
         try {
-            List<TelegramMessage> newMessages = telegramService.fetchRecentMessages();
-            
-            int processedCount = 0;
-            int relevantCount = 0;
-            int savedCount = 0;
-
-            for (TelegramMessage telegramMessage : newMessages) {
-                try {
-                    processedCount++;
-                    
-                    // Add delay before AI call to respect rate limits (except for first message)
-                    if (processedCount > 1) {
-                        int delaySeconds = properties.getAi().getGemini().getRateLimitDelaySeconds();
-                        log.debug("⏳ Manual processing - waiting {} seconds before next Gemini AI call...", delaySeconds);
-                        Thread.sleep(delaySeconds * 1000);
-                    }
-                    
-                    boolean isRelevant = aiService.isRelevant(telegramMessage.getContent());
-                    
-                    if (isRelevant) {
-                        relevantCount++;
-                        
-                        // Delay before detail extraction
-                        int delaySeconds = properties.getAi().getGemini().getRateLimitDelaySeconds();
-                        log.debug("⏳ Manual processing - waiting {} seconds before detail extraction...", delaySeconds);
-                        Thread.sleep(delaySeconds * 1000);
-                        
-                        JobDetails jobDetails = extractionService.extract(telegramMessage.getContent(), 
-                                "manual_telegram_" + telegramMessage.getChannelName());
-                        
-                        if (jobDetails != null) {
-                            jobDetails.setPostedDate(telegramMessage.getTimestamp().toLocalDate().toString());
-                            
-                            // Generate resume for this job application
-                            String resumeLink = null;
-                            try {
-                                log.info("📝 Generating custom resume for {} at {}...", jobDetails.getRole(), jobDetails.getCompany());
-                                resumeLink = resumeGenerationService.generateCustomizedResume(jobDetails);
-                                if (resumeLink != null) {
-                                    log.info("✅ Resume generated: {}", resumeLink);
-                                }
-                            } catch (Exception e) {
-                                log.error("❌ Resume generation failed: {}", e.getMessage());
-                            }
-                            
-                            storageService.saveJob(jobDetails, resumeLink);
-                            savedCount++;
-                        }
-                    }
-                    
-                } catch (InterruptedException e) {
-                    log.warn("⚠️ Manual processing interrupted during delay");
-                    Thread.currentThread().interrupt();
-                    break;
-                } catch (Exception e) {
-                    log.error("🚨 Error in manual processing for message from @{}", 
-                            telegramMessage.getChannelName(), e);
-                }
-            }
+            List<TelegramMessage> fetchedMessages = telegramService.fetchRecentMessages();
+            JobPipeline.Result pipelineResult = runWithoutReposts(fetchedMessages, "manual_telegram_");
+            int processedCount = pipelineResult.processed();
+            int relevantCount = pipelineResult.relevant();
+            int savedCount = pipelineResult.saved();
 
             Map<String, Object> result = new HashMap<>();
             result.put("status", "success");
@@ -231,7 +132,9 @@ public class JobNotificationService {
             result.put("processed_count", processedCount);
             result.put("relevant_count", relevantCount);
             result.put("saved_count", savedCount);
-            result.put("new_messages_found", newMessages.size());
+            result.put("failed_count", pipelineResult.failed());
+            result.put("new_messages_found", fetchedMessages.size());
+            result.put("duplicate_count", fetchedMessages.size() - pipelineResult.items().size());
             result.put("processing_time", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
             
             log.info("🎯 Manual processing completed: {} processed, {} relevant, {} saved", 
@@ -256,43 +159,25 @@ public class JobNotificationService {
         log.info("🔍 Processing single message manually");
         
         try {
-            boolean isRelevant = aiService.isRelevant(messageContent);
+            JobPipeline.Item item = jobPipeline.runSingle(messageContent, "manual_input");
+            if (item.isFailed()) {
+                throw new IllegalStateException(item.getFailedStage() + " stage failed: " + item.getFailure().getMessage(), item.getFailure());
+            }
+            boolean isRelevant = item.isRelevant();
             
             Map<String, Object> result = new HashMap<>();
             result.put("message_content", messageContent.substring(0, Math.min(100, messageContent.length())) + "...");
             result.put("is_relevant", isRelevant);
             
             if (isRelevant) {
-                // Add delay before second AI call (detail extraction)
-                int delaySeconds = properties.getAi().getGemini().getRateLimitDelaySeconds();
-                log.debug("⏳ Single message processing - waiting {} seconds before detail extraction...", delaySeconds);
-                Thread.sleep(delaySeconds * 1000);
-                
-                JobDetails jobDetails = extractionService.extract(messageContent, "manual_input");
+                JobDetails jobDetails = item.getJobDetails();
                 
-                if (jobDetails != null) {
-                    jobDetails.setPostedDate(LocalDateTime.now().toLocalDate().toString());
-                    
-                    // Generate resume for this job application
-                    String resumeLink = null;
-                    try {
-                        log.info("📝 Generating custom resume for {} at {}...", jobDetails.getRole(), jobDetails.getCompany());
-                        resumeLink = resumeGenerationService.generateCustomizedResume(jobDetails);
-                        if (resumeLink != null) {
-                            log.info("✅ Resume generated: {}", resumeLink);
-                        }
-                    } catch (Exception e) {
-                        log.error("❌ Resume generation failed: {}", e.getMessage());
-                    }
-                    
-                    storageService.saveJob(jobDetails, resumeLink);
-                    
+                if (jobDetails != null && item.isSaved()) {
                     result.put("status", "success");
                     result.put("message", "Job details extracted and saved");
                     result.put("job_details", jobDetails);
-                    if (resumeLink != null) {
-                        result.put("resume_link", resumeLink);
-                    }
+                    result.put("job_id", item.getJobId());
+                    result.put("resume_status", item.isResumeQueued() ? "queued" : "disabled");
                     
                     log.info("💾 Manual message processed and saved: {} - {}", 
                             jobDetails.getCompany(), jobDetails.getRole());
@@ -311,15 +196,6 @@ public class JobNotificationService {
             
             return result;
 
-        } catch (InterruptedException e) {
-            log.warn("⚠️ Single message processing interrupted during delay");
-            Thread.currentThread().interrupt();
-            
-            Map<String, Object> errorResult = new HashMap<>();
-            errorResult.put("status", "error");
-            errorResult.put("message", "Processing interrupted");
-            return errorResult;
-
         } catch (Exception e) {
             log.error("🚨 Error processing single message", e);
             
@@ -330,6 +206,63 @@ public class JobNotificationService {
         }
     }
 
+    /**
+     * Run the fetched messages through the pipeline, minus near-duplicates of recent posts. A
+     * repost is acked without processing only once its original has been acked; one whose
+     * original is still in this run is decided after the run, and nacked for redelivery if the
+     * original failed (which also drops the original from the duplicate window).
+     */
+    private JobPipeline.Result runWithoutReposts(List<TelegramMessage> messages, String sourcePrefix) {
+        List<TelegramMessage> unique = new ArrayList<>(messages.size());
+        Map<TelegramMessage, String> held = new LinkedHashMap<>();
+        for (TelegramMessage message : messages) {
+            String postId = postId(message);
+            NearDuplicateDetector.Match match = duplicateDetector.check(postId, message.getContent());
+            if (match == null) {
+                unique.add(message);
+            } else if (match.originalAcked()) {
+                log.info("♻️ Skipping repost {} from @{} - original is {}", postId, message.getChannelName(), match.originalPostId());
+                timestampService.ack(message);
+            } else {
+                held.put(message, match.originalPostId());
+            }
+        }
+
+        JobPipeline.Result result = null;
+        try {
+            result = jobPipeline.run(unique, sourcePrefix);
+        } finally {
+            if (result != null) {
+                for (JobPipeline.Item item : result.items()) {
+                    if (item.isFailed()) {
+                        duplicateDetector.forget(postId(item.getMessage()));
+                    } else {
+                        duplicateDetector.acked(postId(item.getMessage()));
+                    }
+                }
+            } else {
+                unique.forEach(message -> duplicateDetector.forget(postId(message)));
+            }
+            held.forEach((message, originalPostId) -> {
+                if (duplicateDetector.isAcked(originalPostId)) {
+                    log.info("♻️ Skipping repost {} from @{} - original is {}", postId(message), message.getChannelName(), originalPostId);
+                    timestampService.ack(message);
+                } else {
+                    log.info("Repost {} from @{} will be redelivered - original {} was not processed",
+                            postId(message), message.getChannelName(), originalPostId);
+                    timestampService.nack(message);
+                }
+            });
+        }
+        return result;
+    }
+
+    private static String postId(TelegramMessage message) {
+        return message.getPostId() != null
+                ? message.getPostId()
+                : message.getChannelName() + "@" + message.getTimestamp();
+    }
+
     public void initializeStorage() {
         try {
             log.info("🚀 Initializing storage service...");
@@ -349,6 +282,19 @@ public class JobNotificationService {
         status.put("total_processed_today", totalProcessedToday);
         status.put("total_saved_today", totalSavedToday);
         status.put("telegram_service", telegramService.getServiceStatus());
+        status.put("adaptive_polling", properties.getTelegram().isAdaptivePolling());
+        status.put("channel_schedule", pollScheduler.getScheduleStatus());
+        status.put("ai_pipeline_mode", properties.getAi().getGemini().getPipelineMode());
+        status.put("pipeline", jobPipeline.getStats());
+        status.put("resume_queue", resumeQueue.getStats());
+        status.put("ai_batching", aiService.getBatchStats());
+        status.put("local_classifier", aiService.getLocalClassifierStats());
+        status.put("gemini_rate_limit", geminiRateLimiter.getStatus());
+        status.put("ai_cache", aiResultCache.getStats());
+        status.put("dedup", duplicateDetector.getStats());
+        status.put("storage", storageService.getStats());
+        status.put("http_pools", webClientFactory.getPoolStats());
+        status.put("health", healthProbes.getStatus());
         return status;
     }
 
@@ -360,6 +306,7 @@ public class JobNotificationService {
 
     public void resetChannelTimestamps() {
         telegramService.resetChannelTimestamps();
+        pollScheduler.reset();
         log.info("🔄 Reset all channel timestamps - next run will process recent messages as new");
     }
 }
\ No newline at end of file
@@ -0,0 +1,383 @@
+package com.telegram_notifier.service;
+
+import com.telegram_notifier.config.AppProperties;
+import com.telegram_notifier.model.JobDetails;
+import com.telegram_notifier.model.TelegramMessage;
+import org.springframework.stereotype.Service;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * The job processing pipeline shared by the scheduled, manual and single-message entry points.
+ * <p>
+ * Posts flow through three stages: relevance (batched Gemini verdicts), extraction and storage.
+ * Stages are joined by bounded queues ({@code app.pipeline.queue-capacity}) and each stage runs up
+ * to its own configured number of items at once, so relevance for later posts proceeds while an
+ * earlier post is being extracted or saved, and a slow stage backs up its queue instead of the
+ * whole run. Saved jobs get their resume later from the {@link ResumeQueueService}. A failure
+ * marks the post and skips its remaining stages; each Telegram message is acked or nacked exactly
+ * once when it leaves the pipeline.
+ */
+@Service
+public class JobPipeline {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(JobPipeline.class);
+
+    private final AiService aiService;
+    private final ExtractionService extractionService;
+    private final ResumeQueueService resumeQueue;
+    private final StorageService storageService;
+    private final KeywordPrefilter keywordPrefilter;
+    private final ChannelPollScheduler pollScheduler;
+    private final ChannelTimestampService timestampService;
+    private final AppProperties properties;
+
+    private final StageStats relevanceStats = new StageStats("relevance");
+    private final StageStats extractionStats = new StageStats("extraction");
+    private final StageStats storageStats = new StageStats("storage");
+    private final Instant startedAt = Instant.now();
+
+    public JobPipeline(AiService aiService,
+                       ExtractionService extractionService,
+                       ResumeQueueService resumeQueue,
+                       StorageService storageService,
+                       KeywordPrefilter keywordPrefilter,
+                       ChannelPollScheduler pollScheduler,
+                       ChannelTimestampService timestampService,
+                       AppProperties properties) {
+        this.aiService = aiService;
+        this.extractionService = extractionService;
+        this.resumeQueue = resumeQueue;
+        this.storageService = storageService;
+        this.keywordPrefilter = keywordPrefilter;
+        this.pollScheduler = pollScheduler;
+        this.timestampService = timestampService;
+        this.properties = properties;
+    }
+
+    /**
+     * One post moving through the pipeline
+     */
+    public static final class Item {
+        private final TelegramMessage message; // null for posts submitted by hand
+        private final String content;
+        private final String source;
+        private final String key;
+        private final LocalDateTime postedAt;
+        private final AtomicBoolean checkpointed = new AtomicBoolean();
+
+        private Boolean relevant;
+        private JobDetails jobDetails;
+        private String jobId;
+        private boolean resumeQueued;
+        private String failedStage;
+        private Throwable failure;
+
+        private Item(TelegramMessage message, String content, String source, String key, LocalDateTime postedAt) {
+            this.message = message;
+            this.content = content;
+            this.source = source;
+            this.key = key;
+            this.postedAt = postedAt;
+        }
+
+        public TelegramMessage getMessage() { return message; }
+        public boolean isRelevant() { return Boolean.TRUE.equals(relevant); }
+        public JobDetails getJobDetails() { return jobDetails; }
+        public String getJobId() { return jobId; }
+        public boolean isSaved() { return jobId != null; }
+        public boolean isResumeQueued() { return resumeQueued; }
+        public boolean isFailed() { return failure != null; }
+        public String getFailedStage() { return failedStage; }
+        public Throwable getFailure() { return failure; }
+    }
+
+    /**
+     * Outcome of one run
+     */
+    public record Result(List<Item> items, int processed, int relevant, int saved, int failed) {}
+
+    /**
+     * Run fetched Telegram messages through the pipeline and ack/nack each one. If the calling
+     * thread is interrupted, the run is cancelled and messages that had not finished are nacked.
+     */
+    public Result run(List<TelegramMessage> messages, String sourcePrefix) {
+        List<Item> items = new ArrayList<>(messages.size());
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < messages.size(); i++) {
+            TelegramMessage message = messages.get(i);
+            String key = message.getPostId() != null ? message.getPostId() : "post-" + i;
+            if (!keys.add(key)) {
+                key = key + "#" + i;
+                keys.add(key);
+            }
+            items.add(new Item(message, message.getContent(), sourcePrefix + message.getChannelName(), key, message.getTimestamp()));
+        }
+        return execute(items);
+    }
+
+    /**
+     * Run one post submitted by hand; nothing is acked
+     */
+    public Item runSingle(String content, String source) {
+        Item item = new Item(null, content, source, "manual", LocalDateTime.now());
+        execute(List.of(item));
+        return item;
+    }
+
+    private Result execute(List<Item> items) {
+        try {
+            process(Flux.fromIterable(items)).doOnNext(this::checkpoint).blockLast();
+        } catch (RuntimeException e) {
+            if (!(Exceptions.unwrap(e) instanceof InterruptedException)) throw e;
+            // blockLast() clears the flag; restore it so the caller stops too
+            Thread.currentThread().interrupt();
+            log.warn("⚠️ Processing interrupted");
+        } finally {
+            List<Item> unfinished = items.stream().filter(item -> !item.checkpointed.get()).toList();
+            if (!unfinished.isEmpty()) {
+                log.warn("⚠️ {} messages were not processed and will be redelivered", unfinished.size());
+                unfinished.forEach(item -> {
+                    if (item.checkpointed.compareAndSet(false, true) && item.message != null) {
+                        timestampService.nack(item.message);
+                    }
+                });
+            }
+        }
+
+        int relevant = 0, saved = 0, failed = 0, processed = 0;
+        for (Item item : items) {
+            if (item.relevant != null || item.isFailed()) processed++;
+            if (item.isRelevant()) relevant++;
+            if (item.isSaved()) saved++;
+            if (item.isFailed()) failed++;
+        }
+        return new Result(items, processed, relevant, saved, failed);
+    }
+
+    private Flux<Item> process(Flux<Item> items) {
+        AppProperties.Pipeline config = properties.getPipeline();
+        boolean combined = isCombinedMode();
+        int batchSize = Math.max(1, properties.getAi().getGemini().getBatchMaxItems());
+
+        // Combined mode decides relevance in the extraction stage's single call
+        Flux<Item> classified = combined
+                ? items
+                : stage(items.buffer(batchSize), relevanceStats, config.getRelevanceConcurrency(),
+                        List::size, batch -> true, this::classifyRelevance)
+                        .flatMapIterable(Function.identity());
+
+        Flux<Item> extracted = stage(classified, extractionStats, config.getExtractionConcurrency(),
+                item -> 1, item -> combined || item.isRelevant(), this::extract);
+
+        return stage(extracted, storageStats, config.getStorageConcurrency(),
+                item -> 1, item -> item.jobDetails != null, this::store);
+    }
+
+    /**
+     * A bounded hand-off queue followed by up to {@code concurrency} concurrent units of work.
+     * Units that failed earlier, or that the stage does not apply to, pass straight through.
+     */
+    private <T> Flux<T> stage(Flux<T> upstream, StageStats stats, int concurrency, ToIntFunction<T> size,
+                              Predicate<T> applies, Function<T, Mono<T>> work) {
+        return upstream
+                .doOnNext(unit -> stats.queued.addAndGet(size.applyAsInt(unit)))
+                .publishOn(Schedulers.boundedElastic(), Math.max(1, properties.getPipeline().getQueueCapacity()))
+                .flatMap(unit -> {
+                    int n = size.applyAsInt(unit);
+                    stats.queued.addAndGet(-n);
+                    if (!applies.test(unit) || (unit instanceof Item item && item.isFailed())) {
+                        stats.skipped.addAndGet(n);
+                        return Mono.just(unit);
+                    }
+                    stats.inFlight.addAndGet(n);
+                    long start = System.nanoTime();
+                    // Items that failed here were already counted by fail()
+                    return Mono.defer(() -> work.apply(unit))
+                            .doOnNext(done -> {
+                                int succeeded = succeeded(done);
+                                stats.completed.addAndGet(succeeded);
+                                if (succeeded > 0) stats.busyNanos.addAndGet(System.nanoTime() - start);
+                            })
+                            .doOnError(e -> stats.failed.addAndGet(n))
+                            .doFinally(signal -> {
+                                stats.inFlight.addAndGet(-n);
+                                if (signal == SignalType.CANCEL) stats.cancelled.addAndGet(n);
+                            });
+                }, Math.max(1, concurrency), 1);
+    }
+
+    private static int succeeded(Object unit) {
+        if (unit instanceof Item item) return item.isFailed() ? 0 : 1;
+        if (unit instanceof List<?> batch) return (int) batch.stream().filter(item -> !((Item) item).isFailed()).count();
+        return 1;
+    }
+
+    private Mono<List<Item>> classifyRelevance(List<Item> batch) {
+        Map<String, String> posts = new LinkedHashMap<>();
+        batch.forEach(item -> posts.put(item.key, item.content));
+        return aiService.classifyBatchAsync(posts)
+                .map(verdicts -> {
+                    for (Item item : batch) {
+                        Boolean verdict = verdicts.get(item.key);
+                        if (verdict == null) {
+                            fail(item, relevanceStats, new IllegalStateException("Post was not classified"));
+                            continue;
+                        }
+                        item.relevant = verdict;
+                        recordVerdict(item);
+                    }
+                    return batch;
+                })
+                .onErrorResume(e -> {
+                    batch.forEach(item -> fail(item, relevanceStats, e));
+                    return Mono.just(batch);
+                });
+    }
+
+    private Mono<Item> extract(Item item) {
+        Mono<Item> work;
+        if (isCombinedMode()) {
+            // Posts the local model is sure are irrelevant skip the classify+extract call
+            if (aiService.isLocallyIrrelevant(item.content)) {
+                item.relevant = false;
+                recordVerdict(item);
+                return Mono.just(item);
+            }
+            work = extractionService.classifyAndExtractAsync(item.content, item.source)
+                    .switchIfEmpty(Mono.error(() -> new IllegalStateException("Classify-and-extract call failed")))
+                    .map(classification -> {
+                        aiService.learnVerdict(item.content, classification.isRelevant());
+                        item.relevant = classification.isRelevant();
+                        item.jobDetails = classification.getJobDetails();
+                        recordVerdict(item);
+                        return item;
+                    });
+        } else {
+            work = extractionService.extractAsync(item.content, item.source)
+                    .map(jobDetails -> {
+                        item.jobDetails = jobDetails;
+                        return item;
+                    })
+                    .defaultIfEmpty(item);
+        }
+        return work
+                .doOnNext(done -> {
+                    if (done.isRelevant() && done.jobDetails == null) {
+                        log.warn("⚠️ Failed to extract job details from relevant post from {}", done.source);
+                    }
+                    if (done.jobDetails != null) {
+                        done.jobDetails.setPostedDate(done.postedAt.toLocalDate().toString());
+                    }
+                })
+                .onErrorResume(e -> Mono.just(fail(item, extractionStats, e)));
+    }
+
+    private Mono<Item> store(Item item) {
+        JobDetails jobDetails = item.jobDetails;
+        // Saved right away; the resume is generated afterwards and patched onto the saved job
+        return storageService.saveJobAsync(jobDetails, null)
+                .map(jobId -> {
+                    item.jobId = jobId;
+                    log.info("💾 Saved job: {} - {} (from {})", jobDetails.getCompany(), jobDetails.getRole(), item.source);
+                    item.resumeQueued = resumeQueue.enqueue(jobId, jobDetails);
+                    return item;
+                })
+                .onErrorResume(e -> Mono.just(fail(item, storageStats, e)));
+    }
+
+    private void recordVerdict(Item item) {
+        keywordPrefilter.recordAiVerdict(item.content, item.isRelevant());
+        if (item.message == null) return;
+        if (item.isRelevant()) {
+            pollScheduler.recordRelevant(item.message.getChannelName());
+            log.info("✅ Found relevant job post from @{}", item.message.getChannelName());
+        } else {
+            log.debug("❌ Message from @{} not job-relevant", item.message.getChannelName());
+        }
+    }
+
+    private Item fail(Item item, StageStats stats, Throwable e) {
+        item.failedStage = stats.name;
+        item.failure = e;
+        stats.failed.incrementAndGet();
+        log.error("🚨 {} stage failed for post from {}: {}", stats.name, item.source, e.getMessage());
+        return item;
+    }
+
+    /**
+     * Ack a message whose pipeline finished so its channel cursor can move past it, or nack it
+     * so the next fetch of its channel hands it out again
+     */
+    private void checkpoint(Item item) {
+        if (!item.checkpointed.compareAndSet(false, true) || item.message == null) return;
+        if (item.isFailed()) {
+            timestampService.nack(item.message);
+        } else {
+            timestampService.ack(item.message);
+        }
+    }
+
+    private boolean isCombinedMode() {
+        return "combined".equalsIgnoreCase(properties.getAi().getGemini().getPipelineMode());
+    }
+
+    public Map<String, Object> getStats() {
+        AppProperties.Pipeline config = properties.getPipeline();
+        double uptimeMinutes = Math.max(1.0 / 60, Duration.between(startedAt, Instant.now()).toMillis() / 60_000.0);
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queue_capacity", config.getQueueCapacity());
+        stats.put("relevance", relevanceStats.toMap(config.getRelevanceConcurrency(), uptimeMinutes));
+        stats.put("extraction", extractionStats.toMap(config.getExtractionConcurrency(), uptimeMinutes));
+        stats.put("storage", storageStats.toMap(config.getStorageConcurrency(), uptimeMinutes));
+        return stats;
+    }
+
+    private static final class StageStats {
+        private final String name;
+        private final AtomicLong queued = new AtomicLong();
+        private final AtomicLong inFlight = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong cancelled = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+
+        private StageStats(String name) {
+            this.name = name;
+        }
+
+        private Map<String, Object> toMap(int concurrency, double uptimeMinutes) {
+            long done = completed.get();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("concurrency", concurrency);
+            map.put("queue_depth", queued.get());
+            map.put("in_flight", inFlight.get());
+            map.put("completed", done);
+            map.put("skipped", skipped.get());
+            map.put("failed", failed.get());
+            map.put("cancelled", cancelled.get());
+            map.put("avg_ms", done == 0 ? 0 : busyNanos.get() / done / 1_000_000);
+            map.put("throughput_per_min", Math.round(done * 10 / uptimeMinutes) / 10.0);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.telegram_notifier.service;
+
+import com.telegram_notifier.config.AppProperties;
+import com.telegram_notifier.util.AhoCorasickMatcher;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cheap keyword gate in front of the Gemini relevance call.
+ * <p>
+ * Include keywords, exclude keywords and exclude prefixes from {@code app.telegram.prefilter.*}
+ * are compiled into one {@link AhoCorasickMatcher}, so a post is checked against every rule in a
+ * single pass. A post passes if it is long enough, matches no exclude rule and matches at least
+ * one include keyword. Per-rule hit counts, and how often posts let through by a keyword were
+ * later rejected by the AI, are exposed in {@link #getStatus()}.
+ */
+@Service
+public class KeywordPrefilter {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(KeywordPrefilter.class);
+
+    private enum RuleType { INCLUDE, EXCLUDE, EXCLUDE_PREFIX }
+
+    private final AppProperties properties;
+
+    private volatile CompiledRules rules;
+
+    private final AtomicLong checked = new AtomicLong();
+    private final AtomicLong passed = new AtomicLong();
+    private final AtomicLong rejectedTooShort = new AtomicLong();
+    private final AtomicLong rejectedExcluded = new AtomicLong();
+    private final AtomicLong rejectedNoKeyword = new AtomicLong();
+
+    public KeywordPrefilter(AppProperties properties) {
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void compileRules() {
+        AppProperties.Telegram.Prefilter config = properties.getTelegram().getPrefilter();
+        List<String> patterns = new ArrayList<>();
+        List<RuleType> types = new ArrayList<>();
+
+        addRules(patterns, types, config.getIncludeKeywords(), RuleType.INCLUDE);
+        addRules(patterns, types, config.getExcludeKeywords(), RuleType.EXCLUDE);
+        addRules(patterns, types, config.getExcludePrefixes(), RuleType.EXCLUDE_PREFIX);
+
+        this.rules = new CompiledRules(patterns, types);
+        log.info("Compiled keyword prefilter: {} include, {} exclude, {} prefix rules",
+                types.stream().filter(t -> t == RuleType.INCLUDE).count(),
+                types.stream().filter(t -> t == RuleType.EXCLUDE).count(),
+                types.stream().filter(t -> t == RuleType.EXCLUDE_PREFIX).count());
+    }
+
+    private void addRules(List<String> patterns, List<RuleType> types, String csv, RuleType type) {
+        if (csv == null || csv.isBlank()) return;
+        Arrays.stream(csv.split(","))
+                .map(String::trim)
+                .filter(rule -> !rule.isEmpty())
+                .map(String::toLowerCase)
+                .distinct()
+                .forEach(rule -> {
+                    patterns.add(rule);
+                    types.add(type);
+                });
+    }
+
+    /**
+     * Decide whether a post should be sent on to the AI stage
+     */
+    public boolean accepts(String content) {
+        if (content == null || content.trim().isEmpty()) {
+            return false;
+        }
+        checked.incrementAndGet();
+
+        if (content.length() < properties.getTelegram().getPrefilter().getMinLength()) {
+            rejectedTooShort.incrementAndGet();
+            return false;
+        }
+
+        CompiledRules compiled = rules;
+        int leading = leadingWhitespace(content);
+        boolean[] includeHits = new boolean[compiled.types.length];
+        int[] excludedBy = {-1};
+
+        compiled.matcher.scan(content, (rule, start) -> {
+            switch (compiled.types[rule]) {
+                case INCLUDE:
+                    includeHits[rule] = true;
+                    return true;
+                case EXCLUDE:
+                    excludedBy[0] = rule;
+                    return false;
+                default:
+                    if (start == leading) {
+                        excludedBy[0] = rule;
+                        return false;
+                    }
+                    return true;
+            }
+        });
+
+        if (excludedBy[0] >= 0) {
+            compiled.hits.incrementAndGet(excludedBy[0]);
+            rejectedExcluded.incrementAndGet();
+            return false;
+        }
+
+        boolean any = false;
+        for (int rule = 0; rule < includeHits.length; rule++) {
+            if (includeHits[rule]) {
+                compiled.hits.incrementAndGet(rule);
+                any = true;
+            }
+        }
+        if (!any) {
+            rejectedNoKeyword.incrementAndGet();
+            return false;
+        }
+        passed.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Attribute an AI verdict to the include keywords that let this post through
+     */
+    public void recordAiVerdict(String content, boolean relevant) {
+        if (relevant || content == null) return;
+        CompiledRules compiled = rules;
+        boolean[] seen = new boolean[compiled.types.length];
+        compiled.matcher.scan(content, (rule, start) -> {
+            if (compiled.types[rule] == RuleType.INCLUDE && !seen[rule]) {
+                seen[rule] = true;
+                compiled.aiRejected.incrementAndGet(rule);
+            }
+            return true;
+        });
+    }
+
+    private int leadingWhitespace(String content) {
+        int i = 0;
+        while (i < content.length() && Character.isWhitespace(content.charAt(i))) i++;
+        return i;
+    }
+
+    public Map<String, Object> getStatus() {
+        CompiledRules compiled = rules;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("checked", checked.get());
+        status.put("passed", passed.get());
+        status.put("rejected_too_short", rejectedTooShort.get());
+        status.put("rejected_excluded", rejectedExcluded.get());
+        status.put("rejected_no_keyword", rejectedNoKeyword.get());
+
+        Map<String, Object> include = new LinkedHashMap<>();
+        Map<String, Object> exclude = new LinkedHashMap<>();
+        for (int rule = 0; rule < compiled.types.length; rule++) {
+            if (compiled.types[rule] == RuleType.INCLUDE) {
+                long hits = compiled.hits.get(rule);
+                long rejected = compiled.aiRejected.get(rule);
+                include.put(compiled.patterns.get(rule), Map.of(
+                        "hits", hits,
+                        "ai_rejected", rejected,
+                        "noise_rate", hits == 0 ? 0.0 : Math.round(rejected * 1000.0 / hits) / 1000.0));
+            } else {
+                String key = compiled.types[rule] == RuleType.EXCLUDE_PREFIX
+                        ? "^" + compiled.patterns.get(rule) : compiled.patterns.get(rule);
+                exclude.put(key, compiled.hits.get(rule));
+            }
+        }
+        status.put("include_rules", include);
+        status.put("exclude_rules", exclude);
+        return status;
+    }
+
+    private static final class CompiledRules {
+        private final List<String> patterns;
+        private final RuleType[] types;
+        private final AhoCorasickMatcher matcher;
+        private final AtomicLongArray hits;
+        private final AtomicLongArray aiRejected;
+
+        private CompiledRules(List<String> patterns, List<RuleType> types) {
+            this.patterns = List.copyOf(patterns);
+            this.types = types.toArray(new RuleType[0]);
+            this.matcher = new AhoCorasickMatcher(patterns);
+            this.hits = new AtomicLongArray(patterns.size());
+            this.aiRejected = new AtomicLongArray(patterns.size());
+        }
+    }
+}
@@ -1,180 +1,166 @@
 package com.telegram_notifier.service;
 
+import com.telegram_notifier.config.AppProperties;
+import com.telegram_notifier.util.LatexLinter;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.BodyInserters;
-import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
 
-import java.nio.charset.StandardCharsets;
-import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Compiles LaTeX to PDF through the configured {@link LatexCompiler} backends.
+ * <p>
+ * {@code app.latex.backend=auto} tries the local engine pool first and falls back to the remote
+ * service if the local engine is missing or the compilation fails; {@code local} and
+ * {@code remote} use a single backend. Compiled PDFs are kept in the {@link PdfCache}, so the
+ * same LaTeX source is only compiled once.
+ */
 @Service
 public class LatexCompilationService {
 
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(LatexCompilationService.class);
     
-    private final WebClient webClient;
+    private final AppProperties properties;
+    private final LocalLatexCompiler localCompiler;
+    private final PdfCache pdfCache;
+    private final List<LatexCompiler> backends;
+    private final LatexLinter linter;
     
-    // LaTeX compilation service endpoint
-    private static final String LATEX_SERVICE_URL = "https://latex.ytotech.com/builds/sync";
-    
-    public LatexCompilationService() {
-        this.webClient = WebClient.builder()
-            .codecs(configurer -> configurer
-                .defaultCodecs()
-                .maxInMemorySize(10 * 1024 * 1024)) // 10MB for PDF files
-            .build();
+    public LatexCompilationService(AppProperties properties,
+                                   LocalLatexCompiler localCompiler,
+                                   RemoteLatexCompiler remoteCompiler,
+                                   PdfCache pdfCache) {
+        this.properties = properties;
+        this.localCompiler = localCompiler;
+        this.pdfCache = pdfCache;
+        this.linter = new LatexLinter(Arrays.asList(properties.getLatex().getAllowedPackages().split(",")));
+        this.backends = switch (properties.getLatex().getBackend().toLowerCase()) {
+            case "local" -> List.of(localCompiler);
+            case "remote" -> List.of(remoteCompiler);
+            default -> List.of(localCompiler, remoteCompiler);
+        };
     }
     
     /**
-     * Compile LaTeX content to PDF using LaTeX Online service with fallback options
+     * Compile LaTeX content to PDF, falling back through the configured backends
      * @param latexContent The complete LaTeX document content
      * @return PDF file as byte array
-     * @throws RuntimeException if compilation fails on all services
+     * @throws RuntimeException if compilation fails on all backends
      */
     public byte[] compileLatexToPdf(String latexContent) {
+        return compileLatexToPdfAsync(latexContent).block();
+    }
+
+    /**
+     * Non-blocking {@link #compileLatexToPdf}
+     * @param latexContent The complete LaTeX document content
+     * @return PDF file as byte array; errors with a RuntimeException if compilation fails
+     */
+    public Mono<byte[]> compileLatexToPdfAsync(String latexContent) {
         if (latexContent == null || latexContent.trim().isEmpty()) {
-            throw new IllegalArgumentException("LaTeX content cannot be null or empty");
-        }
-        
-        log.info("🔨 Compiling LaTeX document using YToTech service...");
-        log.debug("LaTeX content length: {} characters", latexContent.length());
-        
-        try {
-            byte[] pdfBytes = compileWithYToTechService(latexContent);
-            
-            if (pdfBytes != null && pdfBytes.length > 0) {
-                log.info("✅ LaTeX compilation successful. PDF size: {} bytes", pdfBytes.length);
-                return pdfBytes;
-            } else {
-                throw new RuntimeException("LaTeX compilation returned empty or null PDF");
-            }
-            
-        } catch (Exception e) {
-            log.error("❌ LaTeX compilation failed: {}", e.getMessage());
-            throw new RuntimeException("LaTeX compilation failed: " + e.getMessage(), e);
+            return Mono.error(new IllegalArgumentException("LaTeX content cannot be null or empty"));
         }
+
+        return Mono.defer(() -> {
+                    byte[] cached = pdfCache.get(latexContent);
+                    if (cached != null) {
+                        log.info("♻️ Reusing cached PDF for identical LaTeX ({} bytes)", cached.length);
+                        return Mono.just(cached);
+                    }
+                    log.debug("LaTeX content length: {} characters", latexContent.length());
+                    return compileWith(candidates(), 0, latexContent)
+                            .filter(pdfBytes -> pdfBytes.length > 0)
+                            .switchIfEmpty(Mono.error(() -> new RuntimeException("LaTeX compilation returned empty or null PDF")))
+                            .doOnNext(pdfBytes -> {
+                                log.info("✅ LaTeX compilation successful. PDF size: {} bytes", pdfBytes.length);
+                                pdfCache.put(latexContent, pdfBytes);
+                            });
+                })
+                .onErrorMap(e -> {
+                    log.error("❌ LaTeX compilation failed: {}", e.getMessage());
+                    return new RuntimeException("LaTeX compilation failed: " + e.getMessage(), e);
+                });
     }
-    
+
     /**
-     * Compile LaTeX content using YToTech service
-     * @param latexContent LaTeX content to compile
-     * @return PDF bytes
-     * @throws Exception if compilation fails
+     * Build anything a backend can prepare ahead of time for documents like this one (e.g. the
+     * local preamble format), so the first real compilation is not the slow one
      */
-    private byte[] compileWithYToTechService(String latexContent) throws Exception {
-        try {
-            // YToTech structured API format
-            Map<String, Object> resource = Map.of(
-                "main", true,
-                "content", latexContent
-            );
-            Map<String, Object> jsonBody = Map.of(
-                "compiler", "pdflatex",
-                "resources", java.util.List.of(resource)
-            );
-            
-            log.debug("Sending LaTeX compilation request to YToTech service...");
-            
-            byte[] responseBytes = webClient.post()
-                .uri(LATEX_SERVICE_URL)
-                .header("Content-Type", "application/json")
-                .body(BodyInserters.fromValue(jsonBody))
-                .retrieve()
-                .bodyToMono(byte[].class)
-                .timeout(Duration.ofSeconds(20))
-                .block();
-                
-            // Validate that we received a valid PDF
-            if (!isValidPdf(responseBytes)) {
-                String responseText = responseBytes != null ? new String(responseBytes, StandardCharsets.UTF_8) : "null";
-                log.warn("YToTech service returned non-PDF content. Response: {}", 
-                        responseText.length() > 200 ? responseText.substring(0, 200) + "..." : responseText);
-                throw new RuntimeException("Service returned non-PDF content (likely HTML error page)");
-            }
-            
-            return responseBytes;
-            
-        } catch (Exception e) {
-            log.error("🚨 YToTech LaTeX compilation failed: {}", e.getMessage());
-            throw new RuntimeException("YToTech service error: " + e.getMessage(), e);
+    public void warmUp(String latexContent) {
+        if (backends.contains(localCompiler)) {
+            localCompiler.warmUp(latexContent);
         }
     }
-    
+
     /**
-     * Validate that the response is a valid PDF file
-     * @param bytes Response bytes to validate
-     * @return true if the bytes represent a valid PDF file
+     * Available backends in order; the remote backend stays in as the last resort even after a failure
      */
-    private boolean isValidPdf(byte[] bytes) {
-        if (bytes == null || bytes.length < 4) {
-            return false;
+    private List<LatexCompiler> candidates() {
+        List<LatexCompiler> candidates = new ArrayList<>();
+        for (LatexCompiler backend : backends) {
+            if (backend.isAvailable()) candidates.add(backend);
+        }
+        LatexCompiler last = backends.get(backends.size() - 1);
+        if (!candidates.contains(last) && !(last instanceof LocalLatexCompiler)) {
+            candidates.add(last);
+        }
+        return candidates;
+    }
+
+    private Mono<byte[]> compileWith(List<LatexCompiler> candidates, int index, String latexContent) {
+        if (index >= candidates.size()) {
+            return Mono.error(new IllegalStateException("no LaTeX backend available"));
         }
-        
-        // PDF files start with the magic bytes: %PDF
-        String header = new String(bytes, 0, Math.min(4, bytes.length), StandardCharsets.ISO_8859_1);
-        boolean isPdf = header.equals("%PDF");
-        
-        if (!isPdf) {
-            // Log first few bytes for debugging
-            String preview = new String(bytes, 0, Math.min(100, bytes.length), StandardCharsets.UTF_8);
-            log.debug("Invalid PDF header. First 100 chars: {}", preview);
-        } else {
-            log.debug("Valid PDF detected. Size: {} bytes", bytes.length);
+        LatexCompiler backend = candidates.get(index);
+        log.info("🔨 Compiling LaTeX document with the {} backend...", backend.name());
+        Mono<byte[]> attempt = backend.compile(latexContent);
+        if (index + 1 == candidates.size()) {
+            return attempt;
         }
-        
-        return isPdf;
+        return attempt.onErrorResume(e -> {
+            log.warn("⚠️ {} LaTeX compilation failed ({}), falling back to {}",
+                    backend.name(), e.getMessage(), candidates.get(index + 1).name());
+            return compileWith(candidates, index + 1, latexContent);
+        });
+    }
+    
+    /**
+     * Lint a document before compilation (see {@link LatexLinter}); the result carries the
+     * repaired document and the reasons it would be rejected
+     * @param maxLines estimated body lines above which the document is rejected; 0 = no limit
+     */
+    public LatexLinter.Result lint(String latexContent, int maxLines) {
+        return linter.lint(latexContent, maxLines);
     }
     
     /**
      * Validate LaTeX content before compilation
      * @param latexContent LaTeX document content to validate
-     * @return true if content appears valid
+     * @return true if content passes the structural lint
      */
     public boolean validateLatexContent(String latexContent) {
-        if (latexContent == null || latexContent.trim().isEmpty()) {
-            return false;
-        }
-        
-        // Basic validation checks
-        boolean hasDocumentClass = latexContent.contains("\\documentclass");
-        boolean hasBeginDocument = latexContent.contains("\\begin{document}");
-        boolean hasEndDocument = latexContent.contains("\\end{document}");
-        
-        boolean isValid = hasDocumentClass && hasBeginDocument && hasEndDocument;
-        
-        if (!isValid) {
-            log.warn("❌ LaTeX validation failed - missing required elements:");
-            log.warn("  - \\documentclass: {}", hasDocumentClass);
-            log.warn("  - \\begin{{document}}: {}", hasBeginDocument);
-            log.warn("  - \\end{{document}}: {}", hasEndDocument);
+        LatexLinter.Result result = linter.lint(latexContent, 0);
+        if (!result.isValid()) {
+            log.warn("❌ LaTeX validation failed: {}", result.errors());
         }
-        
-        return isValid;
+        return result.isValid();
     }
     
     /**
-     * Test connection to YToTech LaTeX service
-     * @return true if the service is reachable
+     * Backend configuration and per-backend statistics; never compiles anything
+     * @return Status information map
      */
-    public boolean isLatexOnlineAvailable() {
-        log.info("Testing YToTech LaTeX service availability...");
-        
-        String testLatex = "\\documentclass{article}\\begin{document}Test\\end{document}";
-        
-        try {
-            log.debug("Testing YToTech service: {}", LATEX_SERVICE_URL);
-            byte[] result = compileWithYToTechService(testLatex);
-            if (result != null && result.length > 0) {
-                log.info("✅ YToTech LaTeX service is available");
-                return true;
-            }
-        } catch (Exception e) {
-            log.warn("❌ YToTech LaTeX service test failed: {}", e.getMessage());
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("backend", properties.getLatex().getBackend());
+        status.put("pdf_cache", pdfCache.getStats());
+        for (LatexCompiler backend : backends) {
+            status.put(backend.name(), backend.getStats());
         }
-        
-        log.warn("❌ YToTech LaTeX service is currently unavailable");
-        return false;
+        return status;
     }
 }
@@ -0,0 +1,34 @@
+package com.telegram_notifier.service;
+
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * A backend that turns a complete LaTeX document into a PDF (see {@link LatexCompilationService})
+ */
+public interface LatexCompiler {
+
+    String name();
+
+    /**
+     * Whether this backend should be tried at all; cheap, never compiles anything
+     */
+    boolean isAvailable();
+
+    /**
+     * @return PDF bytes; errors if compilation fails or the output is not a PDF
+     */
+    Mono<byte[]> compile(String latexContent);
+
+    Map<String, Object> getStats();
+
+    /**
+     * PDF files start with the magic bytes {@code %PDF}
+     */
+    static boolean isPdf(byte[] bytes) {
+        return bytes != null && bytes.length >= 4
+                && new String(bytes, 0, 4, StandardCharsets.ISO_8859_1).equals("%PDF");
+    }
+}
@@ -0,0 +1,369 @@
+package com.telegram_notifier.service;
+
+import com.telegram_notifier.config.AppProperties;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Compiles LaTeX with a locally installed pdflatex or tectonic.
+ * <p>
+ * A fixed pool of {@code app.latex.pool-size} workspace directories bounds how many engine
+ * processes run at once; a compilation waits for a free workspace, which is emptied before use.
+ * Engines run without shell escape, with kpathsea file access restricted to the workspace, and
+ * are killed after {@code app.latex.timeout-seconds}. With pdflatex and
+ * {@code app.latex.preload-format}, each distinct preamble is dumped once into a format file
+ * (via {@code mylatexformat}), so later compilations skip loading the packages; compilations
+ * that arrive while a format is being dumped run without it. A workspace whose engine does not
+ * exit after being killed is replaced by a new one. The backend reports itself unavailable if
+ * the engine binary cannot be run.
+ */
+@Service
+public class LocalLatexCompiler implements LatexCompiler {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(LocalLatexCompiler.class);
+
+    private static final String MAIN = "main";
+    private static final String BEGIN_DOCUMENT = "\\begin{document}";
+    // How long a killed engine gets to exit before its workspace is given up on
+    private static final int KILL_WAIT_SECONDS = 10;
+
+    private final AppProperties properties;
+
+    private volatile boolean available;
+    private String engineVersion;
+    private Path root;
+    private Path formatsDir;
+    private BlockingQueue<Path> workspaces;
+    // Preamble fingerprint -> format name, or empty if dumping that preamble failed; incomplete while it is dumped
+    private final Map<String, CompletableFuture<Optional<String>>> formats = new ConcurrentHashMap<>();
+
+    private final AtomicLong compiles = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong formatHits = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong discardedWorkspaces = new AtomicLong();
+
+    public LocalLatexCompiler(AppProperties properties) {
+        this.properties = properties;
+    }
+
+    private AppProperties.Latex config() {
+        return properties.getLatex();
+    }
+
+    @PostConstruct
+    public void init() {
+        if ("remote".equalsIgnoreCase(config().getBackend())) {
+            return;
+        }
+        engineVersion = probeEngine();
+        if (engineVersion == null) {
+            log.warn("⚠️ LaTeX engine '{}' not found - local compilation disabled", config().getEngine());
+            return;
+        }
+        try {
+            root = config().getWorkDir().isBlank()
+                    ? Files.createTempDirectory("latex-")
+                    : Files.createDirectories(Paths.get(config().getWorkDir()));
+            formatsDir = Files.createDirectories(root.resolve("formats"));
+            int poolSize = Math.max(1, config().getPoolSize());
+            workspaces = new ArrayBlockingQueue<>(poolSize);
+            for (int i = 0; i < poolSize; i++) {
+                workspaces.add(Files.createDirectories(root.resolve("ws-" + i)));
+            }
+            available = true;
+            log.info("✅ Local LaTeX compilation ready: {} ({} workers in {})", engineVersion, poolSize, root);
+        } catch (IOException e) {
+            log.error("❌ Could not set up LaTeX workspaces - local compilation disabled", e);
+        }
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        if (root != null && config().getWorkDir().isBlank()) {
+            deleteContents(root);
+            try {
+                Files.deleteIfExists(root);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    @Override
+    public String name() {
+        return "local";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return available;
+    }
+
+    @Override
+    public Mono<byte[]> compile(String latexContent) {
+        if (!available) {
+            return Mono.error(new IllegalStateException("Local LaTeX engine is not available"));
+        }
+        return Mono.fromCallable(() -> compileBlocking(latexContent))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Build the format for a document's preamble ahead of its first compilation
+     */
+    public void warmUp(String latexContent) {
+        if (!available || !preloadFormat()) return;
+        Mono.fromRunnable(() -> formatFor(latexContent))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe();
+    }
+
+    private byte[] compileBlocking(String latexContent) throws IOException, InterruptedException {
+        long waitStart = System.nanoTime();
+        Path workspace = workspaces.take();
+        long start = System.nanoTime();
+        waitNanos.addAndGet(start - waitStart);
+        boolean discard = false;
+        try {
+            deleteContents(workspace);
+            String format = preloadFormat() ? formatFor(latexContent) : null;
+            if (format != null) formatHits.incrementAndGet();
+            Files.writeString(workspace.resolve(MAIN + ".tex"), latexContent, StandardCharsets.UTF_8);
+
+            int exitCode = run(workspace, compileCommand(format));
+            Path pdf = workspace.resolve(MAIN + ".pdf");
+            byte[] pdfBytes = Files.exists(pdf) ? Files.readAllBytes(pdf) : null;
+            if (exitCode != 0 || !LatexCompiler.isPdf(pdfBytes)) {
+                throw new RuntimeException("Local LaTeX compilation failed (exit " + exitCode + "): "
+                        + firstError(workspace.resolve(MAIN + ".log")));
+            }
+            return pdfBytes;
+        } catch (EngineStillRunningException e) {
+            discard = true;
+            failures.incrementAndGet();
+            throw e;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            failures.incrementAndGet();
+            throw e;
+        } finally {
+            compiles.incrementAndGet();
+            busyNanos.addAndGet(System.nanoTime() - start);
+            workspaces.add(discard ? replaceWorkspace(workspace) : workspace);
+        }
+    }
+
+    /**
+     * A fresh directory to use instead of a workspace a killed engine may still be writing to
+     */
+    private Path replaceWorkspace(Path workspace) {
+        discardedWorkspaces.incrementAndGet();
+        try {
+            Path fresh = Files.createDirectories(root.resolve(workspace.getFileName() + "-" + System.nanoTime()));
+            log.warn("⚠️ LaTeX engine in {} did not exit after being killed - continuing in {}", workspace, fresh);
+            return fresh;
+        } catch (IOException e) {
+            log.error("❌ Could not create a replacement for LaTeX workspace {} - reusing it", workspace, e);
+            return workspace;
+        }
+    }
+
+    private List<String> compileCommand(String format) {
+        List<String> command = new ArrayList<>();
+        command.add(config().getEngine());
+        if (isTectonic()) {
+            command.addAll(List.of("--untrusted", "--chatter", "minimal", "--outdir", ".", MAIN + ".tex"));
+            return command;
+        }
+        command.addAll(List.of("-interaction=nonstopmode", "-halt-on-error", "-no-shell-escape"));
+        if (format != null) {
+            command.add("-fmt=" + format);
+        }
+        command.add(MAIN + ".tex");
+        return command;
+    }
+
+    /**
+     * Name of the format holding this document's preamble, dumping it on first use; null if the
+     * document has no preamble or the preamble cannot be dumped
+     */
+    private String formatFor(String latexContent) {
+        int begin = latexContent.indexOf(BEGIN_DOCUMENT);
+        if (begin < 0) return null;
+        String preamble = latexContent.substring(0, begin);
+        String fingerprint = Integer.toHexString(preamble.hashCode());
+        CompletableFuture<Optional<String>> dumped = new CompletableFuture<>();
+        CompletableFuture<Optional<String>> existing = formats.putIfAbsent(fingerprint, dumped);
+        if (existing != null) {
+            // Someone else is dumping it (outside the map, so other preambles are not held up)
+            return existing.getNow(Optional.empty()).orElse(null);
+        }
+        Optional<String> format = Optional.empty();
+        try {
+            format = dumpFormat(fingerprint, preamble);
+        } finally {
+            dumped.complete(format);
+        }
+        return format.orElse(null);
+    }
+
+    private Optional<String> dumpFormat(String fingerprint, String preamble) {
+        String name = "preamble-" + fingerprint;
+        Path dir = formatsDir.resolve(name);
+        try {
+            Files.createDirectories(dir);
+            deleteContents(dir);
+            Files.writeString(dir.resolve(MAIN + ".tex"), preamble + BEGIN_DOCUMENT + "\n\\end{document}\n", StandardCharsets.UTF_8);
+            int exitCode = run(dir, List.of(config().getEngine(), "-ini", "-interaction=nonstopmode", "-halt-on-error",
+                    "-no-shell-escape", "-jobname=" + name, "&pdflatex", "mylatexformat.ltx", MAIN + ".tex"));
+            Path format = dir.resolve(name + ".fmt");
+            if (exitCode != 0 || !Files.exists(format)) {
+                log.warn("⚠️ Could not preload LaTeX preamble {} - compiling without a format: {}",
+                        fingerprint, firstError(dir.resolve(name + ".log")));
+                return Optional.empty();
+            }
+            Files.move(format, formatsDir.resolve(name + ".fmt"), StandardCopyOption.REPLACE_EXISTING);
+            log.info("⚡ Preloaded LaTeX preamble {} into a format file", fingerprint);
+            return Optional.of(name);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            log.warn("⚠️ Could not preload LaTeX preamble {}: {}", fingerprint, e.getMessage());
+            return Optional.empty();
+        } finally {
+            deleteContents(dir);
+        }
+    }
+
+    /**
+     * Run an engine in a directory with file access confined to it
+     * @return the exit code; throws if the process exceeds the timeout
+     */
+    private int run(Path dir, List<String> command) throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .directory(dir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        Map<String, String> env = builder.environment();
+        env.put("openin_any", "p");
+        env.put("openout_any", "p");
+        env.put("shell_escape", "f");
+        env.put("TEXMFOUTPUT", dir.toString());
+        // Fixed timestamps make identical sources produce identical PDFs (see CloudinaryService)
+        env.put("SOURCE_DATE_EPOCH", "0");
+        env.put("FORCE_SOURCE_DATE", "1");
+        // Trailing separator keeps the default search path for the base formats
+        env.put("TEXFORMATS", formatsDir + File.pathSeparator);
+
+        Process process = builder.start();
+        if (!process.waitFor(config().getTimeoutSeconds(), TimeUnit.SECONDS)) {
+            timeouts.incrementAndGet();
+            // The directory is only reused once the engine can no longer write to it
+            if (!process.destroyForcibly().waitFor(KILL_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                throw new EngineStillRunningException("LaTeX engine timed out after " + config().getTimeoutSeconds()
+                        + " s and did not exit when killed");
+            }
+            throw new RuntimeException("LaTeX engine timed out after " + config().getTimeoutSeconds() + " s");
+        }
+        return process.exitValue();
+    }
+
+    private static final class EngineStillRunningException extends RuntimeException {
+        private EngineStillRunningException(String message) {
+            super(message);
+        }
+    }
+
+    private String probeEngine() {
+        try {
+            Process process = new ProcessBuilder(config().getEngine(), "--version")
+                    .redirectErrorStream(true)
+                    .start();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            if (!process.waitFor(10, TimeUnit.SECONDS) || process.exitValue() != 0) {
+                process.destroyForcibly();
+                return null;
+            }
+            return output.lines().findFirst().orElse(config().getEngine());
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * First TeX error ("! ...") in a log file, for error messages
+     */
+    private static String firstError(Path logFile) {
+        try (Stream<String> lines = Files.lines(logFile, StandardCharsets.ISO_8859_1)) {
+            return lines.filter(line -> line.startsWith("!")).findFirst().orElse("no error in log");
+        } catch (IOException | RuntimeException e) {
+            return "no log";
+        }
+    }
+
+    private static void deleteContents(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder())
+                    .filter(path -> !path.equals(dir))
+                    .forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.debug("Failed to clean {}", dir, e);
+        }
+    }
+
+    private boolean isTectonic() {
+        return Paths.get(config().getEngine()).getFileName().toString().startsWith("tectonic");
+    }
+
+    private boolean preloadFormat() {
+        return config().isPreloadFormat() && !isTectonic();
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        long count = compiles.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("available", available);
+        stats.put("engine", engineVersion != null ? engineVersion : config().getEngine());
+        stats.put("pool_size", workspaces != null ? config().getPoolSize() : 0);
+        stats.put("busy_workers", workspaces != null ? Math.max(1, config().getPoolSize()) - workspaces.size() : 0);
+        stats.put("compiles", count);
+        stats.put("failures", failures.get());
+        stats.put("timeouts", timeouts.get());
+        stats.put("preloaded_formats", formats.values().stream()
+                .filter(format -> format.getNow(Optional.empty()).isPresent())
+                .count());
+        stats.put("discarded_workspaces", discardedWorkspaces.get());
+        stats.put("format_hits", formatHits.get());
+        stats.put("avg_compile_ms", count == 0 ? 0 : busyNanos.get() / count / 1_000_000);
+        stats.put("avg_wait_ms", count == 0 ? 0 : waitNanos.get() / count / 1_000_000);
+        return stats;
+    }
+}
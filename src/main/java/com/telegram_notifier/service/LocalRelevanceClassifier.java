@@ -0,0 +1,238 @@
+package com.telegram_notifier.service;
+
+import com.telegram_notifier.config.AppProperties;
+import com.telegram_notifier.util.HashedLogisticRegression;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * First-stage relevance classifier that learns from Gemini's verdicts.
+ * <p>
+ * Every post Gemini classifies becomes a training example for a {@link HashedLogisticRegression}.
+ * Once the model has seen {@code min-training-examples} posts, a post whose predicted probability
+ * is beyond {@code positive-threshold} or {@code negative-threshold} is answered locally; anything
+ * in between is escalated to Gemini. A {@code shadow-rate} fraction of confident posts is still
+ * sent to Gemini to measure agreement, and if agreement over the last {@code agreement-window}
+ * checks drops below {@code min-agreement}, local answers are suspended until it recovers. The
+ * model is kept under {@code app.state.dir} and discarded when the prompt its labels come from
+ * changes: the relevance prompt, or the classify-and-extract prompt in combined mode.
+ */
+@Service
+public class LocalRelevanceClassifier {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(LocalRelevanceClassifier.class);
+
+    private static final String MODEL_FILE = "relevance-model.bin";
+    private static final int SAVE_EVERY = 100;
+
+    private final AppProperties properties;
+    private HashedLogisticRegression model;
+    private Path modelFile;
+    private int unsavedUpdates;
+
+    // Rolling window of shadow checks: true = local and Gemini agreed
+    private boolean[] recentAgreement;
+    private int recentCount;
+    private int recentNext;
+    private int recentAgreed;
+    private boolean suspended;
+
+    private long localRelevant;
+    private long localIrrelevant;
+    private long escalated;
+    private long shadowChecks;
+    private long shadowAgreed;
+    private long missedRelevant;
+    private long falseRelevant;
+    private long trainedThisRun;
+    private long trainingCorrect;
+
+    public LocalRelevanceClassifier(AppProperties properties) {
+        this.properties = properties;
+    }
+
+    private AppProperties.AI.LocalClassifier config() {
+        return properties.getAi().getLocalClassifier();
+    }
+
+    @PostConstruct
+    public void init() {
+        AppProperties.AI.LocalClassifier config = config();
+        model = new HashedLogisticRegression(config.getHashBits(), config.getLearningRate(), config.getL2());
+        recentAgreement = new boolean[Math.max(1, config.getAgreementWindow())];
+        modelFile = Paths.get(properties.getState().getDir(), MODEL_FILE);
+        if (!config.isEnabled() || !Files.exists(modelFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(modelFile)))) {
+            if (in.readInt() != promptFingerprint()) {
+                log.info("Relevance prompt changed - starting a new local relevance model");
+            } else if (model.readFrom(in)) {
+                log.info("✅ Loaded local relevance model trained on {} posts", model.examples());
+            } else {
+                log.info("Local relevance model format changed - starting a new one");
+            }
+        } catch (IOException e) {
+            log.warn("Could not load local relevance model {} - starting a new one", modelFile, e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void save() {
+        if (!config().isEnabled() || unsavedUpdates == 0) return;
+        try {
+            Files.createDirectories(modelFile.getParent());
+            Path tmp = modelFile.resolveSibling(MODEL_FILE + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(promptFingerprint());
+                model.writeTo(out);
+            }
+            Files.move(tmp, modelFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            unsavedUpdates = 0;
+        } catch (IOException e) {
+            log.warn("Failed to save local relevance model to {}", modelFile, e);
+        }
+    }
+
+    /**
+     * Local verdict for a post, or null if it has to go to Gemini (uncertain, not trained
+     * enough, suspended, or picked as a shadow check)
+     */
+    public Boolean decide(String text) {
+        return decide(text, true);
+    }
+
+    /**
+     * {@link #decide} for callers that still ask Gemini about relevant posts: a confident
+     * positive does not replace the call, so it is returned as null and counted as escalated
+     */
+    public Boolean decideIrrelevant(String text) {
+        return decide(text, false);
+    }
+
+    private synchronized Boolean decide(String text, boolean answerRelevant) {
+        AppProperties.AI.LocalClassifier config = config();
+        if (!config.isEnabled() || model.examples() < config.getMinTrainingExamples() || suspended) {
+            escalated++;
+            return null;
+        }
+        double p = model.predict(text);
+        boolean confident = (answerRelevant && p >= config.getPositiveThreshold()) || p <= config.getNegativeThreshold();
+        if (!confident || ThreadLocalRandom.current().nextDouble() < config.getShadowRate()) {
+            escalated++;
+            return null;
+        }
+        if (p >= config.getPositiveThreshold()) {
+            localRelevant++;
+            return true;
+        }
+        localIrrelevant++;
+        return false;
+    }
+
+    /**
+     * Learn from a Gemini verdict. If the model would have answered this post locally, the
+     * verdict also counts as a shadow check of the local answer.
+     */
+    public synchronized void learn(String text, boolean relevant) {
+        AppProperties.AI.LocalClassifier config = config();
+        if (!config.isEnabled()) return;
+
+        boolean trained = model.examples() >= config.getMinTrainingExamples();
+        double p = model.train(text, relevant);
+        trainedThisRun++;
+        if ((p >= 0.5) == relevant) trainingCorrect++;
+
+        if (trained && (p >= config.getPositiveThreshold() || p <= config.getNegativeThreshold())) {
+            boolean localVerdict = p >= config.getPositiveThreshold();
+            recordShadowCheck(localVerdict == relevant);
+            if (localVerdict != relevant) {
+                if (relevant) missedRelevant++; else falseRelevant++;
+                log.debug("Local relevance model disagreed with Gemini (p={}, gemini={})", p, relevant);
+            }
+        }
+
+        if (++unsavedUpdates >= SAVE_EVERY) {
+            save();
+        }
+    }
+
+    private void recordShadowCheck(boolean agreed) {
+        shadowChecks++;
+        if (agreed) shadowAgreed++;
+
+        if (recentCount == recentAgreement.length) {
+            if (recentAgreement[recentNext]) recentAgreed--;
+        } else {
+            recentCount++;
+        }
+        recentAgreement[recentNext] = agreed;
+        if (agreed) recentAgreed++;
+        recentNext = (recentNext + 1) % recentAgreement.length;
+
+        // Only judge agreement once a meaningful number of checks is in the window
+        if (recentCount < Math.min(20, recentAgreement.length)) return;
+        boolean belowFloor = recentAgreement() < config().getMinAgreement();
+        if (belowFloor != suspended) {
+            suspended = belowFloor;
+            if (suspended) {
+                log.warn("⚠️ Local relevance model agreement {} is below {} - escalating every post to Gemini",
+                        round(recentAgreement()), config().getMinAgreement());
+            } else {
+                log.info("✅ Local relevance model agreement recovered to {} - answering confident posts locally",
+                        round(recentAgreement()));
+            }
+        }
+    }
+
+    private double recentAgreement() {
+        return recentCount == 0 ? 1.0 : (double) recentAgreed / recentCount;
+    }
+
+    private int promptFingerprint() {
+        AppProperties.AI.Gemini gemini = properties.getAi().getGemini();
+        String relevancePrompt = String.valueOf(gemini.getRelevancePrompt());
+        return "combined".equalsIgnoreCase(gemini.getPipelineMode())
+                ? ExtractionService.classifyAndExtractPrompt(relevancePrompt).hashCode()
+                : relevancePrompt.hashCode();
+    }
+
+    private double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        long local = localRelevant + localIrrelevant;
+        long decisions = local + escalated;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", config().isEnabled());
+        stats.put("training_examples", model.examples());
+        stats.put("active", config().isEnabled() && model.examples() >= config().getMinTrainingExamples() && !suspended);
+        stats.put("suspended_for_low_agreement", suspended);
+        stats.put("local_relevant", localRelevant);
+        stats.put("local_irrelevant", localIrrelevant);
+        stats.put("escalated", escalated);
+        stats.put("escalation_rate", decisions == 0 ? 0.0 : round((double) escalated / decisions));
+        stats.put("shadow_checks", shadowChecks);
+        stats.put("agreement_rate", shadowChecks == 0 ? 0.0 : round((double) shadowAgreed / shadowChecks));
+        stats.put("recent_agreement_rate", round(recentAgreement()));
+        stats.put("missed_relevant", missedRelevant);
+        stats.put("false_relevant", falseRelevant);
+        stats.put("progressive_accuracy", trainedThisRun == 0 ? 0.0 : round((double) trainingCorrect / trainedThisRun));
+        return stats;
+    }
+}
@@ -0,0 +1,310 @@
+package com.telegram_notifier.service;
+
+import com.telegram_notifier.config.AppProperties;
+import com.telegram_notifier.util.DurableKeyValueLog;
+import com.telegram_notifier.util.MinHasher;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Spots reposts of the same job before they reach Gemini.
+ * <p>
+ * Each post's text gets a 64-value {@link MinHasher} signature, which is split into 16 bands of
+ * 4 rows and indexed by band hash (LSH). A new post is only compared with recent posts that
+ * share at least one band, which makes posts with roughly 50%+ shingle overlap candidates, and
+ * is a duplicate if its estimated similarity reaches {@code app.dedup.similarity-threshold}. The
+ * index is a sliding window bounded by {@code window-size} posts and {@code window-hours}.
+ * <p>
+ * A post enters the window as pending and is only a settled original once {@link #acked} reports
+ * that it went through the pipeline; {@link #forget} drops an original that failed, so the next
+ * copy to arrive takes its place. Settled posts are written through to a
+ * {@link DurableKeyValueLog} under {@code app.state.dir}, so the window survives restarts.
+ */
+@Service
+public class NearDuplicateDetector {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(NearDuplicateDetector.class);
+
+    private static final int NUM_HASHES = 64;
+    private static final int BANDS = 16;
+    private static final int ROWS = NUM_HASHES / BANDS;
+    private static final int RECENT_DUPLICATES = 20;
+    private static final String WINDOW_FILE = "dedup-window.log";
+
+    /**
+     * The earlier post a duplicate was matched to
+     * @param originalAcked whether the original has been through the pipeline, or is still in it
+     */
+    public record Match(String originalPostId, double similarity, boolean originalAcked) {}
+
+    private final AppProperties properties;
+    private final MinHasher minHasher;
+
+    private final Deque<Entry> window = new ArrayDeque<>();
+    private final Map<String, Entry> byPostId = new HashMap<>();
+    private final Map<Long, Set<Entry>> buckets = new HashMap<>();
+
+    private long checked;
+    private long duplicates;
+    private long comparisons;
+    private final Deque<Map<String, Object>> recentDuplicates = new ArrayDeque<>();
+
+    // Null when the state directory is unusable; the window is then in-memory only
+    private DurableKeyValueLog store;
+
+    public NearDuplicateDetector(AppProperties properties) {
+        this.properties = properties;
+        this.minHasher = new MinHasher(NUM_HASHES, properties.getDedup().getShingleSize());
+    }
+
+    @PostConstruct
+    public synchronized void loadWindow() {
+        AppProperties.State state = properties.getState();
+        Path file = Paths.get(state.getDir(), WINDOW_FILE);
+        try {
+            store = new DurableKeyValueLog(file, false, state.getCompactionThreshold());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not open dedup window {} - it will not survive a restart", file, e);
+            return;
+        }
+
+        List<Entry> restored = new ArrayList<>();
+        store.snapshot().forEach((postId, value) -> {
+            try {
+                long[] signature = decode(value.substring(value.indexOf(',') + 1));
+                Instant addedAt = Instant.ofEpochMilli(Long.parseLong(value.substring(0, value.indexOf(','))));
+                if (signature.length != NUM_HASHES) throw new IllegalArgumentException("signature length " + signature.length);
+                Entry entry = new Entry(postId, signature, bandKeys(signature), addedAt);
+                entry.acked = true;
+                restored.add(entry);
+            } catch (RuntimeException e) {
+                log.warn("Ignoring unreadable dedup window entry for {}", postId);
+                store.remove(postId);
+            }
+        });
+        restored.sort(Comparator.comparing(entry -> entry.addedAt));
+        restored.forEach(this::add);
+        expire(Instant.now());
+        log.info("✅ Restored {} posts of the dedup window from {}", window.size(), file);
+    }
+
+    @PreDestroy
+    public synchronized void closeWindow() {
+        if (store == null) return;
+        try {
+            store.close();
+        } catch (IOException e) {
+            log.warn("Failed to close dedup window", e);
+        }
+        store = null;
+    }
+
+    /**
+     * Check a post against the window and remember it.
+     * @param postId stable id of the post (e.g. channel/123); a post never matches itself
+     * @return the best earlier match if this post is a near-duplicate, otherwise null
+     */
+    public synchronized Match check(String postId, String content) {
+        AppProperties.Dedup config = properties.getDedup();
+        if (!config.isEnabled()) return null;
+
+        long[] signature = minHasher.signature(content);
+        if (signature == null) return null;
+        checked++;
+        expire(Instant.now());
+
+        long[] bandKeys = bandKeys(signature);
+        Entry best = null;
+        double bestSimilarity = 0;
+        Set<Entry> seen = new HashSet<>();
+        for (long bandKey : bandKeys) {
+            for (Entry candidate : buckets.getOrDefault(bandKey, Set.of())) {
+                if (candidate.postId.equals(postId) || !seen.add(candidate)) continue;
+                comparisons++;
+                double similarity = MinHasher.similarity(signature, candidate.signature);
+                if (similarity > bestSimilarity) {
+                    bestSimilarity = similarity;
+                    best = candidate;
+                }
+            }
+        }
+
+        if (best != null && bestSimilarity >= config.getSimilarityThreshold()) {
+            duplicates++;
+            recordDuplicate(postId, best.postId, bestSimilarity);
+            log.info("♻️ Post {} is a near-duplicate of {} (similarity {})", postId, best.postId, round(bestSimilarity));
+            return new Match(best.postId, bestSimilarity, best.acked);
+        }
+
+        if (!byPostId.containsKey(postId)) {
+            add(new Entry(postId, signature, bandKeys, Instant.now()));
+        }
+        return null;
+    }
+
+    /**
+     * The post went through the pipeline: later copies of it can be skipped from now on
+     */
+    public synchronized void acked(String postId) {
+        Entry entry = byPostId.get(postId);
+        if (entry == null || entry.acked) return;
+        entry.acked = true;
+        if (store == null) return;
+        try {
+            store.put(postId, entry.addedAt.toEpochMilli() + "," + encode(entry.signature));
+        } catch (RuntimeException e) {
+            log.warn("Failed to persist dedup window entry {}", postId, e);
+        }
+    }
+
+    /**
+     * The post failed and will be redelivered: it no longer counts as an original
+     */
+    public synchronized void forget(String postId) {
+        Entry entry = byPostId.get(postId);
+        if (entry == null || entry.acked) return;
+        window.remove(entry);
+        remove(entry);
+    }
+
+    /**
+     * Whether the post is in the window and has been through the pipeline
+     */
+    public synchronized boolean isAcked(String postId) {
+        Entry entry = byPostId.get(postId);
+        return entry != null && entry.acked;
+    }
+
+    private long[] bandKeys(long[] signature) {
+        long[] keys = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long hash = 0xcbf29ce484222325L ^ band;
+            for (int row = 0; row < ROWS; row++) {
+                hash = (hash ^ signature[band * ROWS + row]) * 0x100000001b3L;
+            }
+            keys[band] = hash;
+        }
+        return keys;
+    }
+
+    private void add(Entry entry) {
+        window.addLast(entry);
+        byPostId.put(entry.postId, entry);
+        for (long bandKey : entry.bandKeys) {
+            buckets.computeIfAbsent(bandKey, k -> new HashSet<>()).add(entry);
+        }
+        while (window.size() > properties.getDedup().getWindowSize()) {
+            remove(window.pollFirst());
+        }
+    }
+
+    private void expire(Instant now) {
+        Instant cutoff = now.minus(Duration.ofHours(properties.getDedup().getWindowHours()));
+        while (!window.isEmpty() && window.peekFirst().addedAt.isBefore(cutoff)) {
+            remove(window.pollFirst());
+        }
+    }
+
+    private void remove(Entry entry) {
+        byPostId.remove(entry.postId);
+        if (entry.acked && store != null) {
+            try {
+                store.remove(entry.postId);
+            } catch (RuntimeException e) {
+                log.warn("Failed to drop dedup window entry {}", entry.postId, e);
+            }
+        }
+        for (long bandKey : entry.bandKeys) {
+            Set<Entry> bucket = buckets.get(bandKey);
+            if (bucket != null) {
+                bucket.remove(entry);
+                if (bucket.isEmpty()) buckets.remove(bandKey);
+            }
+        }
+    }
+
+    private void recordDuplicate(String postId, String originalPostId, double similarity) {
+        Map<String, Object> duplicate = new LinkedHashMap<>();
+        duplicate.put("post", postId);
+        duplicate.put("original", originalPostId);
+        duplicate.put("similarity", round(similarity));
+        duplicate.put("at", Instant.now().toString());
+        recentDuplicates.addFirst(duplicate);
+        while (recentDuplicates.size() > RECENT_DUPLICATES) {
+            recentDuplicates.pollLast();
+        }
+    }
+
+    private static String encode(long[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(signature.length * Long.BYTES);
+        for (long value : signature) buffer.putLong(value);
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    private static long[] decode(String encoded) {
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(encoded));
+        long[] signature = new long[buffer.remaining() / Long.BYTES];
+        for (int i = 0; i < signature.length; i++) signature[i] = buffer.getLong();
+        return signature;
+    }
+
+    private double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.getDedup().isEnabled());
+        stats.put("similarity_threshold", properties.getDedup().getSimilarityThreshold());
+        stats.put("checked", checked);
+        stats.put("duplicates", duplicates);
+        stats.put("duplicate_rate", checked == 0 ? 0.0 : round((double) duplicates / checked));
+        stats.put("candidate_comparisons", comparisons);
+        stats.put("window_posts", window.size());
+        stats.put("window_pending", window.stream().filter(entry -> !entry.acked).count());
+        stats.put("lsh_buckets", buckets.size());
+        stats.put("recent_duplicates", new ArrayList<>(recentDuplicates));
+        return stats;
+    }
+
+    public synchronized void reset() {
+        window.clear();
+        byPostId.clear();
+        buckets.clear();
+        if (store != null) store.clear();
+    }
+
+    private static final class Entry {
+        private final String postId;
+        private final long[] signature;
+        private final long[] bandKeys;
+        private final Instant addedAt;
+        private boolean acked;
+
+        private Entry(String postId, long[] signature, long[] bandKeys, Instant addedAt) {
+            this.postId = postId;
+            this.signature = signature;
+            this.bandKeys = bandKeys;
+            this.addedAt = addedAt;
+        }
+    }
+}
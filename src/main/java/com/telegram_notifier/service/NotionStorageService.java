@@ -1,32 +1,46 @@
 package com.telegram_notifier.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.telegram_notifier.config.AppProperties;
+import com.telegram_notifier.config.WebClientFactory;
 import com.telegram_notifier.model.JobDetails;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
 
 import jakarta.annotation.PostConstruct;
+import java.time.Duration;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Service
-public class NotionStorageService {
+public class NotionStorageService implements StorageBackend {
 
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(NotionStorageService.class);
 
     private final AppProperties properties;
     private final ObjectMapper objectMapper;
+    private final WebClientFactory webClientFactory;
+    private final HealthProbeService healthProbes;
     private WebClient webClient;
+    private Mono<Boolean> jobIdColumn;
+
+    // How long a read of the database schema is trusted, so a column added later is picked up
+    private static final Duration SCHEMA_TTL = Duration.ofHours(1);
 
     @Autowired
-    public NotionStorageService(AppProperties properties) {
+    public NotionStorageService(AppProperties properties, WebClientFactory webClientFactory,
+                                HealthProbeService healthProbes) {
         this.properties = properties;
+        this.webClientFactory = webClientFactory;
+        this.healthProbes = healthProbes;
         this.objectMapper = new ObjectMapper();
     }
 
@@ -34,59 +48,194 @@ public class NotionStorageService {
     public void initializeNotionClient() {
         log.info("Initializing Notion API client...");
         
-        this.webClient = WebClient.builder()
+        this.webClient = webClientFactory
+            .builder("notion", "https://api.notion.com",
+                    Duration.ofSeconds(properties.getHttp().getNotionTimeoutSeconds()),
+                    2 * 1024 * 1024)
             .baseUrl("https://api.notion.com/v1")
             .defaultHeader("Authorization", "Bearer " + properties.getNotion().getIntegrationToken())
             .defaultHeader("Notion-Version", properties.getNotion().getVersion())
             .defaultHeader("Content-Type", "application/json")
-            .codecs(clientCodecConfigurer -> 
-                clientCodecConfigurer.defaultCodecs().maxInMemorySize(2 * 1024 * 1024))
             .build();
-            
+
+        jobIdColumn = readJobIdColumn().cache(found -> SCHEMA_TTL, error -> Duration.ZERO, () -> Duration.ZERO);
+        healthProbes.register("notion", this::probeDatabase);
         log.info("Notion API client initialized successfully");
     }
 
-    public void saveJob(JobDetails jobDetails) {
-        saveJob(jobDetails, null);
+    @Override
+    public String name() {
+        return "notion";
+    }
+
+    public String saveJob(JobDetails jobDetails) {
+        return saveJob(jobDetails, null);
     }
     
-    public void saveJob(JobDetails jobDetails, String resumeLink) {
-        try {
-            log.info("💾 Saving job to Notion: {} - {}", jobDetails.getCompany(), jobDetails.getRole());
-            if (resumeLink != null) {
-                log.info("🔗 Including resume link: {}", resumeLink);
-            }
-            
-            // Create JSON payload for Notion API
-            ObjectNode payload = createNotionPayload(jobDetails, resumeLink);
-            
-            // Send POST request to Notion API
-            String response = webClient
-                .post()
-                .uri("/pages")
-                .bodyValue(payload)
-                .retrieve()
-                .bodyToMono(String.class)
-                .block();
-            
-            log.info("✅ Successfully saved job to Notion: {} - {}", 
-                    jobDetails.getCompany(), jobDetails.getRole());
-            log.debug("Notion API response: {}", response);
-            
-        } catch (WebClientResponseException e) {
-            log.error("❌ Notion API error ({}): {}", e.getStatusCode(), e.getResponseBodyAsString());
-            throw new RuntimeException("Failed to save job to Notion: " + e.getMessage(), e);
-        } catch (Exception e) {
-            log.error("❌ Error saving job to Notion", e);
-            throw new RuntimeException("Failed to save job to Notion: " + e.getMessage(), e);
-        }
+    /**
+     * @return id of the created Notion page
+     */
+    public String saveJob(JobDetails jobDetails, String resumeLink) {
+        return saveJobAsync(jobDetails, resumeLink).block();
     }
 
-    private ObjectNode createNotionPayload(JobDetails jobDetails) {
-        return createNotionPayload(jobDetails, null);
+    /**
+     * Non-blocking {@link #saveJob(JobDetails, String)}: emits the id of the created page, or
+     * fails with a RuntimeException if Notion rejects it
+     */
+    @Override
+    public Mono<String> saveJobAsync(JobDetails jobDetails, String resumeLink) {
+        return createPage(jobDetails, resumeLink, null);
     }
-    
-    private ObjectNode createNotionPayload(JobDetails jobDetails, String resumeLink) {
+
+    /**
+     * {@link #saveJobAsync} that also stores the local job id, if the database has the job id column
+     */
+    @Override
+    public Mono<String> saveCopyAsync(String localId, JobDetails jobDetails, String resumeLink) {
+        return jobIdColumn.flatMap(usable -> createPage(jobDetails, resumeLink, usable ? localId : null));
+    }
+
+    private Mono<String> createPage(JobDetails jobDetails, String resumeLink, String localId) {
+        return Mono.defer(() -> {
+                    log.info("💾 Saving job to Notion: {} - {}", jobDetails.getCompany(), jobDetails.getRole());
+                    if (resumeLink != null) {
+                        log.info("🔗 Including resume link: {}", resumeLink);
+                    }
+
+                    // Create JSON payload for Notion API
+                    ObjectNode payload = createNotionPayload(jobDetails, resumeLink, localId);
+
+                    // Send POST request to Notion API
+                    return webClient
+                        .post()
+                        .uri("/pages")
+                        .bodyValue(payload)
+                        .retrieve()
+                        .bodyToMono(String.class);
+                })
+                .<String>handle((response, sink) -> {
+                    log.debug("Notion API response: {}", response);
+                    try {
+                        String pageId = objectMapper.readTree(response).path("id").asText(null);
+                        if (pageId == null) {
+                            sink.error(new IllegalStateException("Notion response has no page id"));
+                            return;
+                        }
+                        log.info("✅ Successfully saved job to Notion: {} - {} (page {})",
+                                jobDetails.getCompany(), jobDetails.getRole(), pageId);
+                        sink.next(pageId);
+                    } catch (JsonProcessingException e) {
+                        sink.error(e);
+                    }
+                })
+                .onErrorMap(e -> {
+                    if (e instanceof WebClientResponseException responseException) {
+                        log.error("❌ Notion API error ({}): {}", responseException.getStatusCode(), responseException.getResponseBodyAsString());
+                    } else {
+                        log.error("❌ Error saving job to Notion", e);
+                    }
+                    return new RuntimeException("Failed to save job to Notion: " + e.getMessage(), e);
+                });
+    }
+
+    /**
+     * Set the "Resume Link" of an existing job page
+     */
+    @Override
+    public Mono<Void> updateResumeLinkAsync(String pageId, String resumeLink) {
+        return Mono.defer(() -> {
+                    ObjectNode resumeProp = objectMapper.createObjectNode();
+                    resumeProp.put("url", resumeLink);
+                    ObjectNode properties = objectMapper.createObjectNode();
+                    properties.set("Resume Link", resumeProp);
+                    ObjectNode payload = objectMapper.createObjectNode();
+                    payload.set("properties", properties);
+
+                    return webClient
+                        .patch()
+                        .uri("/pages/{page_id}", pageId)
+                        .bodyValue(payload)
+                        .retrieve()
+                        .bodyToMono(String.class);
+                })
+                .doOnNext(response -> log.info("🔗 Resume link added to Notion page {}", pageId))
+                .onErrorMap(e -> {
+                    if (e instanceof WebClientResponseException responseException) {
+                        log.error("❌ Notion API error ({}) updating page {}: {}", responseException.getStatusCode(), pageId, responseException.getResponseBodyAsString());
+                    }
+                    return new RuntimeException("Failed to update resume link on Notion page " + pageId + ": " + e.getMessage(), e);
+                })
+                .then();
+    }
+
+    /**
+     * Page whose job id property is exactly {@code localId}; empty if the database has no job id column
+     */
+    @Override
+    public Mono<String> findSavedJobAsync(String localId) {
+        if (localId == null) return Mono.empty();
+        return jobIdColumn
+            .filter(Boolean::booleanValue)
+            .flatMap(usable -> {
+                ObjectNode query = objectMapper.createObjectNode();
+                query.set("filter", filter(jobIdProperty(), "rich_text", localId));
+                query.put("page_size", 1);
+                return webClient
+                    .post()
+                    .uri("/databases/{database_id}/query", properties.getNotion().getDatabaseId())
+                    .bodyValue(query)
+                    .retrieve()
+                    .bodyToMono(String.class);
+            })
+            .<String>handle((response, sink) -> {
+                try {
+                    String pageId = objectMapper.readTree(response).path("results").path(0).path("id").asText(null);
+                    if (pageId != null) sink.next(pageId);
+                } catch (JsonProcessingException e) {
+                    sink.error(e);
+                }
+            });
+    }
+
+    private String jobIdProperty() {
+        return properties.getNotion().getJobIdProperty().trim();
+    }
+
+    /**
+     * Whether the database has the configured job id column as a text property. Writing a property
+     * the database lacks would fail every create, so copies only carry the id when it does.
+     */
+    private Mono<Boolean> readJobIdColumn() {
+        if (jobIdProperty().isEmpty()) return Mono.just(false);
+        return webClient
+            .get()
+            .uri("/databases/{database_id}", properties.getNotion().getDatabaseId())
+            .retrieve()
+            .bodyToMono(String.class)
+            .handle((response, sink) -> {
+                try {
+                    JsonNode column = objectMapper.readTree(response).path("properties").path(jobIdProperty());
+                    boolean usable = "rich_text".equals(column.path("type").asText());
+                    if (!usable) {
+                        log.warn("⚠️ Notion database has no '{}' text column; copies retried after a failure may be saved twice",
+                                jobIdProperty());
+                    }
+                    sink.next(usable);
+                } catch (JsonProcessingException e) {
+                    sink.error(e);
+                }
+            });
+    }
+
+    private ObjectNode filter(String property, String type, String value) {
+        ObjectNode condition = objectMapper.createObjectNode();
+        condition.put("property", property);
+        condition.set(type, objectMapper.createObjectNode().put("equals", value));
+        return condition;
+    }
+
+    private ObjectNode createNotionPayload(JobDetails jobDetails, String resumeLink, String localId) {
         ObjectNode payload = objectMapper.createObjectNode();
         
         // Set parent database
@@ -161,6 +310,11 @@ public class NotionStorageService {
             properties.set("Resume Link", resumeProp);
         }
         
+        // Job ID (Rich text): the local job id, which findSavedJobAsync matches on
+        if (localId != null) {
+            properties.set(jobIdProperty(), createRichTextProperty(localId));
+        }
+        
         payload.set("properties", properties);
         
         return payload;
@@ -176,6 +330,7 @@ public class NotionStorageService {
         return richTextProp;
     }
 
+    @Override
     public void createHeaders() {
         log.info("📋 Notion database should already have the required columns:");
         log.info("   - Company (Title)");
@@ -187,9 +342,14 @@ public class NotionStorageService {
         log.info("   - Posted Date (Date)");
         log.info("   - Raw Snippet (Text)");
         log.info("   - Resume Link (URL) - NEW for resume generation");
+        if (!jobIdProperty().isEmpty()) {
+            log.info("   - {} (Text) - optional, local job id so retried copies do not create duplicate pages",
+                    jobIdProperty());
+        }
         log.info("✅ If columns are missing, add them to your Notion database");
     }
 
+    @Override
     public String getStorageInfo() {
         return String.format("Notion Database: %s (Integration: %s...)", 
                            properties.getNotion().getDatabaseId(),
@@ -236,6 +396,29 @@ public class NotionStorageService {
         return result;
     }
 
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("database_id", properties.getNotion().getDatabaseId());
+        stats.put("connection", healthProbes.describe("notion"));
+        return stats;
+    }
+
+    /**
+     * Health probe: query one row of the database, which checks both the token and database access
+     */
+    private Mono<String> probeDatabase() {
+        ObjectNode query = objectMapper.createObjectNode();
+        query.put("page_size", 1);
+        return webClient
+            .post()
+            .uri("/databases/{database_id}/query", properties.getNotion().getDatabaseId())
+            .bodyValue(query)
+            .retrieve()
+            .toBodilessEntity()
+            .map(response -> "database query " + response.getStatusCode().value());
+    }
+
     @Override
     public String toString() {
         return getStorageInfo();
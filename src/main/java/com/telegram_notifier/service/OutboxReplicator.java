@@ -0,0 +1,246 @@
+package com.telegram_notifier.service;
+
+import com.telegram_notifier.config.AppProperties;
+import com.telegram_notifier.service.SqliteStorageBackend.OutboxEntry;
+import com.telegram_notifier.service.SqliteStorageBackend.OutboxSummary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the SQLite outbox to the storage sinks.
+ * <p>
+ * Every {@code app.storage.outbox.poll-interval-millis} (and right after each save) due entries are
+ * read oldest first, at most one per job and sink so a resume link never overtakes its create.
+ * Every request to a sink (a lookup, a create or an update) waits for the next free slot of that
+ * sink's {@code requests-per-second} budget, and at most {@code concurrency} entries per sink are in
+ * flight. A delivered entry is deleted together with the id the sink
+ * assigned; a failed one is rescheduled with a doubling backoff, or after Retry-After on a 429,
+ * which also pauses the whole sink. An entry the sink rejects with any other 4xx would fail the
+ * same way forever, so it is parked instead (and so are the later entries of its job) until the
+ * next start, when parked entries are retried. Entries are never dropped.
+ * <p>
+ * Creates are idempotent: the sink stores the local job id with its copy (Notion in the
+ * {@code app.notion.job-id-property} column), and before every create it is asked for a copy under
+ * that id, since an earlier attempt may have reached the sink before the process failed or stopped.
+ * A sink that cannot store the id answers without a request.
+ */
+@Service
+public class OutboxReplicator {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(OutboxReplicator.class);
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final AppProperties properties;
+    private final SqliteStorageBackend localStore;
+    private volatile Map<String, StorageBackend> sinks = Map.of();
+    private final Map<String, Long> pausedUntil = new ConcurrentHashMap<>();
+    private final Map<String, Long> nextRequestNanos = new ConcurrentHashMap<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile OutboxSummary summary = new OutboxSummary(0, 0, 0, 0);
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong parked = new AtomicLong();
+    private volatile long lastDeliveryLagMillis;
+
+    public OutboxReplicator(AppProperties properties, SqliteStorageBackend localStore) {
+        this.properties = properties;
+        this.localStore = localStore;
+    }
+
+    /**
+     * Start replicating to these sinks (replaces any earlier set), retrying entries parked before
+     */
+    public void start(Collection<StorageBackend> sinks) {
+        this.sinks = sinks.stream().collect(Collectors.toUnmodifiableMap(StorageBackend::name, sink -> sink));
+        if (!sinks.isEmpty()) {
+            localStore.releaseParkedOutboxEntries().subscribe(null,
+                    e -> log.warn("Could not release parked outbox entries", e));
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.storage.outbox.poll-interval-millis:1000}",
+            fixedDelayString = "${app.storage.outbox.poll-interval-millis:1000}")
+    public void poll() {
+        drain();
+    }
+
+    /**
+     * Deliver the entries that are due now, in the background (no-op while a drain is running)
+     */
+    public void drain() {
+        if (sinks.isEmpty() || !draining.compareAndSet(false, true)) return;
+        AppProperties.Outbox config = properties.getStorage().getOutbox();
+
+        localStore.findDueOutboxEntries(System.currentTimeMillis(), config.getBatchSize())
+                .flatMapMany(entries -> Flux.fromIterable(entries.stream()
+                        .filter(entry -> sinks.containsKey(entry.sink()))
+                        .collect(Collectors.groupingBy(OutboxEntry::sink))
+                        .entrySet()))
+                .flatMap(group -> replicate(sinks.get(group.getKey()), group.getValue(), config))
+                .then(localStore.summarizeOutbox())
+                .doFinally(signal -> draining.set(false))
+                .subscribe(
+                        latest -> summary = latest,
+                        e -> log.error("❌ Outbox drain failed", e));
+    }
+
+    private Mono<Void> replicate(StorageBackend sink, List<OutboxEntry> entries, AppProperties.Outbox config) {
+        return Flux.fromIterable(entries)
+                .flatMap(entry -> deliver(sink, entry, config), Math.max(1, config.getConcurrency()))
+                .then();
+    }
+
+    private Mono<Void> deliver(StorageBackend sink, OutboxEntry entry, AppProperties.Outbox config) {
+        // Left due; the next poll after the pause picks it up
+        if (System.currentTimeMillis() < pausedUntil.getOrDefault(sink.name(), 0L)) return Mono.empty();
+
+        Mono<String> delivery = SqliteStorageBackend.OUTBOX_CREATE.equals(entry.kind())
+                ? create(sink, entry)
+                : sendResumeLink(sink, entry).then(Mono.<String>empty());
+        return delivery
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(sinkId -> localStore.completeOutboxEntry(entry, sinkId.orElse(null)))
+                .doOnSuccess(ignored -> {
+                    delivered.incrementAndGet();
+                    lastDeliveryLagMillis = System.currentTimeMillis() - entry.createdAt();
+                    log.debug("💾 Replicated {} of job {} to {}", entry.kind(), entry.jobId(), sink.name());
+                })
+                .onErrorResume(e -> retryLater(sink, entry, e, config));
+    }
+
+    /**
+     * @return the sink's id for the job
+     */
+    private Mono<String> create(StorageBackend sink, OutboxEntry entry) {
+        return localStore.findJob(entry.jobId())
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("job " + entry.jobId() + " is not in the local store")))
+                .flatMap(job -> {
+                    // Also on the first attempt: an earlier run may have stopped before recording the delivery
+                    Mono<String> existing = paced(sink, () -> sink.findSavedJobAsync(entry.jobId()))
+                            .doOnNext(sinkId -> deduplicated.incrementAndGet());
+                    return existing.switchIfEmpty(paced(sink, () -> sink.saveCopyAsync(entry.jobId(), job.jobDetails(), job.resumeLink())));
+                });
+    }
+
+    /**
+     * Send the job's current resume link, so queued updates of one job collapse to the latest value
+     */
+    private Mono<Void> sendResumeLink(StorageBackend sink, OutboxEntry entry) {
+        return localStore.findSinkId(entry.jobId(), sink.name())
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("job " + entry.jobId() + " has no " + sink.name() + " id")))
+                .zipWith(localStore.findJob(entry.jobId()))
+                .flatMap(found -> paced(sink, () -> sink.updateResumeLinkAsync(found.getT1(), found.getT2().resumeLink())));
+    }
+
+    /**
+     * Start a sink request in the sink's next free slot; slots are reserved at subscription time
+     */
+    private <T> Mono<T> paced(StorageBackend sink, Supplier<Mono<T>> request) {
+        return Mono.defer(() -> {
+            long spacing = (long) (1_000_000_000L / Math.max(0.01, properties.getStorage().getOutbox().getRequestsPerSecond()));
+            long now = System.nanoTime();
+            long next = nextRequestNanos.merge(sink.name(), now + spacing, (reserved, ignored) -> Math.max(reserved, now) + spacing);
+            long waitNanos = next - spacing - now;
+            return waitNanos <= 0 ? Mono.defer(request) : Mono.delay(Duration.ofNanos(waitNanos)).then(Mono.defer(request));
+        });
+    }
+
+    private Mono<Void> retryLater(StorageBackend sink, OutboxEntry entry, Throwable e, AppProperties.Outbox config) {
+        int attempts = entry.attempts() + 1;
+        failedAttempts.incrementAndGet();
+        Duration delay = Duration.ofSeconds(config.getBaseBackoffSeconds()).multipliedBy(1L << Math.min(attempts - 1, 20));
+        if (delay.toSeconds() > config.getMaxBackoffSeconds()) delay = Duration.ofSeconds(config.getMaxBackoffSeconds());
+
+        String error = String.valueOf(e.getMessage());
+        if (error.length() > MAX_ERROR_LENGTH) error = error.substring(0, MAX_ERROR_LENGTH);
+
+        WebClientResponseException response = responseException(e);
+        if (response != null && isPermanent(response.getStatusCode().value())) {
+            parked.incrementAndGet();
+            log.error("❌ {} rejected {} of job {} ({}), parking it until the next start: {}",
+                    sink.name(), entry.kind(), entry.jobId(), response.getStatusCode(), response.getResponseBodyAsString());
+            return localStore.parkOutboxEntry(entry, attempts, error)
+                    .onErrorResume(parkError -> {
+                        log.error("❌ Could not park outbox entry {}", entry.seq(), parkError);
+                        return Mono.empty();
+                    });
+        }
+        if (response != null && response.getStatusCode().value() == 429) {
+            rateLimited.incrementAndGet();
+            delay = retryAfter(response, delay);
+            pausedUntil.put(sink.name(), System.currentTimeMillis() + delay.toMillis());
+        }
+
+        log.warn("⚠️ Replicating {} of job {} to {} failed (attempt {}), retrying in {} s: {}",
+                entry.kind(), entry.jobId(), sink.name(), attempts, delay.toSeconds(), e.getMessage());
+        return localStore.rescheduleOutboxEntry(entry, attempts, System.currentTimeMillis() + delay.toMillis(), error)
+                .onErrorResume(rescheduleError -> {
+                    log.error("❌ Could not reschedule outbox entry {}", entry.seq(), rescheduleError);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * A 4xx that retrying cannot fix; 408, 409 (Notion's conflict on concurrent edits) and 429 are transient
+     */
+    private static boolean isPermanent(int status) {
+        return status >= 400 && status < 500 && status != 408 && status != 409 && status != 429;
+    }
+
+    private static WebClientResponseException responseException(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof WebClientResponseException responseException) return responseException;
+        }
+        return null;
+    }
+
+    /**
+     * Retry-After in seconds if the response has one, otherwise the fallback
+     */
+    private static Duration retryAfter(WebClientResponseException response, Duration fallback) {
+        String header = response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+        try {
+            return header != null ? Duration.ofSeconds(Math.max(1, (long) Double.parseDouble(header.trim()))) : fallback;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        OutboxSummary latest = summary;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sinks", sinks.keySet());
+        stats.put("depth", latest.depth());
+        stats.put("retrying", latest.retrying());
+        stats.put("parked", latest.parked());
+        stats.put("lag_seconds", latest.oldestCreatedAt() == 0 ? 0 : (System.currentTimeMillis() - latest.oldestCreatedAt()) / 1000);
+        stats.put("last_delivery_lag_ms", lastDeliveryLagMillis);
+        stats.put("delivered", delivered.get());
+        stats.put("failed_attempts", failedAttempts.get());
+        stats.put("rate_limited", rateLimited.get());
+        stats.put("deduplicated", deduplicated.get());
+        stats.put("parked_entries", parked.get());
+        return stats;
+    }
+}
@@ -0,0 +1,141 @@
+package com.telegram_notifier.service;
+
+import com.telegram_notifier.config.AppProperties;
+import com.telegram_notifier.util.DurableKeyValueLog;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compiled PDFs keyed by the SHA-256 of their LaTeX source.
+ * <p>
+ * PDFs are files under {@code pdf-cache/} in {@code app.state.dir}; a {@link DurableKeyValueLog}
+ * maps each LaTeX hash to its file, in insertion order, so the store is capped at
+ * {@code app.latex.cache-max-entries} by deleting the oldest PDFs. A missing or unreadable file
+ * is treated as a miss.
+ */
+@Service
+public class PdfCache {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(PdfCache.class);
+
+    private static final String CACHE_DIR = "pdf-cache";
+    private static final String INDEX_FILE = "index.log";
+
+    private final AppProperties properties;
+    private Path dir;
+    private DurableKeyValueLog index;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public PdfCache(AppProperties properties) {
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!properties.getLatex().isCacheEnabled()) return;
+        dir = Paths.get(properties.getState().getDir(), CACHE_DIR);
+        try {
+            Files.createDirectories(dir);
+            index = new DurableKeyValueLog(dir.resolve(INDEX_FILE), false, properties.getState().getCompactionThreshold());
+            log.info("✅ PDF cache loaded {} entries from {}", index.size(), dir);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not open PDF cache {} - compiling every document", dir, e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (index == null) return;
+        try {
+            index.close();
+        } catch (IOException e) {
+            log.warn("Failed to close PDF cache index", e);
+        }
+    }
+
+    /**
+     * Cached PDF for this exact LaTeX source, or null
+     */
+    public byte[] get(String latexContent) {
+        if (index == null) return null;
+        String key = sha256(latexContent.getBytes(StandardCharsets.UTF_8));
+        String fileName = index.get(key);
+        if (fileName != null) {
+            try {
+                byte[] pdfBytes = Files.readAllBytes(dir.resolve(fileName));
+                hits.incrementAndGet();
+                return pdfBytes;
+            } catch (NoSuchFileException e) {
+                index.remove(key);
+            } catch (IOException e) {
+                log.warn("Failed to read cached PDF {}", fileName, e);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String latexContent, byte[] pdfBytes) {
+        if (index == null || pdfBytes == null) return;
+        String key = sha256(latexContent.getBytes(StandardCharsets.UTF_8));
+        String fileName = key + ".pdf";
+        try {
+            Path tmp = dir.resolve(fileName + ".tmp");
+            Files.write(tmp, pdfBytes);
+            Files.move(tmp, dir.resolve(fileName), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            index.put(key, fileName);
+            evict();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to cache compiled PDF", e);
+        }
+    }
+
+    private void evict() throws IOException {
+        int max = properties.getLatex().getCacheMaxEntries();
+        while (index.size() > max) {
+            String oldest = index.oldestKey();
+            String fileName = index.get(oldest);
+            index.remove(oldest);
+            Files.deleteIfExists(dir.resolve(fileName));
+            evictions.incrementAndGet();
+        }
+    }
+
+    static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long lookups = hits.get() + misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", index != null);
+        stats.put("entries", index != null ? index.size() : 0);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("hit_rate", lookups == 0 ? 0.0 : Math.round(hits.get() * 1000.0 / lookups) / 1000.0);
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+}
@@ -0,0 +1,144 @@
+package com.telegram_notifier.service;
+
+import com.telegram_notifier.config.AppProperties;
+import com.telegram_notifier.config.WebClientFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compiles LaTeX with the YToTech online service ({@code latex.ytotech.com}).
+ * Availability is judged from the outcome of real compilations, never by compiling a probe document;
+ * reachability of the host is checked separately by a background health probe.
+ */
+@Service
+public class RemoteLatexCompiler implements LatexCompiler {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(RemoteLatexCompiler.class);
+
+    // LaTeX compilation service endpoint
+    private static final String LATEX_SERVICE_URL = "https://latex.ytotech.com/builds/sync";
+    private static final String LATEX_SERVICE_HOST = "https://latex.ytotech.com";
+
+    private static final String HEALTH_PROBE = "latex_remote";
+
+    private final WebClient webClient;
+    private final HealthProbeService healthProbes;
+
+    private final AtomicLong compiles = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+    private volatile Instant lastSuccess;
+    private volatile Instant lastFailure;
+
+    public RemoteLatexCompiler(AppProperties properties, WebClientFactory webClientFactory,
+                               HealthProbeService healthProbes) {
+        this.healthProbes = healthProbes;
+        this.webClient = webClientFactory
+            .builder("latex", LATEX_SERVICE_HOST,
+                    Duration.ofSeconds(properties.getHttp().getLatexTimeoutSeconds()),
+                    10 * 1024 * 1024) // 10MB for PDF files
+            .build();
+        healthProbes.register(HEALTH_PROBE, this::probeHost);
+    }
+
+    /**
+     * Health probe: a plain GET of the host. Any non-5xx answer means the service is reachable;
+     * compiling a probe document would cost far more than the check is worth.
+     */
+    private Mono<String> probeHost() {
+        return webClient.get()
+            .uri(LATEX_SERVICE_HOST)
+            .exchangeToMono(response -> response.statusCode().is5xxServerError()
+                ? Mono.error(new IllegalStateException("HTTP " + response.statusCode().value()))
+                : response.releaseBody().thenReturn("HTTP " + response.statusCode().value()));
+    }
+
+    @Override
+    public String name() {
+        return "remote";
+    }
+
+    /**
+     * False only while the most recent compilation failed
+     */
+    @Override
+    public boolean isAvailable() {
+        Instant failure = lastFailure;
+        Instant success = lastSuccess;
+        return failure == null || (success != null && success.isAfter(failure));
+    }
+
+    /**
+     * Compile LaTeX content using YToTech service
+     * @param latexContent LaTeX content to compile
+     * @return PDF bytes; errors if the service fails or returns something other than a PDF
+     */
+    @Override
+    public Mono<byte[]> compile(String latexContent) {
+        // YToTech structured API format
+        Map<String, Object> resource = Map.of(
+            "main", true,
+            "content", latexContent
+        );
+        Map<String, Object> jsonBody = Map.of(
+            "compiler", "pdflatex",
+            "resources", List.of(resource)
+        );
+
+        log.debug("Sending LaTeX compilation request to YToTech service...");
+        long start = System.nanoTime();
+
+        return webClient.post()
+            .uri(LATEX_SERVICE_URL)
+            .header("Content-Type", "application/json")
+            .body(BodyInserters.fromValue(jsonBody))
+            .retrieve()
+            .bodyToMono(byte[].class)
+            .<byte[]>handle((responseBytes, sink) -> {
+                // Validate that we received a valid PDF
+                if (LatexCompiler.isPdf(responseBytes)) {
+                    sink.next(responseBytes);
+                    return;
+                }
+                String responseText = new String(responseBytes, StandardCharsets.UTF_8);
+                log.warn("YToTech service returned non-PDF content. Response: {}",
+                        responseText.length() > 200 ? responseText.substring(0, 200) + "..." : responseText);
+                sink.error(new RuntimeException("Service returned non-PDF content (likely HTML error page)"));
+            })
+            .doOnNext(pdfBytes -> lastSuccess = Instant.now())
+            .onErrorMap(e -> {
+                failures.incrementAndGet();
+                lastFailure = Instant.now();
+                log.error("🚨 YToTech LaTeX compilation failed: {}", e.getMessage());
+                return new RuntimeException("YToTech service error: " + e.getMessage(), e);
+            })
+            .doFinally(signal -> {
+                compiles.incrementAndGet();
+                busyNanos.addAndGet(System.nanoTime() - start);
+            });
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        long count = compiles.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("available", isAvailable());
+        stats.put("compiles", count);
+        stats.put("failures", failures.get());
+        stats.put("avg_compile_ms", count == 0 ? 0 : busyNanos.get() / count / 1_000_000);
+        stats.put("last_success", lastSuccess != null ? lastSuccess.toString() : null);
+        stats.put("last_failure", lastFailure != null ? lastFailure.toString() : null);
+        stats.put("probe", healthProbes.describe(HEALTH_PROBE));
+        return stats;
+    }
+}
@@ -1,18 +1,33 @@
 package com.telegram_notifier.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.telegram_notifier.config.AppProperties;
 import com.telegram_notifier.model.JobDetails;
+import com.telegram_notifier.util.LatexLinter;
+import com.telegram_notifier.util.ResumeTemplate;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.BodyInserters;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
 
 import jakarta.annotation.PostConstruct;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class ResumeGenerationService {
@@ -22,17 +37,41 @@ public class ResumeGenerationService {
     private final AppProperties properties;
     private final LatexCompilationService latexCompilationService;
     private final CloudinaryService cloudinaryService;
-    private final WebClient webClient;
+    private final GeminiClient geminiClient;
     
+    private static final Map<String, Object> REPLACEMENTS_SCHEMA = Map.of(
+        "type", "ARRAY",
+        "items", GeminiClient.objectSchema(Map.of("id", "STRING", "text", "STRING"), List.of("id", "text"))
+    );
+    // A rewritten fragment may be at most this much longer than the original (plus a few words)
+    private static final double MAX_GROWTH = 1.5;
+    private static final int RECENT_REJECTIONS = 20;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
     private String resumeTemplate;
+    private ResumeTemplate template;
+    private int maxLines; // Estimated body lines a generated resume may have (0 = unchecked)
+
+    private final AtomicLong customizations = new AtomicLong();
+    private final AtomicLong replacementsApplied = new AtomicLong();
+    private final AtomicLong replacementsRejected = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong unreadableResponses = new AtomicLong();
+    private final AtomicLong lintRepairs = new AtomicLong();
+    private final Map<String, Long> rejectionReasons = new ConcurrentHashMap<>();
+    private final Deque<Map<String, Object>> recentRejections = new ArrayDeque<>();
+    private final AtomicLong outputTokens = new AtomicLong();
+    private final AtomicLong outputChars = new AtomicLong();
+    private final AtomicLong customizeNanos = new AtomicLong();
     
     public ResumeGenerationService(AppProperties properties, 
                                  LatexCompilationService latexCompilationService,
-                                 CloudinaryService cloudinaryService) {
+                                 CloudinaryService cloudinaryService,
+                                 GeminiClient geminiClient) {
         this.properties = properties;
         this.latexCompilationService = latexCompilationService;
         this.cloudinaryService = cloudinaryService;
-        this.webClient = WebClient.builder().build();
+        this.geminiClient = geminiClient;
     }
     
     @PostConstruct
@@ -40,7 +79,15 @@ public class ResumeGenerationService {
         try {
             Resource resource = new ClassPathResource(properties.getResume().getTemplatePath());
             this.resumeTemplate = resource.getContentAsString(StandardCharsets.UTF_8);
-            log.info("✅ Resume template loaded successfully from {}", properties.getResume().getTemplatePath());
+            this.template = ResumeTemplate.parse(resumeTemplate);
+            log.info("✅ Resume template loaded successfully from {} ({} editable fragments)",
+                    properties.getResume().getTemplatePath(), template.fragments().size());
+            LatexLinter.Result templateLint = latexCompilationService.lint(resumeTemplate, 0);
+            if (!templateLint.isValid()) {
+                log.warn("⚠️ Resume template does not pass the LaTeX lint: {}", templateLint.errors());
+            }
+            this.maxLines = (int) Math.ceil(templateLint.estimatedLines() * (1 + properties.getLatex().getMaxLengthGrowth()));
+            latexCompilationService.warmUp(resumeTemplate);
         } catch (IOException e) {
             log.error("❌ Failed to load resume template from {}", properties.getResume().getTemplatePath(), e);
             throw new RuntimeException("Failed to load resume template", e);
@@ -53,143 +100,173 @@ public class ResumeGenerationService {
      * @return Public URL of the generated resume PDF, or null if generation fails
      */
     public String generateCustomizedResume(JobDetails jobDetails) {
+        return generateCustomizedResumeAsync(jobDetails).block();
+    }
+
+    /**
+     * Non-blocking {@link #generateCustomizedResume}; completes empty if generation fails
+     */
+    public Mono<String> generateCustomizedResumeAsync(JobDetails jobDetails) {
+        // Not tied to a stored job, so the upload gets an id of its own
+        String resumeId = UUID.randomUUID().toString();
+        return customizeResumeAsync(jobDetails)
+                .flatMap(customizedLatex -> publishResumeAsync(customizedLatex, resumeId, jobDetails));
+    }
+
+    /**
+     * First half of {@link #generateCustomizedResumeAsync}: the customized, linted LaTeX, or
+     * empty if it could not be produced
+     */
+    public Mono<String> customizeResumeAsync(JobDetails jobDetails) {
         if (!properties.getResume().isGenerateEnabled()) {
             log.info("⏭️ Resume generation disabled in configuration");
-            return null;
+            return Mono.empty();
         }
         
         if (jobDetails == null) {
             log.warn("❌ Cannot generate resume - job details are null");
-            return null;
+            return Mono.empty();
         }
         
-        log.info("🎯 Starting resume generation for {} at {}", jobDetails.getRole(), jobDetails.getCompany());
-        
-        try {
-            // Add extra delay before resume generation to avoid rate limits
-            // (This is the 3rd consecutive Gemini API call after relevance + extraction)
-            int extraDelay = properties.getAi().getGemini().getRateLimitDelaySeconds();
-            log.info("Adding {} second delay before resume generation to avoid rate limits", extraDelay);
-            Thread.sleep(extraDelay * 1000);
-            
-            // Step 1: Customize LaTeX template using AI
-            String customizedLatex = customizeResumeWithAI(jobDetails);
-            
-            if (customizedLatex == null || customizedLatex.trim().isEmpty()) {
-                log.error("❌ AI customization failed - empty result");
-                return null;
-            }
-            
-            // Step 2: Validate customized LaTeX
-            if (!latexCompilationService.validateLatexContent(customizedLatex)) {
-                log.error("❌ Generated LaTeX content failed validation");
-                return null;
-            }
-            
-            // Step 3: Compile LaTeX to PDF
-            byte[] pdfBytes = latexCompilationService.compileLatexToPdf(customizedLatex);
-            
-            if (pdfBytes == null || pdfBytes.length == 0) {
-                log.error("❌ LaTeX compilation returned empty PDF");
-                return null;
-            }
-            
-            // Step 4: Upload PDF to Cloudinary and get public URL
-            String resumeUrl = cloudinaryService.uploadResumePdf(pdfBytes, jobDetails);
-            
-            if (resumeUrl == null || resumeUrl.trim().isEmpty()) {
-                log.error("❌ Cloudinary upload failed - no URL returned");
-                return null;
+        return Mono.defer(() -> {
+                    log.info("🎯 Starting resume generation for {} at {}", jobDetails.getRole(), jobDetails.getCompany());
+                    // Step 1: Customize LaTeX template using AI (paced by the shared Gemini rate limiter)
+                    return customizeResumeWithAI(jobDetails);
+                })
+                // Step 2: Lint (and repair) customized LaTeX before spending a compilation on it
+                .flatMap(customizedLatex -> lintCustomizedLatex(customizedLatex, jobDetails))
+                .onErrorResume(e -> {
+                    log.error("❌ Resume generation failed for {} at {}: {}", jobDetails.getRole(), jobDetails.getCompany(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Second half of {@link #generateCustomizedResumeAsync}: compile the LaTeX and upload the
+     * PDF; the public URL, or empty if either step failed
+     * @param resumeId stable id of the upload (the job id), so a retry replaces nothing and
+     *                 uploads nothing twice
+     */
+    public Mono<String> publishResumeAsync(String customizedLatex, String resumeId, JobDetails jobDetails) {
+        // Step 3: Compile LaTeX to PDF
+        return latexCompilationService.compileLatexToPdfAsync(customizedLatex)
+                // Step 4: Upload PDF to Cloudinary and get public URL
+                .flatMap(pdfBytes -> cloudinaryService.uploadResumePdfAsync(pdfBytes, resumeId, jobDetails))
+                .doOnNext(resumeUrl -> {
+                    log.info("🎉 Resume generation completed successfully!");
+                    log.info("🔗 Resume URL: {}", resumeUrl);
+                })
+                .onErrorResume(e -> {
+                    log.error("❌ Resume generation failed for {} at {}: {}", jobDetails.getRole(), jobDetails.getCompany(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+    
+    /**
+     * Lint generated LaTeX; completes empty (and records why) if it would not compile or would
+     * not fit the page, otherwise emits the repaired document
+     */
+    private Mono<String> lintCustomizedLatex(String customizedLatex, JobDetails jobDetails) {
+        LatexLinter.Result result = latexCompilationService.lint(customizedLatex, maxLines);
+        if (!result.repairs().isEmpty()) {
+            lintRepairs.addAndGet(result.repairs().size());
+            log.info("🔧 Repaired generated LaTeX: {}", result.repairs());
+        }
+        if (result.isValid()) {
+            return Mono.just(result.latex());
+        }
+
+        validationFailures.incrementAndGet();
+        result.errors().forEach(error -> rejectionReasons.merge(LatexLinter.key(error.kind()), 1L, Long::sum));
+        Map<String, Object> rejection = new LinkedHashMap<>();
+        rejection.put("company", jobDetails.getCompany());
+        rejection.put("role", jobDetails.getRole());
+        rejection.put("reasons", result.errors().stream().map(LatexLinter.Issue::toString).toList());
+        rejection.put("at", Instant.now().toString());
+        synchronized (recentRejections) {
+            recentRejections.addFirst(rejection);
+            while (recentRejections.size() > RECENT_REJECTIONS) {
+                recentRejections.pollLast();
             }
-            
-            log.info("🎉 Resume generation completed successfully!");
-            log.info("🔗 Resume URL: {}", resumeUrl);
-            
-            return resumeUrl;
-            
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.error("❌ Resume generation interrupted during rate limit delay", e);
-            return null;
-        } catch (Exception e) {
-            log.error("❌ Resume generation failed for {} at {}: {}", jobDetails.getRole(), jobDetails.getCompany(), e.getClass().getSimpleName(), e.getMessage());
-            return null;
         }
+        log.error("❌ Generated LaTeX rejected for {} at {}: {}", jobDetails.getRole(), jobDetails.getCompany(), result.errors());
+        return Mono.empty();
     }
     
     /**
-     * Use AI (Gemini) to customize the resume template based on job details
+     * Use AI (Gemini) to customize the resume template based on job details.
+     * Gemini only returns replacements for the fragments it changes, which are spliced into the
+     * parsed template locally; everything else stays exactly as in the template.
      * @param jobDetails Job details to customize for
-     * @return Customized LaTeX content
+     * @return Customized LaTeX content, or empty if the AI call failed
      */
-    private String customizeResumeWithAI(JobDetails jobDetails) {
-        log.info("🤖 Customizing resume template using AI for {} at {}", jobDetails.getRole(), jobDetails.getCompany());
-        
-        try {
-            // Note: We already added delay in generateCustomizedResume() method
-            // This is just internal rate limiting within resume generation
-            // Thread.sleep(properties.getAi().getGemini().getRateLimitDelaySeconds() * 1000);
-            
-            // Build AI prompt for resume customization
-            String prompt = buildResumeCustomizationPrompt(jobDetails);
-            
-            // Call Gemini API
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("contents", new Object[]{
-                Map.of("parts", new Object[]{
-                    Map.of("text", prompt)
+    private Mono<String> customizeResumeWithAI(JobDetails jobDetails) {
+        long start = System.nanoTime();
+        return Mono.defer(() -> {
+                    log.info("🤖 Customizing resume template using AI for {} at {}", jobDetails.getRole(), jobDetails.getCompany());
+                    // Build AI prompt for resume customization
+                    String prompt = buildResumeCustomizationPrompt(jobDetails);
+                    return geminiClient.generateContent(GeminiClient.jsonRequest(prompt, REPLACEMENTS_SCHEMA));
                 })
-            });
-            
-            String apiUrl = "https://generativelanguage.googleapis.com/v1beta/models/" + 
-                           properties.getAi().getGemini().getModel() + 
-                           ":generateContent?key=" + properties.getAi().getGemini().getApiKey();
-            
-            Map<String, Object> response = webClient.post()
-                .uri(apiUrl)
-                .header("Content-Type", "application/json")
-                .body(BodyInserters.fromValue(requestBody))
-                .retrieve()
-                .bodyToMono(Map.class)
-                .block();
-            
-            // Log the full response for debugging
-            log.debug("Gemini API response: {}", response);
-            
-            // Extract customized LaTeX from response
-            String customizedLatex = extractLatexFromResponse(response);
-            
-            if (customizedLatex != null && !customizedLatex.trim().isEmpty()) {
-                log.info("✅ AI resume customization successful");
-                return customizedLatex;
-            } else {
-                log.error("❌ AI returned empty customization result");
-                log.error("Full API response: {}", response);
-                return null;
-            }
-            
-        } catch (org.springframework.web.reactive.function.client.WebClientResponseException e) {
-            if (e.getStatusCode().value() == 429) {
-                log.error("❌ Gemini API rate limit exceeded - Status: 429. Consider increasing delay time.");
-                log.error("Current rate limit delay: {}s", properties.getAi().getGemini().getRateLimitDelaySeconds());
-            } else {
-                log.error("❌ Gemini API error - Status: {} - Response: {}", e.getStatusCode(), e.getResponseBodyAsString());
-            }
-            return null;
-        } catch (Exception e) {
-            log.error("❌ AI resume customization failed", e);
-            return null;
-        }
+                .flatMap(response -> {
+                    log.debug("Gemini API response: {}", response);
+                    customizations.incrementAndGet();
+                    outputTokens.addAndGet(GeminiClient.outputTokens(response));
+                    customizeNanos.addAndGet(System.nanoTime() - start);
+
+                    String json = geminiClient.extractText(response);
+                    if (json == null) {
+                        log.error("❌ AI returned empty customization result");
+                        log.error("Full API response: {}", response);
+                        return Mono.empty();
+                    }
+                    outputChars.addAndGet(json.length());
+                    Map<String, String> replacements = parseReplacements(json);
+                    if (replacements == null) {
+                        // Not linked as a "customized" resume; the resume queue retries the job
+                        unreadableResponses.incrementAndGet();
+                        return Mono.empty();
+                    }
+                    log.info("✅ AI resume customization successful - {} of {} fragments rewritten",
+                            replacements.size(), template.fragments().size());
+                    return Mono.just(template.apply(replacements));
+                })
+                .onErrorResume(e -> {
+                    if (e instanceof WebClientResponseException responseException) {
+                        if (responseException.getStatusCode().value() == 429) {
+                            log.error("❌ Gemini API rate limit exceeded - Status: 429, retries exhausted. Consider lowering app.ai.gemini.rate-limit.requests-per-minute.");
+                        } else {
+                            log.error("❌ Gemini API error - Status: {} - Response: {}", responseException.getStatusCode(), responseException.getResponseBodyAsString());
+                        }
+                    } else {
+                        log.error("❌ AI resume customization failed", e);
+                    }
+                    return Mono.empty();
+                });
     }
     
     /**
-     * Build the AI prompt for resume customization
+     * Build the AI prompt for resume customization: the job plus the editable fragments by id
      * @param jobDetails Job details to customize for
      * @return AI prompt string
      */
     private String buildResumeCustomizationPrompt(JobDetails jobDetails) {
+        StringBuilder fragments = new StringBuilder();
+        String section = null;
+        for (ResumeTemplate.Fragment fragment : template.fragments()) {
+            if (!fragment.section().equals(section)) {
+                section = fragment.section();
+                fragments.append("\n").append(section.toUpperCase()).append(":\n");
+            }
+            fragments.append('[').append(fragment.id()).append("] ");
+            if (fragment.label() != null) {
+                fragments.append(fragment.label().trim()).append(": ");
+            }
+            fragments.append(fragment.text()).append('\n');
+        }
+
         return String.format("""
-            You are a professional resume writer. I need you to customize this LaTeX resume template for a specific job application.
+            You are a professional resume writer. I need you to tailor a resume for a specific job application.
             
             JOB DETAILS:
             - Company: %s
@@ -198,121 +275,58 @@ public class ResumeGenerationService {
             - Salary: %s
             - Description: %s
             
-            RESUME TEMPLATE TO CUSTOMIZE:
+            EDITABLE RESUME FRAGMENTS (LaTeX, addressed by id):
             %s
-            
             INSTRUCTIONS:
-            1. Change only the necessary parts according to the role.
-            2. Dont add so many extra lines so that it becomes too lengthy, it should remain on single page.
-            8. Make the resume ATS-friendly and professional
-            
-            Return ONLY the complete, customized LaTeX document. Do not include any explanations or additional text outside the LaTeX document.
+            1. Rewrite only the fragments that should change for this role; leave the rest out of your answer.
+            2. Keep each rewritten fragment about the same length so the resume stays on a single page.
+            3. Do not invent experience, numbers or achievements; reword, reorder and emphasise what is there.
+            4. Make the wording ATS-friendly and professional, using the job's keywords where they are true.
+            5. Write LaTeX-safe text: escape %% & # $ _ with a backslash; \\textbf{...} is allowed, other commands are not.
+            6. For labelled fragments, return only the text after the label.
+            
+            Return a JSON array of {"id": fragment id, "text": replacement text}.
             """, 
             jobDetails.getCompany(), 
             jobDetails.getRole(),
             jobDetails.getLocation() != null ? jobDetails.getLocation() : "Remote",
             jobDetails.getSalary() != null ? jobDetails.getSalary() : "Competitive",
             jobDetails.getRawSnippet() != null ? jobDetails.getRawSnippet() : "Software development position",
-            resumeTemplate
+            fragments
         );
     }
     
     /**
-     * Extract LaTeX content from AI API response
-     * @param response API response map
-     * @return Extracted LaTeX content
+     * Parse Gemini's replacement list, dropping unknown ids and text that is unsafe to splice
+     * or would grow a fragment enough to push the resume past one page
+     * @return the replacements, or null if the response is not a replacement list at all
      */
-    @SuppressWarnings("unchecked")
-    private String extractLatexFromResponse(Map<String, Object> response) {
+    private Map<String, String> parseReplacements(String json) {
+        Map<String, String> replacements = new LinkedHashMap<>();
         try {
-            log.debug("Parsing response: {}", response);
-            
-            if (response == null) {
-                log.error("Response is null");
-                return null;
-            }
-            
-            Object candidates = response.get("candidates");
-            if (candidates == null) {
-                log.error("No 'candidates' field in response");
+            JsonNode root = objectMapper.readTree(json);
+            if (!root.isArray()) {
+                log.error("❌ Resume customization response is not a list of replacements: {}", json);
                 return null;
             }
-            
-            // Handle both List and Object[] cases for candidates
-            Map<String, Object> candidate = null;
-            if (candidates instanceof java.util.List) {
-                java.util.List<Object> candidatesList = (java.util.List<Object>) candidates;
-                if (!candidatesList.isEmpty()) {
-                    candidate = (Map<String, Object>) candidatesList.get(0);
-                }
-            } else if (candidates instanceof Object[] && ((Object[]) candidates).length > 0) {
-                candidate = (Map<String, Object>) ((Object[]) candidates)[0];
-            }
-            
-            if (candidate == null) {
-                log.error("No candidates found or candidates list is empty");
-                return null;
-            }
-            
-            Map<String, Object> content = (Map<String, Object>) candidate.get("content");
-            if (content == null) {
-                log.error("No 'content' field in candidate");
-                return null;
-            }
-            
-            Object parts = content.get("parts");
-            if (parts == null) {
-                log.error("No 'parts' field in content");
-                return null;
-            }
-            
-            // Handle both List and Object[] cases for parts
-            Map<String, Object> part = null;
-            if (parts instanceof java.util.List) {
-                java.util.List<Object> partsList = (java.util.List<Object>) parts;
-                if (!partsList.isEmpty()) {
-                    part = (Map<String, Object>) partsList.get(0);
-                }
-            } else if (parts instanceof Object[] && ((Object[]) parts).length > 0) {
-                part = (Map<String, Object>) ((Object[]) parts)[0];
-            }
-            
-            if (part == null) {
-                log.error("No parts found or parts list is empty");
-                return null;
-            }
-            
-            String text = (String) part.get("text");
-            log.debug("Raw text length: {}", text != null ? text.length() : 0);
-            
-            if (text != null) {
-                // Remove markdown code block formatting if present
-                text = text.trim();
-                if (text.startsWith("```latex")) {
-                    text = text.substring(8); // Remove "```latex"
-                } else if (text.startsWith("```")) {
-                    text = text.substring(3); // Remove "```"
+            for (JsonNode replacement : root) {
+                ResumeTemplate.Fragment fragment = template.fragment(replacement.path("id").asText());
+                String text = ResumeTemplate.sanitize(replacement.path("text").asText(null));
+                if (fragment == null || text == null || text.length() > fragment.text().length() * MAX_GROWTH + 40) {
+                    log.warn("⚠️ Ignoring resume replacement for '{}'", replacement.path("id").asText());
+                    replacementsRejected.incrementAndGet();
+                    continue;
                 }
-                
-                if (text.endsWith("```")) {
-                    text = text.substring(0, text.length() - 3); // Remove trailing "```"
+                if (!text.equals(fragment.text())) {
+                    replacements.put(fragment.id(), text);
                 }
-                
-                text = text.trim();
-                log.debug("Cleaned LaTeX content length: {}", text.length());
-                log.debug("LaTeX starts with: {}", text.length() > 50 ? text.substring(0, 50) + "..." : text);
-                
-                return text;
-            } else {
-                log.error("No 'text' field found in part");
-                return null;
             }
-            
-        } catch (Exception e) {
-            log.error("❌ Error extracting LaTeX from AI response", e);
-            log.error("Response structure: {}", response);
+        } catch (JsonProcessingException e) {
+            log.error("❌ Unreadable resume customization response", e);
             return null;
         }
+        replacementsApplied.addAndGet(replacements.size());
+        return replacements;
     }
     
     /**
@@ -325,8 +339,27 @@ public class ResumeGenerationService {
         status.put("template_loaded", resumeTemplate != null && !resumeTemplate.isEmpty());
         status.put("generation_enabled", properties.getResume().isGenerateEnabled());
         status.put("template_path", properties.getResume().getTemplatePath());
-        status.put("latex_online_available", latexCompilationService.isLatexOnlineAvailable());
-        status.put("cloudinary_available", cloudinaryService.testConnection());
+        status.put("latex", latexCompilationService.getStatus());
+        status.put("cloudinary", cloudinaryService.getConnectionStatus());
+        status.put("template_fragments", template != null ? template.fragments().size() : 0);
+
+        long calls = customizations.get();
+        Map<String, Object> customization = new LinkedHashMap<>();
+        customization.put("calls", calls);
+        customization.put("replacements_applied", replacementsApplied.get());
+        customization.put("replacements_rejected", replacementsRejected.get());
+        customization.put("unreadable_responses", unreadableResponses.get());
+        customization.put("validation_failures", validationFailures.get());
+        customization.put("lint_repairs", lintRepairs.get());
+        customization.put("max_estimated_lines", maxLines);
+        customization.put("rejection_reasons", new TreeMap<>(rejectionReasons));
+        synchronized (recentRejections) {
+            customization.put("recent_rejections", new ArrayList<>(recentRejections));
+        }
+        customization.put("avg_output_tokens", calls == 0 ? 0 : outputTokens.get() / calls);
+        customization.put("avg_output_chars", calls == 0 ? 0 : outputChars.get() / calls);
+        customization.put("avg_latency_ms", calls == 0 ? 0 : customizeNanos.get() / calls / 1_000_000);
+        status.put("customization", customization);
         
         return status;
     }
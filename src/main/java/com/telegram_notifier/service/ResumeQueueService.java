@@ -0,0 +1,295 @@
+package com.telegram_notifier.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.telegram_notifier.config.AppProperties;
+import com.telegram_notifier.model.JobDetails;
+import com.telegram_notifier.util.DurableKeyValueLog;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates resumes for jobs that are already saved, off the job processing path.
+ * <p>
+ * {@link #enqueue} records the job under its storage id in a {@link DurableKeyValueLog}
+ * ({@code resume-queue.log} under {@code app.state.dir}) and hands it to a worker that runs up
+ * to {@code app.resume.queue-concurrency} generations at once. The entry records each finished
+ * step (the customized LaTeX, then the uploaded PDF's URL), and a retry continues from the step
+ * that failed. When the job's "Resume Link" is set the entry is removed. Failed attempts are
+ * retried with exponential backoff up to {@code app.resume.max-attempts}; entries still pending
+ * at shutdown are picked up again on startup, together with any job the store flagged as
+ * needing a resume that never made it into the queue.
+ */
+@Service
+public class ResumeQueueService {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ResumeQueueService.class);
+
+    private static final String QUEUE_FILE = "resume-queue.log";
+
+    private final AppProperties properties;
+    private final ResumeGenerationService resumeGenerationService;
+    private final StorageService storageService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private DurableKeyValueLog queue;
+    private final Sinks.Many<String> ready = Sinks.many().unicast().onBackpressureBuffer();
+    private final Set<String> inProgress = ConcurrentHashMap.newKeySet();
+    private final Disposable.Composite retries = Disposables.composite();
+    private Disposable worker;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong abandoned = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+
+    /**
+     * A queue entry: the job plus whatever earlier attempts already produced
+     */
+    private record Task(JobDetails jobDetails, int attempts, String latex, String resumeLink) {
+        Task withAttempts(int attempts) { return new Task(jobDetails, attempts, latex, resumeLink); }
+        Task withLatex(String latex) { return new Task(jobDetails, attempts, latex, resumeLink); }
+        Task withResumeLink(String resumeLink) { return new Task(jobDetails, attempts, latex, resumeLink); }
+    }
+
+    public ResumeQueueService(AppProperties properties,
+                              ResumeGenerationService resumeGenerationService,
+                              StorageService storageService) {
+        this.properties = properties;
+        this.resumeGenerationService = resumeGenerationService;
+        this.storageService = storageService;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Path file = Paths.get(properties.getState().getDir(), QUEUE_FILE);
+        queue = new DurableKeyValueLog(file, properties.getState().isFsync(), properties.getState().getCompactionThreshold());
+
+        int concurrency = Math.max(1, properties.getResume().getQueueConcurrency());
+        worker = ready.asFlux()
+                .flatMap(this::generate, concurrency)
+                .subscribe();
+
+        if (queue.size() > 0) {
+            log.info("📝 Resuming {} queued resume generations from {}", queue.size(), file);
+            queue.snapshot().keySet().forEach(this::submit);
+        }
+        if (properties.getResume().isGenerateEnabled()) {
+            storageService.findJobsAwaitingResume().subscribe(this::reconcile,
+                    e -> log.error("❌ Could not look up saved jobs still waiting for a resume", e));
+        }
+    }
+
+    /**
+     * Queue jobs the store saved as needing a resume that are not in the queue, i.e. the process
+     * stopped between saving them and {@link #enqueue}
+     */
+    private void reconcile(List<SqliteStorageBackend.StoredJob> awaiting) {
+        List<SqliteStorageBackend.StoredJob> missing = awaiting.stream()
+                .filter(job -> queue.get(job.id()) == null)
+                .toList();
+        if (missing.isEmpty()) return;
+        log.info("📝 Queuing resumes for {} saved jobs that were never queued", missing.size());
+        missing.forEach(job -> enqueue(job.id(), job.jobDetails()));
+    }
+
+    @PreDestroy
+    public void stop() {
+        retries.dispose();
+        synchronized (this) {
+            ready.tryEmitComplete();
+        }
+        if (worker != null) {
+            worker.dispose();
+        }
+        try {
+            if (queue != null) queue.close();
+        } catch (IOException e) {
+            log.warn("Failed to close resume queue", e);
+        }
+    }
+
+    /**
+     * Queue resume generation for a saved job
+     * @param jobId id of the job in the system of record, whose "Resume Link" is filled in later
+     * @return false if resume generation is disabled
+     */
+    public boolean enqueue(String jobId, JobDetails jobDetails) {
+        if (!properties.getResume().isGenerateEnabled()) {
+            return false;
+        }
+        queue.put(jobId, toJson(new Task(jobDetails, 0, null, null)));
+        enqueued.incrementAndGet();
+        log.info("📝 Queued resume generation for {} at {}", jobDetails.getRole(), jobDetails.getCompany());
+        submit(jobId);
+        return true;
+    }
+
+    private synchronized void submit(String jobId) {
+        // Serialized: the unicast sink must not be emitted to concurrently
+        Sinks.EmitResult result = ready.tryEmitNext(jobId);
+        if (result.isFailure()) {
+            // Stopped (or the worker is gone): the entry stays in the queue file for the next start
+            log.warn("⚠️ Resume generation for job {} not started ({}), it stays queued", jobId, result);
+        }
+    }
+
+    private Mono<Void> generate(String jobId) {
+        if (queue.get(jobId) == null || !inProgress.add(jobId)) {
+            return Mono.empty();
+        }
+        Task task = readTask(jobId);
+        if (task == null) {
+            inProgress.remove(jobId);
+            return Mono.empty();
+        }
+        JobDetails jobDetails = task.jobDetails();
+        int attempt = task.attempts() + 1;
+        long start = System.nanoTime();
+
+        // Each step's result is recorded, so a retry continues from the step that failed
+        Mono<String> latex = task.latex() != null
+                ? Mono.just(task.latex())
+                : resumeGenerationService.customizeResumeAsync(jobDetails)
+                        .switchIfEmpty(Mono.error(() -> new IllegalStateException("resume customization failed")))
+                        .doOnNext(customized -> saveProgress(jobId, task.withLatex(customized)));
+        Mono<String> resumeLink = task.resumeLink() != null
+                ? Mono.just(task.resumeLink())
+                : latex.flatMap(customized -> resumeGenerationService.publishResumeAsync(customized, jobId, jobDetails)
+                        .switchIfEmpty(Mono.error(() -> new IllegalStateException("resume compilation or upload failed")))
+                        .doOnNext(url -> saveProgress(jobId, task.withLatex(customized).withResumeLink(url))));
+
+        return resumeLink
+                .flatMap(url -> storageService.updateResumeLinkAsync(jobId, url))
+                .doOnSuccess(ignored -> {
+                    queue.remove(jobId);
+                    completed.incrementAndGet();
+                    log.info("✅ Resume attached to {} at {}", jobDetails.getRole(), jobDetails.getCompany());
+                })
+                .onErrorResume(e -> {
+                    retryOrAbandon(jobId, attempt, e);
+                    return Mono.empty();
+                })
+                .doFinally(signal -> {
+                    busyNanos.addAndGet(System.nanoTime() - start);
+                    inProgress.remove(jobId);
+                });
+    }
+
+    private void saveProgress(String jobId, Task task) {
+        queue.put(jobId, toJson(task));
+    }
+
+    private void retryOrAbandon(String jobId, int attempt, Throwable e) {
+        Task task = readTask(jobId);
+        if (task == null) return;
+        JobDetails jobDetails = task.jobDetails();
+        int maxAttempts = properties.getResume().getMaxAttempts();
+        if (attempt >= maxAttempts) {
+            queue.remove(jobId);
+            abandoned.incrementAndGet();
+            log.error("❌ Giving up on resume for {} at {} after {} attempts: {}",
+                    jobDetails.getRole(), jobDetails.getCompany(), attempt, e.getMessage());
+            storageService.abandonResumeAsync(jobId).subscribe(null,
+                    clearError -> log.warn("Failed to clear the pending resume of job {}", jobId, clearError));
+            return;
+        }
+        queue.put(jobId, toJson(task.withAttempts(attempt)));
+        retried.incrementAndGet();
+        Duration backoff = Duration.ofSeconds(properties.getResume().getRetryDelaySeconds()).multipliedBy(1L << (attempt - 1));
+        log.warn("⚠️ Resume for {} at {} failed (attempt {}/{}), retrying in {} s: {}",
+                jobDetails.getRole(), jobDetails.getCompany(), attempt, maxAttempts, backoff.toSeconds(), e.getMessage());
+        scheduleRetry(jobId, backoff);
+    }
+
+    private void scheduleRetry(String jobId, Duration backoff) {
+        Disposable.Swap timer = Disposables.swap();
+        // Only pending timers are kept, so the composite does not grow with every retry
+        retries.add(timer);
+        timer.update(Mono.delay(backoff).subscribe(ignored -> {
+            retries.remove(timer);
+            submit(jobId);
+        }));
+    }
+
+    private Task readTask(String jobId) {
+        String entry = queue.get(jobId);
+        if (entry == null) return null;
+        try {
+            return fromJson(objectMapper.readTree(entry));
+        } catch (JsonProcessingException e) {
+            log.error("❌ Dropping unreadable resume queue entry for {}", jobId, e);
+            queue.remove(jobId);
+            return null;
+        }
+    }
+
+    private String toJson(Task task) {
+        JobDetails jobDetails = task.jobDetails();
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("company", jobDetails.getCompany());
+        node.put("role", jobDetails.getRole());
+        node.put("location", jobDetails.getLocation());
+        node.put("url", jobDetails.getUrl());
+        node.put("salary", jobDetails.getSalary());
+        node.put("source_channel", jobDetails.getSourceChannel());
+        node.put("raw_snippet", jobDetails.getRawSnippet());
+        node.put("posted_at", jobDetails.getPostedAt() != null ? jobDetails.getPostedAt().toString() : null);
+        node.put("attempts", task.attempts());
+        node.put("latex", task.latex());
+        node.put("resume_link", task.resumeLink());
+        return node.toString();
+    }
+
+    private Task fromJson(JsonNode node) {
+        String postedAt = node.path("posted_at").asText(null);
+        JobDetails jobDetails = JobDetails.builder()
+                .company(node.path("company").asText(null))
+                .role(node.path("role").asText(null))
+                .location(node.path("location").asText(null))
+                .url(node.path("url").asText(null))
+                .salary(node.path("salary").asText(null))
+                .sourceChannel(node.path("source_channel").asText(null))
+                .rawSnippet(node.path("raw_snippet").asText(null))
+                .postedAt(postedAt != null ? OffsetDateTime.parse(postedAt) : null)
+                .build();
+        return new Task(jobDetails, node.path("attempts").asInt(), node.path("latex").asText(null),
+                node.path("resume_link").asText(null));
+    }
+
+    public Map<String, Object> getStats() {
+        long done = completed.get() + retried.get() + abandoned.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.getResume().isGenerateEnabled());
+        stats.put("concurrency", properties.getResume().getQueueConcurrency());
+        stats.put("pending", queue != null ? queue.size() : 0);
+        stats.put("in_progress", inProgress.size());
+        stats.put("waiting_to_retry", retries.size());
+        stats.put("enqueued", enqueued.get());
+        stats.put("completed", completed.get());
+        stats.put("retried", retried.get());
+        stats.put("abandoned", abandoned.get());
+        stats.put("avg_attempt_ms", done == 0 ? 0 : busyNanos.get() / done / 1_000_000);
+        return stats;
+    }
+}
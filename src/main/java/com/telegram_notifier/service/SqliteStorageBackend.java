@@ -0,0 +1,532 @@
+package com.telegram_notifier.service;
+
+import com.telegram_notifier.config.AppProperties;
+import com.telegram_notifier.model.JobDetails;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded SQLite job store, the default system of record.
+ * <p>
+ * The database runs in WAL mode with {@code synchronous=NORMAL}, so a commit is an append to the
+ * write-ahead log rather than a rewrite of the database file. All writes go through one writer
+ * thread: callers get a Mono that completes once their write is committed, and writes that queue
+ * up while a transaction is running are committed together in one transaction, in the order they
+ * were submitted. If that transaction fails, its writes are retried one transaction each, so a
+ * bad write fails only its own caller. Reads use a second connection and never wait for the writer.
+ * <p>
+ * The database also holds the replication outbox: a save or resume link update that has sinks
+ * writes one outbox entry per sink in the same transaction as the job, and
+ * {@link OutboxReplicator} deletes each entry once the sink has the change, or parks it if the
+ * sink rejects it for good. A job saved while it still needs a resume is flagged
+ * {@code resume_pending} in the same transaction, so {@link ResumeQueueService} can pick it up
+ * again if the process stops before it is queued.
+ */
+@Service
+public class SqliteStorageBackend implements StorageBackend {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(SqliteStorageBackend.class);
+
+    private static final String DB_FILE = "jobs.db";
+
+    private static final String[] SCHEMA = {
+        """
+        CREATE TABLE IF NOT EXISTS jobs (
+            id TEXT PRIMARY KEY,
+            company TEXT,
+            role TEXT,
+            location TEXT,
+            url TEXT,
+            salary TEXT,
+            source_channel TEXT,
+            raw_snippet TEXT,
+            posted_at TEXT,
+            resume_link TEXT,
+            resume_pending INTEGER NOT NULL DEFAULT 0,
+            created_at INTEGER NOT NULL,
+            updated_at INTEGER NOT NULL
+        )""",
+        // Ids the sinks assigned to each job, e.g. its Notion page id
+        """
+        CREATE TABLE IF NOT EXISTS sink_ids (
+            job_id TEXT NOT NULL,
+            sink TEXT NOT NULL,
+            sink_id TEXT NOT NULL,
+            PRIMARY KEY (job_id, sink)
+        )""",
+        // Changes not yet copied to a sink; kind is create or resume_link
+        """
+        CREATE TABLE IF NOT EXISTS outbox (
+            seq INTEGER PRIMARY KEY AUTOINCREMENT,
+            job_id TEXT NOT NULL,
+            sink TEXT NOT NULL,
+            kind TEXT NOT NULL,
+            attempts INTEGER NOT NULL DEFAULT 0,
+            next_attempt_at INTEGER NOT NULL,
+            created_at INTEGER NOT NULL,
+            last_error TEXT
+        )""",
+        "CREATE INDEX IF NOT EXISTS outbox_due ON outbox (next_attempt_at)",
+        "CREATE INDEX IF NOT EXISTS outbox_job ON outbox (job_id, sink, seq)"
+    };
+
+    // Columns added after the first release of the schema: table, column, definition
+    private static final String[][] ADDED_COLUMNS = {
+        {"jobs", "resume_pending", "INTEGER NOT NULL DEFAULT 0"}
+    };
+
+    // Per (job, sink) the oldest entry goes first, so a resume link never overtakes its create
+    private static final String DUE_OUTBOX_ENTRIES = """
+        SELECT seq, job_id, sink, kind, attempts, created_at FROM outbox o
+        WHERE next_attempt_at <= ?
+          AND NOT EXISTS (SELECT 1 FROM outbox p WHERE p.job_id = o.job_id AND p.sink = o.sink AND p.seq < o.seq)
+        ORDER BY seq LIMIT ?""";
+
+    // next_attempt_at of an entry a sink rejected for good; it waits for releaseParkedOutboxEntries
+    private static final long PARKED = Long.MAX_VALUE;
+
+    public static final String OUTBOX_CREATE = "create";
+    public static final String OUTBOX_RESUME_LINK = "resume_link";
+
+    /**
+     * A job as committed locally
+     */
+    public record StoredJob(String id, JobDetails jobDetails, String resumeLink) {}
+
+    public record OutboxEntry(long seq, String jobId, String sink, String kind, int attempts, long createdAt) {}
+
+    /**
+     * @param parked entries a sink rejected for good, included in depth but not in retrying
+     * @param oldestCreatedAt creation time (epoch millis) of the oldest entry not parked, 0 if there is none
+     */
+    public record OutboxSummary(long depth, long retrying, long parked, long oldestCreatedAt) {}
+
+    private enum Op {
+        INSERT_JOB("INSERT INTO jobs (id, company, role, location, url, salary, source_channel, raw_snippet,"
+                + " posted_at, resume_link, resume_pending, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"),
+        SET_RESUME_LINK("UPDATE jobs SET resume_link = ?, resume_pending = 0, updated_at = ? WHERE id = ?", "job"),
+        CLEAR_RESUME_PENDING("UPDATE jobs SET resume_pending = 0, updated_at = ? WHERE id = ?"),
+        LINK_SINK_ID("INSERT OR REPLACE INTO sink_ids (job_id, sink, sink_id) VALUES (?, ?, ?)"),
+        INSERT_OUTBOX("INSERT INTO outbox (job_id, sink, kind, next_attempt_at, created_at) VALUES (?, ?, ?, ?, ?)"),
+        RESCHEDULE_OUTBOX("UPDATE outbox SET attempts = ?, next_attempt_at = ?, last_error = ? WHERE seq = ?"),
+        RELEASE_PARKED_OUTBOX("UPDATE outbox SET next_attempt_at = ? WHERE next_attempt_at = " + PARKED),
+        DELETE_OUTBOX("DELETE FROM outbox WHERE seq = ?");
+
+        final String sql;
+        // What the last parameter must identify for the write to succeed; null if it may match nothing
+        final String target;
+
+        Op(String sql) {
+            this(sql, null);
+        }
+
+        Op(String sql, String target) {
+            this.sql = sql;
+            this.target = target;
+        }
+    }
+
+    private record Row(Op op, Object... params) {}
+
+    // Rows of one write are committed in the same transaction
+    private record Write(List<Row> rows, CompletableFuture<Void> done) {}
+
+    @FunctionalInterface
+    private interface ResultReader<T> {
+        // Null for no result
+        T read(ResultSet rows) throws SQLException;
+    }
+
+    private final AppProperties properties;
+    private final BlockingQueue<Write> writes = new LinkedBlockingQueue<>();
+    private final Map<Op, PreparedStatement> statements = new EnumMap<>(Op.class);
+    private Path file;
+    private Connection writer;
+    private Connection reader;
+    private Thread writerThread;
+    // Guards running against submit, so nothing is queued once close has started draining
+    private final Object lifecycle = new Object();
+    private volatile boolean running;
+
+    private final AtomicLong jobsSaved = new AtomicLong();
+    private final AtomicLong writesCommitted = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+    private final AtomicLong commitNanos = new AtomicLong();
+
+    public SqliteStorageBackend(AppProperties properties) {
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void init() {
+        if ("notion".equalsIgnoreCase(properties.getStorage().getType())) return;
+        String configured = properties.getStorage().getSqlitePath();
+        file = configured.isBlank() ? Paths.get(properties.getState().getDir(), DB_FILE) : Paths.get(configured);
+        try {
+            if (file.toAbsolutePath().getParent() != null) Files.createDirectories(file.toAbsolutePath().getParent());
+            writer = DriverManager.getConnection("jdbc:sqlite:" + file);
+            try (Statement statement = writer.createStatement()) {
+                statement.execute("PRAGMA journal_mode=WAL");
+                statement.execute("PRAGMA synchronous=NORMAL");
+                statement.execute("PRAGMA busy_timeout=5000");
+                for (String ddl : SCHEMA) statement.execute(ddl);
+                for (String[] column : ADDED_COLUMNS) addColumnIfMissing(statement, column[0], column[1], column[2]);
+            }
+            writer.setAutoCommit(false);
+            for (Op op : Op.values()) statements.put(op, writer.prepareStatement(op.sql));
+            reader = DriverManager.getConnection("jdbc:sqlite:" + file);
+        } catch (IOException | SQLException e) {
+            log.error("❌ Failed to open SQLite job store {}", file, e);
+            throw new RuntimeException("SQLite job store initialization failed", e);
+        }
+
+        running = true;
+        writerThread = new Thread(this::writeLoop, "sqlite-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("✅ SQLite job store ready at {}", file.toAbsolutePath());
+    }
+
+    private static void addColumnIfMissing(Statement statement, String table, String column, String definition) throws SQLException {
+        try (ResultSet columns = statement.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (columns.next()) {
+                if (column.equalsIgnoreCase(columns.getString("name"))) return;
+            }
+        }
+        statement.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        log.info("Added column {}.{} to the SQLite job store", table, column);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (writerThread == null) return;
+        synchronized (lifecycle) {
+            running = false;
+        }
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            log.warn("⚠️ SQLite writer did not finish within 5 s, failing {} queued writes", writes.size());
+        }
+        for (Write write = writes.poll(); write != null; write = writes.poll()) {
+            write.done().completeExceptionally(new IllegalStateException("SQLite job store closed"));
+        }
+        try {
+            writer.close();
+            reader.close();
+        } catch (SQLException e) {
+            log.warn("Failed to close SQLite job store", e);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "sqlite";
+    }
+
+    /**
+     * @return a new local job id (UUID), once the job is committed
+     */
+    @Override
+    public Mono<String> saveJobAsync(JobDetails jobDetails, String resumeLink) {
+        return saveJobAsync(jobDetails, resumeLink, false, List.of());
+    }
+
+    /**
+     * Save a job and, in the same transaction, queue its copy to each of {@code sinks}
+     * @param resumePending whether the job still needs a resume (see {@link #findJobsAwaitingResume})
+     */
+    public Mono<String> saveJobAsync(JobDetails jobDetails, String resumeLink, boolean resumePending, Collection<String> sinks) {
+        String id = UUID.randomUUID().toString();
+        long now = System.currentTimeMillis();
+        List<Row> rows = new ArrayList<>();
+        rows.add(new Row(Op.INSERT_JOB, id, jobDetails.getCompany(), jobDetails.getRole(), jobDetails.getLocation(),
+                jobDetails.getUrl(), jobDetails.getSalary(), jobDetails.getSourceChannel(), jobDetails.getRawSnippet(),
+                jobDetails.getPostedAt() != null ? jobDetails.getPostedAt().toString() : null, resumeLink,
+                resumePending ? 1 : 0, now, now));
+        sinks.forEach(sink -> rows.add(new Row(Op.INSERT_OUTBOX, id, sink, OUTBOX_CREATE, now, now)));
+        return submit(rows)
+                .doOnSuccess(ignored -> jobsSaved.incrementAndGet())
+                .thenReturn(id);
+    }
+
+    @Override
+    public Mono<Void> updateResumeLinkAsync(String id, String resumeLink) {
+        return updateResumeLinkAsync(id, resumeLink, List.of());
+    }
+
+    /**
+     * Set a resume link and, in the same transaction, queue the update to each of {@code sinks}
+     */
+    public Mono<Void> updateResumeLinkAsync(String id, String resumeLink, Collection<String> sinks) {
+        long now = System.currentTimeMillis();
+        List<Row> rows = new ArrayList<>();
+        rows.add(new Row(Op.SET_RESUME_LINK, resumeLink, now, id));
+        sinks.forEach(sink -> rows.add(new Row(Op.INSERT_OUTBOX, id, sink, OUTBOX_RESUME_LINK, now, now)));
+        return submit(rows);
+    }
+
+    /**
+     * The job will not get a resume after all: stop reporting it from {@link #findJobsAwaitingResume}
+     */
+    public Mono<Void> clearResumePendingAsync(String id) {
+        return submit(List.of(new Row(Op.CLEAR_RESUME_PENDING, System.currentTimeMillis(), id)));
+    }
+
+    /**
+     * Ids of jobs saved as needing a resume that has been neither attached nor given up on
+     */
+    public Mono<List<String>> findJobsAwaitingResume() {
+        return query("SELECT id FROM jobs WHERE resume_pending = 1 ORDER BY created_at", rows -> {
+            List<String> ids = new ArrayList<>();
+            while (rows.next()) ids.add(rows.getString(1));
+            return ids;
+        });
+    }
+
+    public Mono<StoredJob> findJob(String id) {
+        return query("SELECT company, role, location, url, salary, source_channel, raw_snippet, posted_at, resume_link"
+                + " FROM jobs WHERE id = ?", rows -> {
+            if (!rows.next()) return null;
+            JobDetails jobDetails = JobDetails.builder()
+                    .company(rows.getString(1))
+                    .role(rows.getString(2))
+                    .location(rows.getString(3))
+                    .url(rows.getString(4))
+                    .salary(rows.getString(5))
+                    .sourceChannel(rows.getString(6))
+                    .rawSnippet(rows.getString(7))
+                    .postedAt(rows.getString(8) != null ? OffsetDateTime.parse(rows.getString(8)) : null)
+                    .build();
+            return new StoredJob(id, jobDetails, rows.getString(9));
+        }, id);
+    }
+
+    /**
+     * Id a sink gave this job; empty if it has not been copied there yet
+     */
+    public Mono<String> findSinkId(String jobId, String sink) {
+        return query("SELECT sink_id FROM sink_ids WHERE job_id = ? AND sink = ?",
+                rows -> rows.next() ? rows.getString(1) : null, jobId, sink);
+    }
+
+    /**
+     * Outbox entries whose next attempt is due, oldest first, at most one per job and sink
+     */
+    public Mono<List<OutboxEntry>> findDueOutboxEntries(long now, int limit) {
+        return query(DUE_OUTBOX_ENTRIES, rows -> {
+            List<OutboxEntry> entries = new ArrayList<>();
+            while (rows.next()) {
+                entries.add(new OutboxEntry(rows.getLong(1), rows.getString(2), rows.getString(3),
+                        rows.getString(4), rows.getInt(5), rows.getLong(6)));
+            }
+            return entries;
+        }, now, limit);
+    }
+
+    public Mono<OutboxSummary> summarizeOutbox() {
+        return query("SELECT COUNT(*), COALESCE(SUM(attempts > 0 AND next_attempt_at < ?1), 0),"
+                        + " COALESCE(SUM(next_attempt_at = ?1), 0),"
+                        + " COALESCE(MIN(CASE WHEN next_attempt_at < ?1 THEN created_at END), 0) FROM outbox",
+                rows -> rows.next() ? new OutboxSummary(rows.getLong(1), rows.getLong(2), rows.getLong(3), rows.getLong(4)) : null,
+                PARKED);
+    }
+
+    /**
+     * Remove a delivered entry, recording the id the sink assigned (if any) in the same transaction
+     */
+    public Mono<Void> completeOutboxEntry(OutboxEntry entry, String sinkId) {
+        List<Row> rows = new ArrayList<>();
+        if (sinkId != null) rows.add(new Row(Op.LINK_SINK_ID, entry.jobId(), entry.sink(), sinkId));
+        rows.add(new Row(Op.DELETE_OUTBOX, entry.seq()));
+        return submit(rows);
+    }
+
+    public Mono<Void> rescheduleOutboxEntry(OutboxEntry entry, int attempts, long nextAttemptAt, String error) {
+        return submit(List.of(new Row(Op.RESCHEDULE_OUTBOX, attempts, nextAttemptAt, error, entry.seq())));
+    }
+
+    /**
+     * Stop retrying an entry the sink rejected for good; it stays in the outbox, together with the
+     * entries of the same job and sink behind it, until {@link #releaseParkedOutboxEntries}
+     */
+    public Mono<Void> parkOutboxEntry(OutboxEntry entry, int attempts, String error) {
+        return rescheduleOutboxEntry(entry, attempts, PARKED, error);
+    }
+
+    /**
+     * Make every parked entry due again, e.g. after the sink's configuration was fixed
+     */
+    public Mono<Void> releaseParkedOutboxEntries() {
+        return submit(List.of(new Row(Op.RELEASE_PARKED_OUTBOX, System.currentTimeMillis())));
+    }
+
+    private Mono<Void> submit(List<Row> rows) {
+        return Mono.defer(() -> {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            synchronized (lifecycle) {
+                if (!running) return Mono.error(new IllegalStateException("SQLite job store is not open"));
+                writes.add(new Write(rows, done));
+            }
+            // Callers continue off the writer thread so they cannot stall the next batch
+            return Mono.fromFuture(done).publishOn(Schedulers.boundedElastic());
+        });
+    }
+
+    private <T> Mono<T> query(String sql, ResultReader<T> resultReader, Object... params) {
+        return Mono.fromCallable(() -> {
+                    synchronized (reader) {
+                        try (PreparedStatement statement = reader.prepareStatement(sql)) {
+                            bind(statement, params);
+                            try (ResultSet rows = statement.executeQuery()) {
+                                return resultReader.read(rows);
+                            }
+                        }
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private void writeLoop() {
+        List<Write> batch = new ArrayList<>();
+        int batchSize = Math.max(1, properties.getStorage().getBatchSize());
+        while (running || !writes.isEmpty()) {
+            try {
+                Write first = writes.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                writes.drainTo(batch, batchSize - 1);
+                commitOrRetrySingly(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Throwable e) {
+                // Never let the writer thread die; whoever is still waiting gets the error
+                log.error("❌ SQLite writer failed on a batch of {} writes", batch.size(), e);
+                batch.forEach(write -> write.done().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Commit a batch in one transaction; if it fails, commit each write on its own so only the
+     * writes that fail by themselves report an error
+     */
+    private void commitOrRetrySingly(List<Write> batch) {
+        try {
+            commit(batch);
+            batch.forEach(write -> write.done().complete(null));
+            return;
+        } catch (Throwable e) {
+            failedBatches.incrementAndGet();
+            if (batch.size() == 1) {
+                fail(batch.get(0), e);
+                return;
+            }
+            log.warn("⚠️ SQLite batch of {} writes failed, retrying them one by one: {}", batch.size(), e.toString());
+        }
+        for (Write write : batch) {
+            try {
+                commit(List.of(write));
+                write.done().complete(null);
+            } catch (Throwable e) {
+                fail(write, e);
+            }
+        }
+    }
+
+    private void fail(Write write, Throwable e) {
+        failedWrites.incrementAndGet();
+        log.error("❌ SQLite write failed", e);
+        write.done().completeExceptionally(e);
+    }
+
+    /**
+     * Execute the writes' rows in order and commit them in one transaction, or roll back and rethrow
+     */
+    private void commit(List<Write> batch) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            for (Write write : batch) {
+                for (Row row : write.rows()) {
+                    PreparedStatement statement = statements.get(row.op());
+                    bind(statement, row.params());
+                    int updated = statement.executeUpdate();
+                    if (updated == 0 && row.op().target != null) {
+                        throw new IllegalArgumentException("no " + row.op().target + " with id " + row.params()[row.params().length - 1]);
+                    }
+                }
+            }
+            writer.commit();
+        } catch (Throwable e) {
+            try {
+                writer.rollback();
+            } catch (SQLException rollbackError) {
+                log.warn("SQLite rollback failed", rollbackError);
+            }
+            throw e;
+        }
+        commitNanos.addAndGet(System.nanoTime() - start);
+        batches.incrementAndGet();
+        writesCommitted.addAndGet(batch.size());
+    }
+
+    private static void bind(PreparedStatement statement, Object[] params) throws SQLException {
+        for (int i = 0; i < params.length; i++) statement.setObject(i + 1, params[i]);
+    }
+
+    @Override
+    public String getStorageInfo() {
+        return "SQLite: " + (file != null ? file.toAbsolutePath() : "(closed)");
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        long batchCount = batches.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("open", running);
+        stats.put("jobs_saved", jobsSaved.get());
+        stats.put("pending_writes", writes.size());
+        stats.put("writes_committed", writesCommitted.get());
+        stats.put("batches", batchCount);
+        stats.put("failed_batches", failedBatches.get());
+        stats.put("failed_writes", failedWrites.get());
+        stats.put("avg_batch_size", batchCount == 0 ? 0.0 : Math.round(writesCommitted.get() * 10.0 / batchCount) / 10.0);
+        stats.put("avg_commit_us", batchCount == 0 ? 0 : commitNanos.get() / batchCount / 1_000);
+        return stats;
+    }
+}
@@ -1,6 +1,7 @@
 package com.telegram_notifier.service;
 
 import com.telegram_notifier.config.AppProperties;
+import com.telegram_notifier.config.WebClientFactory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
@@ -15,13 +16,16 @@ public class StartupService {
     private final AppProperties properties;
     private final JobNotificationService jobNotificationService;
     private final StorageService storageService;
+    private final WebClientFactory webClientFactory;
 
     public StartupService(AppProperties properties, 
                          JobNotificationService jobNotificationService,
-                         StorageService storageService) {
+                         StorageService storageService,
+                         WebClientFactory webClientFactory) {
         this.properties = properties;
         this.jobNotificationService = jobNotificationService;
         this.storageService = storageService;
+        this.webClientFactory = webClientFactory;
     }
 
     @EventListener(ApplicationReadyEvent.class)
@@ -35,8 +39,13 @@ public class StartupService {
         log.info("  Phone Number: {}", properties.getTelegram().getPhoneNumber());
         log.info("  Channels: {}", properties.getTelegram().getChannels());
         log.info("  Poll Interval: {} minutes", properties.getTelegram().getPollIntervalMinutes());
+        if (properties.getTelegram().isAdaptivePolling()) {
+            log.info("  Adaptive Polling: {}-{} minutes per channel", 
+                    properties.getTelegram().getMinPollIntervalMinutes(), properties.getTelegram().getMaxPollIntervalMinutes());
+        }
         log.info("  AI Model: {}", properties.getAi().getGemini().getModel());
         log.info("  Storage: {}", storageService.getStorageInfo());
+        log.info("  State Directory: {}", properties.getState().getDir());
         
         log.info("Available endpoints:");
         log.info("  POST /api/jobs/process-manual - Process a manual job posting");
@@ -47,6 +56,9 @@ public class StartupService {
         
         log.info("=".repeat(80));
         
+        // Open connections to Telegram, Gemini, Notion and the LaTeX service ahead of the first run
+        webClientFactory.prewarm();
+        
         // Initialize storage on startup
         try {
             log.info("Initializing storage...");
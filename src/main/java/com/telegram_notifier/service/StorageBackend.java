@@ -0,0 +1,55 @@
+package com.telegram_notifier.service;
+
+import com.telegram_notifier.model.JobDetails;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * A place jobs can be stored. {@link StorageService} uses one backend as the system of record,
+ * which assigns the job ids the rest of the app uses, and copies saved jobs to the others (sinks),
+ * which keep ids of their own.
+ */
+public interface StorageBackend {
+
+    /**
+     * Name used in {@code app.storage.type} and {@code app.storage.sinks}
+     */
+    String name();
+
+    /**
+     * @return this backend's id for the stored job
+     */
+    Mono<String> saveJobAsync(JobDetails jobDetails, String resumeLink);
+
+    /**
+     * Set the resume link of a job saved earlier, by this backend's id
+     */
+    Mono<Void> updateResumeLinkAsync(String id, String resumeLink);
+
+    /**
+     * Save a copy of a job the system of record stores as {@code localId}; backends that can keep
+     * that id with the copy should, so {@link #findSavedJobAsync} can find it again
+     * @return this backend's id for the copy
+     */
+    default Mono<String> saveCopyAsync(String localId, JobDetails jobDetails, String resumeLink) {
+        return saveJobAsync(jobDetails, resumeLink);
+    }
+
+    /**
+     * Id of the copy {@link #saveCopyAsync} stored for {@code localId}, so a retried save does not
+     * store it twice; empty if there is none or the backend cannot tell
+     */
+    default Mono<String> findSavedJobAsync(String localId) {
+        return Mono.empty();
+    }
+
+    /**
+     * Prepare (or describe) whatever schema the backend needs
+     */
+    default void createHeaders() {}
+
+    String getStorageInfo();
+
+    Map<String, Object> getStats();
+}
@@ -3,71 +3,167 @@ package com.telegram_notifier.service;
 import com.telegram_notifier.config.AppProperties;
 import com.telegram_notifier.model.JobDetails;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
+/**
+ * Saves jobs to the configured {@link StorageBackend}s.
+ * <p>
+ * {@code app.storage.type} picks the system of record. With the default, the embedded SQLite
+ * store, a save completes as soon as the job is committed locally together with one outbox entry
+ * per backend in {@code app.storage.sinks}; {@link OutboxReplicator} copies it there in the
+ * background and keeps the id each sink assigns (the Notion page id) so later resume links can
+ * follow the job. A sink that is slow or down never delays or fails a save, and nothing is lost
+ * while it is down.
+ */
 @Service
 public class StorageService {
 
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(StorageService.class);
 
     private final AppProperties properties;
-    private final NotionStorageService notionStorageService;
+    private final SqliteStorageBackend localStore;
+    private final OutboxReplicator replicator;
+    private final Map<String, StorageBackend> backends = new LinkedHashMap<>();
+    private volatile StorageBackend primary;
+    private volatile List<StorageBackend> sinks = List.of();
+    private volatile List<String> sinkNames = List.of();
 
-    public StorageService(AppProperties properties, NotionStorageService notionStorageService) {
+    public StorageService(AppProperties properties, SqliteStorageBackend localStore, OutboxReplicator replicator,
+                          List<StorageBackend> backends) {
         this.properties = properties;
-        this.notionStorageService = notionStorageService;
+        this.localStore = localStore;
+        this.replicator = replicator;
+        backends.forEach(backend -> this.backends.put(backend.name(), backend));
     }
 
     @PostConstruct
     public void init() {
-        String storageType = properties.getStorage().getType();
+        String storageType = properties.getStorage().getType().trim().toLowerCase(Locale.ROOT);
         log.info("Initializing storage service with type: {}", storageType);
-        
-        if (!"notion".equalsIgnoreCase(storageType)) {
-            log.warn("Storage type '{}' is not supported. Only 'notion' storage is available. Please update your configuration.", storageType);
-            log.warn("Using Notion storage as the only available option.");
+
+        StorageBackend selected = backends.get(storageType);
+        if (selected == null) {
+            log.warn("Storage type '{}' is not supported (available: {}). Using sqlite.", storageType, backends.keySet());
+            selected = localStore;
         }
-        
-        // Notion service initializes itself via @PostConstruct
-        log.info("✅ Notion storage service is available and ready");
-    }
 
-    public void saveJob(JobDetails jobDetails) {
-        saveJob(jobDetails, null);
-    }
-    
-    public void saveJob(JobDetails jobDetails, String resumeLink) {
-        try {
-            if (resumeLink != null) {
-                notionStorageService.saveJob(jobDetails, resumeLink);
-                log.debug("💾 Job saved to Notion with resume link: {} - {}", jobDetails.getCompany(), jobDetails.getRole());
-            } else {
-                notionStorageService.saveJob(jobDetails);
-                log.debug("💾 Job saved to Notion: {} - {}", jobDetails.getCompany(), jobDetails.getRole());
+        List<StorageBackend> selectedSinks = new ArrayList<>();
+        if (selected == localStore) {
+            for (String name : properties.getStorage().getSinks().split(",")) {
+                StorageBackend sink = backends.get(name.trim().toLowerCase(Locale.ROOT));
+                if (sink != null && sink != selected && !selectedSinks.contains(sink)) {
+                    selectedSinks.add(sink);
+                } else if (!name.isBlank() && sink == null) {
+                    log.warn("Ignoring unknown storage sink '{}'", name.trim());
+                }
             }
-        } catch (Exception e) {
-            log.error("❌ Failed to save job to Notion storage: {} - {}", jobDetails.getCompany(), jobDetails.getRole(), e);
-            throw new RuntimeException("Failed to save job to Notion storage", e);
         }
+        primary = selected;
+        sinks = List.copyOf(selectedSinks);
+        sinkNames = sinks.stream().map(StorageBackend::name).toList();
+        replicator.start(sinks);
+        log.info("✅ Storage ready: {}", getStorageInfo());
+    }
+
+    public String saveJob(JobDetails jobDetails) {
+        return saveJob(jobDetails, null);
+    }
+
+    /**
+     * @return id of the stored job record
+     */
+    public String saveJob(JobDetails jobDetails, String resumeLink) {
+        return saveJobAsync(jobDetails, resumeLink).block();
+    }
+
+    /**
+     * Non-blocking {@link #saveJob(JobDetails, String)}: completes once the system of record has
+     * the job; copies to sinks follow in the background
+     */
+    public Mono<String> saveJobAsync(JobDetails jobDetails, String resumeLink) {
+        StorageBackend target = primary;
+        // Flagged in the same transaction as the save, so a crash before the resume is queued loses nothing
+        boolean resumePending = resumeLink == null && properties.getResume().isGenerateEnabled();
+        Mono<String> save = target == localStore
+                ? localStore.saveJobAsync(jobDetails, resumeLink, resumePending, sinkNames)
+                : target.saveJobAsync(jobDetails, resumeLink);
+        return save
+                .doOnNext(jobId -> {
+                    log.debug("💾 Job saved to {}: {} - {}", target.name(), jobDetails.getCompany(), jobDetails.getRole());
+                    replicator.drain();
+                })
+                .onErrorMap(e -> {
+                    log.error("❌ Failed to save job to {} storage: {} - {}", target.name(), jobDetails.getCompany(), jobDetails.getRole(), e);
+                    return new RuntimeException("Failed to save job to " + target.name() + " storage", e);
+                });
+    }
+
+    /**
+     * Attach a resume generated after the job was saved
+     */
+    public Mono<Void> updateResumeLinkAsync(String jobId, String resumeLink) {
+        StorageBackend target = primary;
+        if (target != localStore) return target.updateResumeLinkAsync(jobId, resumeLink);
+        return localStore.updateResumeLinkAsync(jobId, resumeLink, sinkNames)
+                .doOnSuccess(ignored -> replicator.drain());
+    }
+
+    /**
+     * Jobs saved as needing a resume that never got one; always empty unless the local store is
+     * the system of record
+     */
+    public Mono<List<SqliteStorageBackend.StoredJob>> findJobsAwaitingResume() {
+        if (primary != localStore) return Mono.just(List.of());
+        return localStore.findJobsAwaitingResume()
+                .flatMapMany(Flux::fromIterable)
+                .concatMap(localStore::findJob)
+                .collectList();
+    }
+
+    /**
+     * Resume generation for the job was given up on
+     */
+    public Mono<Void> abandonResumeAsync(String jobId) {
+        return primary == localStore ? localStore.clearResumePendingAsync(jobId) : Mono.empty();
     }
 
     public void createHeaders() {
         try {
-            notionStorageService.createHeaders();
-            log.debug("📋 Notion storage headers initialized");
+            primary.createHeaders();
+            sinks.forEach(StorageBackend::createHeaders);
+            log.debug("📋 Storage headers initialized");
         } catch (Exception e) {
-            log.error("❌ Failed to create Notion storage headers", e);
-            throw new RuntimeException("Failed to create Notion storage headers", e);
+            log.error("❌ Failed to create storage headers", e);
+            throw new RuntimeException("Failed to create storage headers", e);
         }
     }
 
     public String getStorageInfo() {
         try {
-            return notionStorageService.getStorageInfo();
+            StringBuilder info = new StringBuilder(primary.getStorageInfo());
+            sinks.forEach(sink -> info.append(" -> ").append(sink.getStorageInfo()));
+            return info.toString();
         } catch (Exception e) {
-            log.error("❌ Failed to get Notion storage info", e);
-            return "Notion Storage (Status: Error - " + e.getMessage() + ")";
+            log.error("❌ Failed to get storage info", e);
+            return primary.name() + " Storage (Status: Error - " + e.getMessage() + ")";
         }
     }
-}
\ No newline at end of file
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("system_of_record", primary.name());
+        stats.put("sinks", sinkNames);
+        if (!sinks.isEmpty()) stats.put("outbox", replicator.getStats());
+        stats.put(primary.name(), primary.getStats());
+        sinks.forEach(sink -> stats.put(sink.name(), sink.getStats()));
+        return stats;
+    }
+}
@@ -1,19 +1,29 @@
 package com.telegram_notifier.service;
 
 import com.telegram_notifier.config.AppProperties;
+import com.telegram_notifier.config.WebClientFactory;
+import com.telegram_notifier.model.ChannelFetchStats;
 import com.telegram_notifier.model.TelegramMessage;
+import com.telegram_notifier.util.TelegramWidgetTokenizer;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import jakarta.annotation.PostConstruct;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.regex.Pattern;
-import java.util.regex.Matcher;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class TelegramService {
@@ -22,307 +32,453 @@ public class TelegramService {
 
     private final AppProperties properties;
     private final ChannelTimestampService timestampService;
+    private final ChannelPollScheduler pollScheduler;
+    private final KeywordPrefilter keywordPrefilter;
+    private final WebClientFactory webClientFactory;
     private WebClient webClient;
+
+    private static final String TELEGRAM_HOST = "t.me";
+    private static final String TELEGRAM_PREVIEW_URL = "https://t.me/s/";
+    private static final Duration RATE_LIMIT_PENALTY = Duration.ofSeconds(5);
+
+    private final Map<String, ChannelFetchStats> fetchStats = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> hostNextSlot = new ConcurrentHashMap<>();
+    private volatile Map<String, Object> lastFetchRun = new LinkedHashMap<>();
+    private final AtomicInteger backfillPages = new AtomicInteger();
+    private final AtomicLong backfillBudgetExhausted = new AtomicLong();
+
+    private static final String DATA_POST_ATTR = "data-post=\"";
+
+    // Validators and message-region fingerprint of each channel's newest page
+    private final Map<String, ChannelPageState> pageStates = new ConcurrentHashMap<>();
+
+    // Conditional fetch counters for the current run, plus running totals
+    private final AtomicLong notModifiedPages = new AtomicLong();
+    private final AtomicLong unchangedPages = new AtomicLong();
+    private final AtomicLong parsesSkipped = new AtomicLong();
+    private final AtomicLong bytesDownloaded = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+    private final Map<String, Long> conditionalFetchTotals = new ConcurrentHashMap<>();
     
     @Autowired
-    public TelegramService(AppProperties properties, ChannelTimestampService timestampService) {
+    public TelegramService(AppProperties properties, ChannelTimestampService timestampService,
+                           ChannelPollScheduler pollScheduler, KeywordPrefilter keywordPrefilter,
+                           WebClientFactory webClientFactory) {
         this.properties = properties;
         this.timestampService = timestampService;
+        this.pollScheduler = pollScheduler;
+        this.keywordPrefilter = keywordPrefilter;
+        this.webClientFactory = webClientFactory;
     }
 
     @PostConstruct
     public void initializeWebClient() {
         log.info("Initializing timestamp-based Telegram web scraping service...");
         
-        this.webClient = WebClient.builder()
-            .codecs(clientCodecConfigurer -> 
-                clientCodecConfigurer.defaultCodecs().maxInMemorySize(2 * 1024 * 1024)) // 2MB
+        // Shared keep-alive pool; the factory's client advertises gzip and decodes it transparently
+        this.webClient = webClientFactory
+            .builder("telegram", "https://" + TELEGRAM_HOST,
+                    Duration.ofSeconds(properties.getTelegram().getFetchTimeoutSeconds()),
+                    2 * 1024 * 1024) // 2MB
             .build();
             
         log.info("Telegram web scraping service initialized successfully");
     }
 
     /**
-     * Fetch only NEW messages (after last fetch time) from all channels
+     * Fetch only NEW messages (after last fetch time) from all channels.
+     * Channels are scraped concurrently, capped by {@code app.telegram.fetch-concurrency},
+     * with request starts to the same host spaced by {@code app.telegram.host-request-interval-millis}.
      */
     public List<TelegramMessage> fetchRecentMessages() {
-        List<TelegramMessage> allNewMessages = new ArrayList<>();
-        List<String> channels = getConfiguredChannels();
+        return fetchRecentMessages(getChannelNames());
+    }
+
+    /**
+     * Fetch only NEW messages from the given channels (names without the leading '@')
+     */
+    public List<TelegramMessage> fetchRecentMessages(List<String> channels) {
+        int concurrency = Math.max(1, properties.getTelegram().getFetchConcurrency());
         
-        log.info("Fetching NEW messages from {} channels using timestamp filtering", channels.size());
+        log.info("Fetching NEW messages from {} channels using timestamp filtering (concurrency: {})", 
+                channels.size(), concurrency);
         
         LocalDateTime fetchStartTime = LocalDateTime.now();
+        long runStart = System.nanoTime();
+        backfillPages.set(0);
+        notModifiedPages.set(0);
+        unchangedPages.set(0);
+        parsesSkipped.set(0);
+        bytesDownloaded.set(0);
+        bytesSaved.set(0);
         
-        for (String channel : channels) {
-            try {
-                String channelName = channel.trim();
-                if (channelName.startsWith("@")) {
-                    channelName = channelName.substring(1);
-                }
-                
-                List<TelegramMessage> channelMessages = fetchChannelMessages(channelName);
-                
-                // Filter to get only NEW messages (after last fetch time)
-                List<TelegramMessage> newMessages = filterNewMessages(channelName, channelMessages);
-                allNewMessages.addAll(newMessages);
-                
-                log.info("Channel @{}: Found {} total messages, {} are NEW", 
-                        channelName, channelMessages.size(), newMessages.size());
-                
-                // Update last fetch time for this channel
-                if (!newMessages.isEmpty()) {
-                    // Find the latest timestamp among new messages
-                    LocalDateTime latestTimestamp = newMessages.stream()
-                        .map(TelegramMessage::getTimestamp)
-                        .max(LocalDateTime::compareTo)
-                        .orElse(fetchStartTime);
-                    
-                    timestampService.updateLastFetchTime(channelName, latestTimestamp);
-                } else {
-                    // No new messages, update to current fetch time
-                    timestampService.updateLastFetchTime(channelName, fetchStartTime);
-                }
-                
-                // Add delay to avoid rate limiting
-                Thread.sleep(1000);
-                
-            } catch (Exception e) {
-                log.error("Failed to fetch messages from channel: {}", channel, e);
-            }
+        List<TelegramMessage> allNewMessages = Flux.fromIterable(channels)
+                .flatMapSequential(channelName -> fetchNewChannelMessages(channelName, fetchStartTime), concurrency)
+                .flatMapIterable(messages -> messages)
+                .collectList()
+                .block();
+        
+        long runMillis = (System.nanoTime() - runStart) / 1_000_000;
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("channels", channels.size());
+        run.put("concurrency", concurrency);
+        run.put("duration_ms", runMillis);
+        run.put("new_messages", allNewMessages != null ? allNewMessages.size() : 0);
+        run.put("backfill_pages", backfillPages.get());
+        run.put("not_modified_pages", notModifiedPages.get());
+        run.put("unchanged_pages", unchangedPages.get());
+        run.put("parses_skipped", parsesSkipped.get());
+        run.put("bytes_downloaded", bytesDownloaded.get());
+        run.put("bytes_saved", bytesSaved.get());
+        run.put("finished_at", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        lastFetchRun = run;
+        
+        conditionalFetchTotals.merge("not_modified_pages", notModifiedPages.get(), Long::sum);
+        conditionalFetchTotals.merge("unchanged_pages", unchangedPages.get(), Long::sum);
+        conditionalFetchTotals.merge("parses_skipped", parsesSkipped.get(), Long::sum);
+        conditionalFetchTotals.merge("bytes_downloaded", bytesDownloaded.get(), Long::sum);
+        conditionalFetchTotals.merge("bytes_saved", bytesSaved.get(), Long::sum);
+        
+        if (parsesSkipped.get() > 0) {
+            log.info("Skipped {} unchanged channel pages ({} bytes not downloaded)", parsesSkipped.get(), bytesSaved.get());
         }
         
-        log.info("Total NEW messages fetched: {}", allNewMessages.size());
-        return allNewMessages;
+        log.info("Total NEW messages fetched: {} in {} ms", allNewMessages != null ? allNewMessages.size() : 0, runMillis);
+        return allNewMessages != null ? allNewMessages : new ArrayList<>();
     }
 
-    private List<TelegramMessage> fetchChannelMessages(String channelName) {
-        List<TelegramMessage> messages = new ArrayList<>();
-        
-        try {
-            String url = "https://t.me/s/" + channelName;
-            log.debug("Scraping channel: {}", url);
-            
-            String html = webClient.get()
-                    .uri(url)
-                    .header("User-Agent", "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36")
-                    .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8")
-                    .header("Accept-Language", "en-US,en;q=0.5")
-                    .header("Accept-Encoding", "gzip, deflate")
-                    .header("Connection", "keep-alive")
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            
-            if (html == null) {
-                log.warn("No content received from channel: @{}", channelName);
-                return messages;
-            }
-            
-            // Check if channel exists and is accessible
-            if (html.contains("tgme_page_description") && html.contains("channel doesn't exist")) {
-                log.warn("Channel @{} doesn't exist or is not accessible", channelName);
-                return messages;
-            }
-            
-            messages = parseMessagesWithTimestamps(html, channelName);
-            log.debug("Successfully parsed {} messages with timestamps from @{}", messages.size(), channelName);
-            
-        } catch (WebClientResponseException e) {
-            if (e.getStatusCode().value() == 404) {
-                log.warn("Channel @{} not found (404)", channelName);
-            } else if (e.getStatusCode().value() == 403) {
-                log.warn("Channel @{} access forbidden (403) - may be private", channelName);
-            } else if (e.getStatusCode().value() == 429) {
-                log.warn("Rate limited while accessing @{} (429) - will retry later", channelName);
-            } else {
-                log.error("HTTP error accessing channel @{}: {} {}", channelName, e.getStatusCode(), e.getMessage());
-            }
-        } catch (Exception e) {
-            log.error("Unexpected error scraping channel @{}: {}", channelName, e.getMessage());
+    private String normalizeChannelName(String channel) {
+        String channelName = channel.trim();
+        if (channelName.startsWith("@")) {
+            channelName = channelName.substring(1);
         }
+        return channelName;
+    }
+
+    private Mono<List<TelegramMessage>> fetchNewChannelMessages(String channelName, LocalDateTime fetchStartTime) {
+        return fetchChannelMessages(channelName)
+                .map(channelMessages -> {
+                    // Posting rate counts every post above the cursor, not only the ones that pass the prefilter
+                    int postsSinceLastPoll = countPostsSinceLastPoll(channelName, channelMessages);
+                    
+                    // Filter to get only NEW messages (after the channel's cursor)
+                    List<TelegramMessage> newMessages = filterNewMessages(channelName, channelMessages);
+                    
+                    log.info("Channel @{}: Found {} total messages, {} are NEW", 
+                            channelName, channelMessages.size(), newMessages.size());
+                    
+                    // New job posts are in flight until acked; everything else we saw needs no processing
+                    long highestSeenId = channelMessages.stream()
+                        .mapToLong(TelegramMessage::getMessageId)
+                        .max()
+                        .orElse(0);
+                    timestampService.recordDispatched(channelName, newMessages, highestSeenId);
+                    
+                    // Update last fetch time for this channel
+                    if (!newMessages.isEmpty()) {
+                        // Find the latest timestamp among new messages
+                        LocalDateTime latestTimestamp = newMessages.stream()
+                            .map(TelegramMessage::getTimestamp)
+                            .max(LocalDateTime::compareTo)
+                            .orElse(fetchStartTime);
+                        
+                        timestampService.updateLastFetchTime(channelName, latestTimestamp);
+                    } else {
+                        // No new messages, update to current fetch time
+                        timestampService.updateLastFetchTime(channelName, fetchStartTime);
+                    }
+                    pollScheduler.recordPoll(channelName, postsSinceLastPoll);
+                    return newMessages;
+                })
+                .onErrorResume(e -> {
+                    log.error("Failed to fetch messages from channel: {}", channelName, e);
+                    // Nothing was dispatched, so the next poll must parse the newest page even if unchanged
+                    pageStates.remove(channelName);
+                    pollScheduler.recordPoll(channelName, 0);
+                    return Mono.just(new ArrayList<>());
+                });
+    }
+
+    /**
+     * Fetch the newest page of a channel, then walk back with {@code ?before=<id>} until the
+     * channel's cursor is reached or {@code app.telegram.backfill-max-pages} extra pages were read.
+     * Returns every parsed message (job-relevant or not) in ascending id order, or fails if an
+     * older page could not be fetched, so the cursor stays put and the next poll walks back again.
+     */
+    private Mono<List<TelegramMessage>> fetchChannelMessages(String channelName) {
+        int maxPages = 1 + Math.max(0, properties.getTelegram().getBackfillMaxPages());
         
-        return messages;
+        return fetchChannelPage(channelName, 0)
+                .expand(page -> needsOlderPage(channelName, page)
+                        ? fetchChannelPage(channelName, oldestMessageId(page)).doOnSubscribe(s -> backfillPages.incrementAndGet())
+                        : Mono.<List<TelegramMessage>>empty())
+                .take(maxPages)
+                .collectList()
+                .map(pages -> {
+                    TreeMap<Long, TelegramMessage> byId = new TreeMap<>();
+                    List<TelegramMessage> withoutId = new ArrayList<>();
+                    for (List<TelegramMessage> page : pages) {
+                        for (TelegramMessage message : page) {
+                            if (message.getMessageId() > 0) {
+                                byId.putIfAbsent(message.getMessageId(), message);
+                            } else {
+                                withoutId.add(message);
+                            }
+                        }
+                    }
+                    
+                    List<TelegramMessage> messages = new ArrayList<>(byId.values());
+                    messages.addAll(withoutId);
+                    
+                    if (pages.size() == maxPages && !pages.isEmpty() && needsOlderPage(channelName, pages.get(pages.size() - 1))) {
+                        log.warn("Channel @{}: backfill page budget ({}) exhausted before reaching cursor {} - older posts are skipped",
+                                channelName, maxPages - 1, timestampService.getLastMessageId(channelName));
+                        backfillBudgetExhausted.incrementAndGet();
+                    }
+                    return messages;
+                });
     }
 
-    private List<TelegramMessage> parseMessagesWithTimestamps(String html, String channelName) {
-        List<TelegramMessage> messages = new ArrayList<>();
+    /**
+     * True if the page is non-empty and its oldest message is still newer than what we have seen,
+     * i.e. there may be unseen posts between the cursor and this page.
+     */
+    private boolean needsOlderPage(String channelName, List<TelegramMessage> page) {
+        long oldestId = oldestMessageId(page);
+        if (oldestId <= 1) {
+            return false;
+        }
+        if (timestampService.hasMessageCursor(channelName)) {
+            return oldestId > timestampService.getLastMessageId(channelName) + 1;
+        }
+        // No cursor yet: walk back while the whole page is inside the initial time window
+        LocalDateTime oldestTime = page.stream()
+                .map(TelegramMessage::getTimestamp)
+                .min(LocalDateTime::compareTo)
+                .orElse(null);
+        return oldestTime != null && timestampService.isMessageNew(channelName, oldestTime);
+    }
+
+    private long oldestMessageId(List<TelegramMessage> page) {
+        return page.stream()
+                .mapToLong(TelegramMessage::getMessageId)
+                .filter(id -> id > 0)
+                .min()
+                .orElse(0);
+    }
+
+    private Mono<List<TelegramMessage>> fetchChannelPage(String channelName, long beforeId) {
+        String url = TELEGRAM_PREVIEW_URL + channelName + (beforeId > 0 ? "?before=" + beforeId : "");
+        ChannelFetchStats stats = fetchStats.computeIfAbsent(channelName, ChannelFetchStats::new);
+        // Only the newest page is revalidated; ?before= pages are immutable history. A channel with
+        // posts awaiting redelivery is always parsed: those posts are on pages that did not change.
+        boolean revalidate = beforeId == 0 && !timestampService.hasPendingRedelivery(channelName);
+        ChannelPageState pageState = revalidate ? pageStates.get(channelName) : null;
         
-        try {
-            // Pattern to match entire message blocks with timestamps
-            Pattern messageBlockPattern = Pattern.compile(
-                "<div class=\"tgme_widget_message[^\"]*\"[^>]*data-post=\"[^\"]+\"[^>]*>(.*?)</div>\\s*</div>", 
-                Pattern.DOTALL | Pattern.CASE_INSENSITIVE
-            );
-            
-            Matcher blockMatcher = messageBlockPattern.matcher(html);
-            
-            while (blockMatcher.find()) {
-                String messageBlock = blockMatcher.group(1);
-                
-                // Extract message content
-                String messageContent = extractMessageContent(messageBlock);
-                if (messageContent == null || !isValidJobMessage(messageContent)) {
-                    continue;
-                }
-                
-                // Extract timestamp
-                LocalDateTime messageTime = extractTimestamp(messageBlock);
-                if (messageTime == null) {
-                    // If no timestamp found, use current time minus a small offset
-                    messageTime = LocalDateTime.now().minusMinutes(messages.size());
-                }
-                
-                TelegramMessage message = new TelegramMessage(messageContent, messageTime, channelName);
-                messages.add(message);
-                
-                // Limit to avoid memory issues
-                if (messages.size() >= 20) {
-                    break;
-                }
+        return Mono.defer(() -> Mono.delay(reserveHostSlot(TELEGRAM_HOST))
+                .then(Mono.defer(() -> {
+                    long started = System.nanoTime();
+                    log.debug("Scraping channel: {}", url);
+                    
+                    return webClient.get()
+                            .uri(url)
+                            .headers(headers -> {
+                                headers.set("User-Agent", "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36");
+                                headers.set("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8");
+                                headers.set("Accept-Language", "en-US,en;q=0.5");
+                                if (pageState != null && pageState.etag != null) {
+                                    headers.set(HttpHeaders.IF_NONE_MATCH, pageState.etag);
+                                }
+                                if (pageState != null && pageState.lastModified != null) {
+                                    headers.set(HttpHeaders.IF_MODIFIED_SINCE, pageState.lastModified);
+                                }
+                            })
+                            .exchangeToMono(response -> readChannelPage(response, channelName, beforeId == 0, pageState))
+                            .defaultIfEmpty(new ArrayList<>())
+                            .doOnNext(messages -> stats.recordSuccess(elapsedMillis(started), messages.size()))
+                            .onErrorResume(e -> {
+                                stats.recordError(elapsedMillis(started), describeFetchError(channelName, e));
+                                // A lost backfill page must fail the poll: read as empty, it would end the
+                                // walk and the cursor would move past posts that were never fetched
+                                return beforeId > 0 ? Mono.error(e) : Mono.just(new ArrayList<>());
+                            });
+                })));
+    }
+
+    /**
+     * Handle a channel page response. A 304, or a 200 whose message-region fingerprint matches
+     * the previous fetch, short-circuits to an empty list without parsing; callers pass no
+     * previous state when the page must be parsed regardless.
+     */
+    private Mono<List<TelegramMessage>> readChannelPage(ClientResponse response, String channelName,
+                                                        boolean headPage, ChannelPageState previous) {
+        if (response.statusCode().value() == 304) {
+            notModifiedPages.incrementAndGet();
+            parsesSkipped.incrementAndGet();
+            if (previous != null) {
+                bytesSaved.addAndGet(previous.bodyBytes);
             }
-            
-        } catch (Exception e) {
-            log.error("Error parsing messages with timestamps from HTML", e);
+            log.debug("Channel @{} not modified (304)", channelName);
+            return response.releaseBody().then(Mono.just(new ArrayList<>()));
+        }
+        if (!response.statusCode().is2xxSuccessful()) {
+            return response.createError();
         }
         
-        return messages;
+        HttpHeaders responseHeaders = response.headers().asHttpHeaders();
+        String etag = responseHeaders.getETag();
+        String lastModified = responseHeaders.getFirst(HttpHeaders.LAST_MODIFIED);
+        long contentLength = responseHeaders.getContentLength();
+        
+        return response.bodyToMono(String.class)
+                .map(html -> {
+                    // Wire size when the server reports it, decoded size otherwise
+                    long bodyBytes = contentLength > 0 ? contentLength : html.length();
+                    bytesDownloaded.addAndGet(bodyBytes);
+                    if (!headPage) {
+                        return parseChannelPage(html, channelName);
+                    }
+                    
+                    long fingerprint = messageRegionFingerprint(html);
+                    pageStates.put(channelName, new ChannelPageState(etag, lastModified, fingerprint, bodyBytes));
+                    if (previous != null && previous.fingerprint == fingerprint) {
+                        unchangedPages.incrementAndGet();
+                        parsesSkipped.incrementAndGet();
+                        log.debug("Channel @{} page unchanged (same message ids), skipping parse", channelName);
+                        return new ArrayList<>();
+                    }
+                    return parseChannelPage(html, channelName);
+                });
     }
 
-    private String extractMessageContent(String messageBlock) {
-        // Multiple patterns to catch different message formats
-        List<Pattern> patterns = Arrays.asList(
-            Pattern.compile(
-                "<div class=\"tgme_widget_message_text[^\"]*\"[^>]*>(.*?)</div>", 
-                Pattern.DOTALL | Pattern.CASE_INSENSITIVE
-            ),
-            Pattern.compile(
-                "<div class=\"tgme_widget_message_media_caption[^\"]*\"[^>]*>(.*?)</div>", 
-                Pattern.DOTALL | Pattern.CASE_INSENSITIVE
-            )
-        );
-        
-        for (Pattern pattern : patterns) {
-            Matcher matcher = pattern.matcher(messageBlock);
-            if (matcher.find()) {
-                String content = cleanHtmlContent(matcher.group(1));
-                if (content != null && !content.trim().isEmpty()) {
-                    return content;
-                }
+    /**
+     * Hash of the sequence of data-post ids on the page. Views counters, CSRF tokens and other
+     * volatile markup are ignored, so the hash only changes when posts are added or removed.
+     */
+    private long messageRegionFingerprint(String html) {
+        long hash = 0xcbf29ce484222325L; // FNV-1a 64-bit
+        int from = 0;
+        while (true) {
+            int idx = html.indexOf(DATA_POST_ATTR, from);
+            if (idx < 0) break;
+            int start = idx + DATA_POST_ATTR.length();
+            int end = html.indexOf('"', start);
+            if (end < 0) break;
+            for (int i = start; i <= end; i++) {
+                hash ^= html.charAt(i);
+                hash *= 0x100000001b3L;
             }
+            from = end + 1;
+        }
+        return hash;
+    }
+
+    private List<TelegramMessage> parseChannelPage(String html, String channelName) {
+        // Check if channel exists and is accessible
+        if (html.contains("tgme_page_description") && html.contains("channel doesn't exist")) {
+            log.warn("Channel @{} doesn't exist or is not accessible", channelName);
+            return new ArrayList<>();
         }
         
-        return null;
+        List<TelegramMessage> messages = parseMessagesWithTimestamps(html, channelName);
+        log.debug("Successfully parsed {} messages with timestamps from @{}", messages.size(), channelName);
+        return messages;
     }
 
-    private LocalDateTime extractTimestamp(String messageBlock) {
-        try {
-            // Look for timestamp in datetime attribute
-            Pattern timestampPattern = Pattern.compile(
-                "<time[^>]+datetime=\"([^\"]+)\"", 
-                Pattern.CASE_INSENSITIVE
-            );
-            
-            Matcher matcher = timestampPattern.matcher(messageBlock);
-            if (matcher.find()) {
-                String datetimeStr = matcher.group(1);
-                
-                // Parse ISO datetime format from Telegram
-                // Example: "2024-08-25T04:15:51+00:00"
-                return LocalDateTime.parse(datetimeStr.substring(0, 19), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    private String describeFetchError(String channelName, Throwable e) {
+        if (e instanceof WebClientResponseException responseException) {
+            int status = responseException.getStatusCode().value();
+            if (status == 404) {
+                log.warn("Channel @{} not found (404)", channelName);
+            } else if (status == 403) {
+                log.warn("Channel @{} access forbidden (403) - may be private", channelName);
+            } else if (status == 429) {
+                log.warn("Rate limited while accessing @{} (429) - will retry later", channelName);
+                // Push back every pending request to this host
+                hostNextSlot.computeIfAbsent(TELEGRAM_HOST, host -> new AtomicLong())
+                        .accumulateAndGet(System.nanoTime() + RATE_LIMIT_PENALTY.toNanos(), Math::max);
+            } else {
+                log.error("HTTP error accessing channel @{}: {} {}", channelName, responseException.getStatusCode(), e.getMessage());
             }
-            
-            // Alternative: look for relative time and convert
-            Pattern relativeTimePattern = Pattern.compile(
-                "<span class=\"tgme_widget_message_date\"[^>]*title=\"([^\"]+)\"", 
-                Pattern.CASE_INSENSITIVE
-            );
-            
-            matcher = relativeTimePattern.matcher(messageBlock);
-            if (matcher.find()) {
-                String timeStr = matcher.group(1);
-                return parseRelativeTime(timeStr);
+            return "HTTP " + status;
+        }
+        if (e instanceof TimeoutException) {
+            log.warn("Timed out scraping channel @{}", channelName);
+            return "timeout";
+        }
+        log.error("Unexpected error scraping channel @{}: {}", channelName, e.getMessage());
+        return e.getClass().getSimpleName() + ": " + e.getMessage();
+    }
+
+    /**
+     * Reserve the next request slot for a host and return how long the caller must wait for it.
+     */
+    private Duration reserveHostSlot(String host) {
+        long interval = TimeUnit.MILLISECONDS.toNanos(Math.max(0, properties.getTelegram().getHostRequestIntervalMillis()));
+        AtomicLong nextSlot = hostNextSlot.computeIfAbsent(host, h -> new AtomicLong());
+        while (true) {
+            long now = System.nanoTime();
+            long reserved = nextSlot.get();
+            long slot = Math.max(now, reserved);
+            if (nextSlot.compareAndSet(reserved, slot + interval)) {
+                return Duration.ofNanos(slot - now);
             }
-            
-        } catch (DateTimeParseException e) {
-            log.debug("Could not parse timestamp from message block", e);
-        } catch (Exception e) {
-            log.debug("Error extracting timestamp from message block", e);
         }
-        
-        return null;
     }
 
-    private LocalDateTime parseRelativeTime(String timeStr) {
+    private long elapsedMillis(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1_000_000;
+    }
+
+    private List<TelegramMessage> parseMessagesWithTimestamps(String html, String channelName) {
+        List<TelegramMessage> messages = new ArrayList<>();
+        
         try {
-            // Handle formats like "Aug 25, 2024 at 09:45:51"
-            if (timeStr.contains("at")) {
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM d, yyyy 'at' HH:mm:ss", Locale.ENGLISH);
-                return LocalDateTime.parse(timeStr, formatter);
+            for (TelegramMessage message : TelegramWidgetTokenizer.parse(html, channelName)) {
+                if (message.getTimestamp() == null) {
+                    // If no timestamp found, use current time minus a small offset
+                    message = message.withTimestamp(LocalDateTime.now().minusMinutes(messages.size()));
+                }
+                messages.add(message);
             }
             
-            // Handle other formats as needed
-            log.debug("Unhandled time format: {}", timeStr);
-        } catch (DateTimeParseException e) {
-            log.debug("Could not parse relative time: {}", timeStr, e);
+        } catch (Exception e) {
+            log.error("Error parsing messages with timestamps from HTML", e);
         }
         
-        return null;
+        return messages;
     }
 
-    private String cleanHtmlContent(String content) {
-        if (content == null) return "";
-        
-        return content
-                .replaceAll("<[^>]+>", "")
-                .replaceAll("&amp;", "&")
-                .replaceAll("&lt;", "<")
-                .replaceAll("&gt;", ">")
-                .replaceAll("&quot;", "\"")
-                .replaceAll("&nbsp;", " ")
-                .replaceAll("&mdash;", "—")
-                .replaceAll("&ndash;", "–")
-                .replaceAll("\\s+", " ")
-                .trim();
+    private boolean isValidJobMessage(String content) {
+        return keywordPrefilter.accepts(content);
     }
 
-    private boolean isValidJobMessage(String content) {
-        if (content == null || content.trim().isEmpty()) {
-            return false;
-        }
-        
-        if (content.length() < 50) {
-            return false;
-        }
-        
-        String lowerContent = content.toLowerCase();
-        if (lowerContent.contains("subscribe to") || 
-            lowerContent.contains("join our") ||
-            lowerContent.contains("follow us") ||
-            lowerContent.startsWith("👆") ||
-            lowerContent.startsWith("⬆️")) {
-            return false;
+    /**
+     * Posts of any kind published since the channel was last polled: ids above the dispatched
+     * position, or timestamps inside the initial window while the channel has no cursor
+     */
+    private int countPostsSinceLastPoll(String channelName, List<TelegramMessage> messages) {
+        boolean hasCursor = timestampService.hasMessageCursor(channelName);
+        long dispatched = timestampService.getDispatchedMessageId(channelName);
+        int count = 0;
+        for (TelegramMessage message : messages) {
+            boolean isNew = hasCursor && message.getMessageId() > 0
+                    ? message.getMessageId() > dispatched
+                    : message.getTimestamp() != null && timestampService.isMessageNew(channelName, message.getTimestamp());
+            if (isNew) count++;
         }
-        
-        return lowerContent.contains("job") || 
-               lowerContent.contains("hiring") || 
-               lowerContent.contains("position") || 
-               lowerContent.contains("vacancy") || 
-               lowerContent.contains("developer") || 
-               lowerContent.contains("engineer") || 
-               lowerContent.contains("salary") ||
-               lowerContent.contains("remote") ||
-               lowerContent.contains("experience") ||
-               lowerContent.contains("apply");
+        return count;
     }
 
     /**
-     * Filter messages to only include those newer than last fetch time
+     * Filter messages to only include job posts newer than the channel's cursor
      */
     private List<TelegramMessage> filterNewMessages(String channelName, List<TelegramMessage> messages) {
         List<TelegramMessage> newMessages = new ArrayList<>();
         
         for (TelegramMessage message : messages) {
-            if (timestampService.isMessageNew(channelName, message.getTimestamp())) {
+            if (timestampService.isMessageNew(channelName, message.getMessageId(), message.getTimestamp())
+                    && isValidJobMessage(message.getContent())) {
                 newMessages.add(message);
             }
         }
@@ -330,6 +486,15 @@ public class TelegramService {
         return newMessages;
     }
 
+    /**
+     * Configured channels, normalized to names without the leading '@'
+     */
+    public List<String> getChannelNames() {
+        return getConfiguredChannels().stream()
+                .map(this::normalizeChannelName)
+                .collect(java.util.stream.Collectors.toList());
+    }
+
     private List<String> getConfiguredChannels() {
         String channelsConfig = properties.getTelegram().getChannels();
         if (channelsConfig == null || channelsConfig.trim().isEmpty()) {
@@ -350,11 +515,38 @@ public class TelegramService {
         status.put("channels_configured", getConfiguredChannels().size());
         status.put("channels", getConfiguredChannels());
         status.put("channel_last_fetch", timestampService.getChannelStatus());
+        status.put("channel_cursors", timestampService.getChannelCursors());
+        status.put("cursor_store", timestampService.getCursorStoreStatus());
+        status.put("backfill_max_pages", properties.getTelegram().getBackfillMaxPages());
+        status.put("backfill_budget_exhausted", backfillBudgetExhausted.get());
+        status.put("fetch_concurrency", properties.getTelegram().getFetchConcurrency());
+        status.put("last_fetch_run", lastFetchRun);
+        status.put("conditional_fetch_totals", new TreeMap<>(conditionalFetchTotals));
+        status.put("prefilter", keywordPrefilter.getStatus());
+        
+        Map<String, Object> channelStats = new TreeMap<>();
+        fetchStats.forEach((channel, stats) -> channelStats.put("@" + channel, stats.toStatusMap()));
+        status.put("channel_fetch_stats", channelStats);
         return status;
     }
 
     public void resetChannelTimestamps() {
         timestampService.resetAllChannels();
+        pageStates.clear();
         log.info("Reset all channel timestamps");
     }
-}
\ No newline at end of file
+
+    private static final class ChannelPageState {
+        private final String etag;
+        private final String lastModified;
+        private final long fingerprint;
+        private final long bodyBytes;
+
+        private ChannelPageState(String etag, String lastModified, long fingerprint, long bodyBytes) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.fingerprint = fingerprint;
+            this.bodyBytes = bodyBytes;
+        }
+    }
+}
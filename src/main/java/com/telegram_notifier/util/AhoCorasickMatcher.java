@@ -0,0 +1,138 @@
+package com.telegram_notifier.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Case-insensitive Aho-Corasick automaton over a fixed dictionary.
+ * <p>
+ * Patterns are compiled once; {@link #scan} then finds every occurrence of every pattern in a
+ * single left-to-right pass over the text, lowercasing one char at a time instead of copying
+ * the input. Transitions are stored as sorted per-state char arrays, which keeps the automaton
+ * compact for the small dictionaries used here.
+ */
+public final class AhoCorasickMatcher {
+
+    /**
+     * Receives matches in order of their end position.
+     */
+    @FunctionalInterface
+    public interface MatchListener {
+        /**
+         * @param patternIndex index of the pattern in the list given to the constructor
+         * @param start index of the first char of the match in the scanned text
+         * @return false to stop scanning
+         */
+        boolean onMatch(int patternIndex, int start);
+    }
+
+    private final int[] patternLengths;
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    private final int[][] outputs;
+
+    public AhoCorasickMatcher(List<String> patterns) {
+        patternLengths = new int[patterns.size()];
+
+        // Build the trie
+        List<Map<Character, Integer>> children = new ArrayList<>();
+        List<List<Integer>> out = new ArrayList<>();
+        children.add(new HashMap<>());
+        out.add(new ArrayList<>());
+
+        for (int p = 0; p < patterns.size(); p++) {
+            String pattern = patterns.get(p);
+            patternLengths[p] = pattern.length();
+            if (pattern.isEmpty()) continue;
+
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = Character.toLowerCase(pattern.charAt(i));
+                Integer next = children.get(state).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new HashMap<>());
+                    out.add(new ArrayList<>());
+                    children.get(state).put(c, next);
+                }
+                state = next;
+            }
+            out.get(state).add(p);
+        }
+
+        int states = children.size();
+        edgeChars = new char[states][];
+        edgeTargets = new int[states][];
+        for (int s = 0; s < states; s++) {
+            Map<Character, Integer> edges = children.get(s);
+            char[] chars = new char[edges.size()];
+            int i = 0;
+            for (char c : edges.keySet()) chars[i++] = c;
+            Arrays.sort(chars);
+            int[] targets = new int[chars.length];
+            for (i = 0; i < chars.length; i++) targets[i] = edges.get(chars[i]);
+            edgeChars[s] = chars;
+            edgeTargets[s] = targets;
+        }
+
+        // Breadth-first failure links; outputs inherit the outputs of their failure state
+        fail = new int[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int target : edgeTargets[0]) {
+            queue.add(target);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i < edgeChars[state].length; i++) {
+                char c = edgeChars[state][i];
+                int child = edgeTargets[state][i];
+                int f = fail[state];
+                while (f != 0 && step(f, c) < 0) f = fail[f];
+                int target = step(f, c);
+                fail[child] = target >= 0 && target != child ? target : 0;
+                out.get(child).addAll(out.get(fail[child]));
+                queue.add(child);
+            }
+        }
+
+        outputs = new int[states][];
+        for (int s = 0; s < states; s++) {
+            outputs[s] = out.get(s).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    public int patternCount() {
+        return patternLengths.length;
+    }
+
+    /**
+     * Scan the text once, reporting every pattern occurrence
+     */
+    public void scan(CharSequence text, MatchListener listener) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int next;
+            while ((next = step(state, c)) < 0 && state != 0) {
+                state = fail[state];
+            }
+            state = next < 0 ? 0 : next;
+            for (int p : outputs[state]) {
+                if (!listener.onMatch(p, i - patternLengths[p] + 1)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private int step(int state, char c) {
+        int idx = Arrays.binarySearch(edgeChars[state], c);
+        return idx >= 0 ? edgeTargets[state][idx] : -1;
+    }
+}
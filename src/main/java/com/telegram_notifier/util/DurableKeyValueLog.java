@@ -0,0 +1,280 @@
+package com.telegram_notifier.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Small crash-safe string key/value store backed by an append-only log file.
+ * <p>
+ * Every {@link #put}/{@link #remove} appends one line {@code <crc32>\t<key>\t<value>} with a
+ * single write, so once the call returns the record is in the OS page cache and survives the
+ * process being killed. A record torn by a crash mid-write fails its checksum and is dropped
+ * (together with anything after it) on the next open. When the log holds many more records than
+ * live keys it is compacted: the current map is written to a temp file, forced to disk and
+ * atomically moved over the log. With {@code fsync} enabled every append is also forced to disk,
+ * which additionally survives power loss at the cost of one fsync per update.
+ * <p>
+ * All methods are thread-safe; the whole map is kept in memory, so this is meant for small
+ * state like cursors and queues, not bulk data.
+ */
+public final class DurableKeyValueLog implements Closeable {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(DurableKeyValueLog.class);
+
+    private static final String TOMBSTONE = "\u0000";
+
+    private final Path file;
+    private final boolean fsync;
+    private final int compactionThreshold;
+
+    private final Map<String, String> entries = new LinkedHashMap<>();
+    private FileChannel channel;
+    private int records;
+    private int droppedRecords;
+
+    /**
+     * Open (or create) the log and replay it.
+     * @param file log file; parent directories are created
+     * @param fsync force every append to disk
+     * @param compactionThreshold minimum number of records before the log is compacted
+     */
+    public DurableKeyValueLog(Path file, boolean fsync, int compactionThreshold) throws IOException {
+        this.file = file;
+        this.fsync = fsync;
+        this.compactionThreshold = Math.max(16, compactionThreshold);
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        long validBytes = replay();
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (channel.size() > validBytes) {
+            // Cut off a torn tail so new records are not appended after garbage
+            log.warn("Truncating {} corrupt bytes at the end of {}", channel.size() - validBytes, file);
+            channel.truncate(validBytes);
+        }
+        channel.position(channel.size());
+        if (validBytes > channel.size()) {
+            // Last record is intact but lost its newline
+            channel.write(ByteBuffer.wrap(new byte[] { '\n' }));
+        }
+    }
+
+    private long replay() throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        long validBytes = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = readLine(reader)) != null) {
+                String[] record = decode(line);
+                if (record == null) {
+                    droppedRecords++;
+                    break;
+                }
+                if (TOMBSTONE.equals(record[1])) {
+                    entries.remove(record[0]);
+                } else {
+                    entries.put(record[0], record[1]);
+                }
+                records++;
+                validBytes += line.getBytes(StandardCharsets.UTF_8).length + 1;
+            }
+        }
+        if (droppedRecords > 0) {
+            log.warn("Dropped a torn record at the end of {}", file);
+        }
+        log.debug("Replayed {} records ({} live keys) from {}", records, entries.size(), file);
+        return validBytes;
+    }
+
+    private String readLine(BufferedReader reader) throws IOException {
+        try {
+            return reader.readLine();
+        } catch (CharacterCodingException e) {
+            // Half-written multi-byte char at the tail
+            droppedRecords++;
+            return null;
+        }
+    }
+
+    public synchronized String get(String key) {
+        return entries.get(key);
+    }
+
+    public synchronized Map<String, String> snapshot() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(entries));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Key written longest ago (insertion order), or null if empty
+     */
+    public synchronized String oldestKey() {
+        return entries.isEmpty() ? null : entries.keySet().iterator().next();
+    }
+
+    /**
+     * Durably set a key. Writing the value it already has is a no-op.
+     */
+    public synchronized void put(String key, String value) {
+        if (value == null) {
+            remove(key);
+            return;
+        }
+        if (value.equals(entries.get(key))) {
+            return;
+        }
+        append(key, value);
+        entries.put(key, value);
+        maybeCompact();
+    }
+
+    public synchronized void remove(String key) {
+        if (!entries.containsKey(key)) {
+            return;
+        }
+        append(key, TOMBSTONE);
+        entries.remove(key);
+        maybeCompact();
+    }
+
+    /**
+     * Drop every key and truncate the log
+     */
+    public synchronized void clear() {
+        entries.clear();
+        compact();
+    }
+
+    private void append(String key, String value) {
+        ByteBuffer buffer = ByteBuffer.wrap(encode(key, value).getBytes(StandardCharsets.UTF_8));
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+            records++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to " + file, e);
+        }
+    }
+
+    private void maybeCompact() {
+        if (records >= compactionThreshold && records > entries.size() * 4) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        Path temp = file.resolveSibling(file.getFileName() + ".compact");
+        try {
+            StringBuilder content = new StringBuilder();
+            entries.forEach((key, value) -> content.append(encode(key, value)));
+            Files.writeString(temp, content, StandardCharsets.UTF_8);
+            try (FileChannel tempChannel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                tempChannel.force(true);
+            }
+
+            channel.close();
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(file, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+
+            log.debug("Compacted {} from {} records to {}", file, records, entries.size());
+            records = entries.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compact " + file, e);
+        }
+    }
+
+    /**
+     * Records in the log and records dropped as corrupt on open
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("file", file.toString());
+        stats.put("keys", entries.size());
+        stats.put("log_records", records);
+        stats.put("corrupt_records_dropped", droppedRecords);
+        stats.put("fsync", fsync);
+        return stats;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private static String encode(String key, String value) {
+        String body = escape(key) + "\t" + escape(value);
+        return checksum(body) + "\t" + body + "\n";
+    }
+
+    private static String[] decode(String line) {
+        int first = line.indexOf('\t');
+        if (first < 0) return null;
+        String body = line.substring(first + 1);
+        if (!line.substring(0, first).equals(checksum(body))) return null;
+        int second = body.indexOf('\t');
+        if (second < 0) return null;
+        return new String[] { unescape(body.substring(0, second)), unescape(body.substring(second + 1)) };
+    }
+
+    private static String checksum(String body) {
+        CRC32 crc = new CRC32();
+        crc.update(body.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    private static String escape(String s) {
+        StringBuilder out = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\': out.append("\\\\"); break;
+                case '\t': out.append("\\t"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                default: out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static String unescape(String s) {
+        if (s.indexOf('\\') < 0) return s;
+        StringBuilder out = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length()) {
+                char next = s.charAt(++i);
+                out.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+}
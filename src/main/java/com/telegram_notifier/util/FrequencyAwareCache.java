@@ -0,0 +1,125 @@
+package com.telegram_notifier.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded in-memory cache with TinyLFU-style admission.
+ * <p>
+ * Entries are kept in LRU order, and a small count-min sketch estimates how often each key has
+ * been requested recently. When the cache is full, a new key only replaces the LRU victim if it
+ * has been seen more often, so a burst of one-off keys cannot flush out entries that keep being
+ * hit. The sketch halves all counters every {@code 10 * capacity} increments, so old popularity
+ * fades. All methods are synchronized.
+ */
+public final class FrequencyAwareCache<K, V> {
+
+    private static final int SKETCH_DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = { 0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F };
+
+    private final int capacity;
+    private final LinkedHashMap<K, V> entries;
+    private final int[][] sketch;
+    private final int sketchMask;
+    private final int resetAfter;
+    private int increments;
+
+    private long evictions;
+    private long rejections;
+
+    public FrequencyAwareCache(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        int width = Integer.highestOneBit(Math.max(16, this.capacity * 2) - 1) << 1;
+        this.sketch = new int[SKETCH_DEPTH][width];
+        this.sketchMask = width - 1;
+        this.resetAfter = this.capacity * 10;
+    }
+
+    public synchronized V get(K key) {
+        increment(key);
+        return entries.get(key);
+    }
+
+    /**
+     * Insert or replace a value. Returns false if the key was not admitted.
+     */
+    public synchronized boolean put(K key, V value) {
+        if (entries.containsKey(key) || entries.size() < capacity) {
+            entries.put(key, value);
+            return true;
+        }
+
+        Iterator<Map.Entry<K, V>> lru = entries.entrySet().iterator();
+        K victim = lru.next().getKey();
+        if (frequency(key) <= frequency(victim)) {
+            rejections++;
+            return false;
+        }
+        lru.remove();
+        evictions++;
+        entries.put(key, value);
+        return true;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        for (int[] row : sketch) {
+            java.util.Arrays.fill(row, 0);
+        }
+        increments = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    public synchronized long rejections() {
+        return rejections;
+    }
+
+    private void increment(K key) {
+        int hash = spread(key.hashCode());
+        for (int row = 0; row < SKETCH_DEPTH; row++) {
+            int index = indexOf(hash, row);
+            if (sketch[row][index] < MAX_COUNT) {
+                sketch[row][index]++;
+            }
+        }
+        if (++increments >= resetAfter) {
+            for (int[] counters : sketch) {
+                for (int i = 0; i < counters.length; i++) {
+                    counters[i] >>>= 1;
+                }
+            }
+            increments /= 2;
+        }
+    }
+
+    private int frequency(K key) {
+        int hash = spread(key.hashCode());
+        int min = MAX_COUNT;
+        for (int row = 0; row < SKETCH_DEPTH; row++) {
+            min = Math.min(min, sketch[row][indexOf(hash, row)]);
+        }
+        return min;
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = hash * SEEDS[row];
+        return (h ^ (h >>> 16)) & sketchMask;
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x45D9F3B;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,153 @@
+package com.telegram_notifier.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Online logistic regression over hashed word n-grams.
+ * <p>
+ * Text is lowercased and split into words; every unigram and bigram is hashed into a fixed
+ * table of {@code 2^bits} weights (the hashing trick), so the model has constant size whatever
+ * the vocabulary. Features are L2-normalized per post, and each labelled example is one
+ * stochastic gradient step. Not thread-safe; callers synchronize.
+ */
+public final class HashedLogisticRegression {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}+#]+");
+    private static final int FORMAT_VERSION = 1;
+
+    private final int mask;
+    private final double learningRate;
+    private final double l2;
+    private final float[] weights;
+    private double bias;
+    private long examples;
+
+    public HashedLogisticRegression(int bits, double learningRate, double l2) {
+        this.mask = (1 << bits) - 1;
+        this.learningRate = learningRate;
+        this.l2 = l2;
+        this.weights = new float[1 << bits];
+    }
+
+    /**
+     * Probability that the text belongs to the positive class
+     */
+    public double predict(String text) {
+        int[] features = features(text);
+        return sigmoid(score(features, featureValue(features)));
+    }
+
+    /**
+     * One SGD step on a labelled example
+     * @return the probability predicted before the update
+     */
+    public double train(String text, boolean label) {
+        int[] features = features(text);
+        double value = featureValue(features);
+        double p = sigmoid(score(features, value));
+        double gradient = (label ? 1.0 : 0.0) - p;
+
+        for (int feature : features) {
+            weights[feature] += (float) (learningRate * (gradient * value - l2 * weights[feature]));
+        }
+        bias += learningRate * gradient;
+        examples++;
+        return p;
+    }
+
+    public long examples() {
+        return examples;
+    }
+
+    public void reset() {
+        Arrays.fill(weights, 0f);
+        bias = 0;
+        examples = 0;
+    }
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(weights.length);
+        out.writeDouble(bias);
+        out.writeLong(examples);
+        for (float weight : weights) {
+            out.writeFloat(weight);
+        }
+    }
+
+    /**
+     * Load weights written by {@link #writeTo}; false (and no change) if the format or size differs
+     */
+    public boolean readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != FORMAT_VERSION || in.readInt() != weights.length) {
+            return false;
+        }
+        double storedBias = in.readDouble();
+        long storedExamples = in.readLong();
+        float[] stored = new float[weights.length];
+        for (int i = 0; i < stored.length; i++) {
+            stored[i] = in.readFloat();
+        }
+        System.arraycopy(stored, 0, weights, 0, stored.length);
+        bias = storedBias;
+        examples = storedExamples;
+        return true;
+    }
+
+    private double score(int[] features, double value) {
+        double score = bias;
+        for (int feature : features) {
+            score += weights[feature] * value;
+        }
+        return score;
+    }
+
+    int[] features(String text) {
+        if (text == null) return new int[0];
+        String normalized = NON_WORD.matcher(text.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+        if (normalized.isEmpty()) return new int[0];
+
+        String[] words = normalized.split(" ");
+        int[] features = new int[words.length * 2 - 1];
+        int n = 0;
+        long previous = 0;
+        for (int i = 0; i < words.length; i++) {
+            long hash = fnv(words[i]);
+            features[n++] = index(hash);
+            if (i > 0) {
+                features[n++] = index(previous * 31 + hash + 0x9E3779B97F4A7C15L);
+            }
+            previous = hash;
+        }
+        return features;
+    }
+
+    private static double featureValue(int[] features) {
+        return features.length == 0 ? 0 : 1.0 / Math.sqrt(features.length);
+    }
+
+    private int index(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return (int) hash & mask;
+    }
+
+    private static long fnv(String word) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < word.length(); i++) {
+            hash ^= word.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static double sigmoid(double score) {
+        return 1.0 / (1.0 + Math.exp(-score));
+    }
+}
@@ -0,0 +1,335 @@
+package com.telegram_notifier.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Single-pass structural lint for a complete LaTeX document, run before compiling it.
+ * <p>
+ * The scan tracks a brace stack, an environment stack and math mode (opened by {@code $},
+ * {@code $$}, {@code \(} or {@code \[} and closed by its matching delimiter), checks every
+ * loaded package against an allow-list, and requires {@code \documentclass} and the
+ * document environment. In the document body, bare {@code &} (outside alignment
+ * environments), {@code _} and {@code #} outside math are escaped instead of rejected; URL
+ * arguments of href and url are left alone. Comments are never touched: a {@code %} in text
+ * written by the model is already escaped when it is spliced in (see {@link ResumeTemplate}).
+ * The body length is estimated in printed lines so callers can reject documents that would
+ * spill onto another page.
+ */
+public final class LatexLinter {
+
+    // Characters per printed line at 11pt with narrow margins; only used for relative estimates
+    private static final int CHARS_PER_LINE = 100;
+    private static final int LINES_PER_SECTION = 2;
+
+    private static final Pattern ENVIRONMENT = Pattern.compile("\\s*\\{([^{}]*)\\}");
+    private static final Pattern PACKAGES = Pattern.compile("\\s*(?:\\[[^\\]]*\\])?\\s*\\{([^{}]*)\\}");
+    private static final Set<String> SECTION_COMMANDS = Set.of("cvsection", "section", "subsection");
+    private static final Set<String> SPACING_COMMANDS = Set.of("vspace", "hspace", "raisebox", "setlength");
+    private static final Set<String> ALIGNMENT_ENVIRONMENTS = Set.of(
+        "tabular", "tabular*", "tabularx", "array", "align", "align*", "alignat", "eqnarray", "matrix", "pmatrix", "bmatrix");
+    private static final Set<String> VERBATIM_ARGUMENT_COMMANDS = Set.of("href", "url");
+
+    public enum Kind { STRUCTURE, BRACES, ENVIRONMENTS, MATH, PACKAGE, LENGTH, ESCAPING }
+
+    public record Issue(Kind kind, int line, String message) {
+        @Override
+        public String toString() {
+            return line > 0 ? "line " + line + ": " + message : message;
+        }
+    }
+
+    /**
+     * @param latex the document with repairs applied
+     * @param errors problems that make the document unusable; empty if it can be compiled
+     * @param repairs escapes that were added
+     */
+    public record Result(String latex, List<Issue> errors, List<Issue> repairs, int estimatedLines) {
+        public boolean isValid() {
+            return errors.isEmpty();
+        }
+    }
+
+    private final Set<String> allowedPackages;
+
+    /**
+     * @param allowedPackages packages a document may load; empty allows any
+     */
+    public LatexLinter(Collection<String> allowedPackages) {
+        this.allowedPackages = new TreeSet<>();
+        for (String name : allowedPackages) {
+            if (!name.isBlank()) this.allowedPackages.add(name.trim());
+        }
+    }
+
+    /**
+     * Lint (and repair) a document
+     * @param maxLines estimated body lines above which the document is rejected; 0 = no limit
+     */
+    public Result lint(String latex, int maxLines) {
+        List<Issue> errors = new ArrayList<>();
+        List<Issue> repairs = new ArrayList<>();
+        if (latex == null || latex.isBlank()) {
+            errors.add(new Issue(Kind.STRUCTURE, 0, "document is empty"));
+            return new Result(latex, errors, repairs, 0);
+        }
+
+        StringBuilder out = new StringBuilder(latex.length() + 32);
+        Deque<Integer> braces = new ArrayDeque<>();
+        Deque<String> environments = new ArrayDeque<>();
+        Deque<Integer> environmentLines = new ArrayDeque<>();
+        int alignmentDepth = 0;
+        boolean documentClass = false;
+        boolean inBody = false;
+        boolean bodyEnded = false;
+        int mathLine = 0; // line where the open math span started, 0 = not in math
+        String mathClose = null; // delimiter that closes the open math span
+        int line = 1;
+        int bodyStart = -1;
+        int bodyEnd = latex.length();
+
+        int i = 0;
+        while (i < latex.length()) {
+            char c = latex.charAt(i);
+            if (c == '\n') {
+                line++;
+            } else if (c == '%') {
+                int end = latex.indexOf('\n', i);
+                end = end < 0 ? latex.length() : end;
+                out.append(latex, i, end);
+                i = end;
+                continue;
+            } else if (c == '\\' && i + 1 < latex.length()) {
+                char next = latex.charAt(i + 1);
+                if (!Character.isLetter(next)) {
+                    if ((next == '(' || next == '[') && mathClose == null) {
+                        mathLine = line;
+                        mathClose = next == '(' ? "\\)" : "\\]";
+                    } else if (next == '(' || next == '[') {
+                        errors.add(new Issue(Kind.MATH, line, "\\" + next + " inside math opened on line " + mathLine));
+                    } else if (next == ')' || next == ']') {
+                        String delimiter = "\\" + next;
+                        if (delimiter.equals(mathClose)) {
+                            mathLine = 0;
+                            mathClose = null;
+                        } else {
+                            errors.add(new Issue(Kind.MATH, line, delimiter + (mathClose == null
+                                    ? " without an opening delimiter" : " closes math that expects " + mathClose)));
+                        }
+                    }
+                    if (next == '\n') line++;
+                    out.append(c).append(next);
+                    i += 2;
+                    continue;
+                }
+                int end = i + 1;
+                while (end < latex.length() && Character.isLetter(latex.charAt(end))) end++;
+                String command = latex.substring(i + 1, end);
+                out.append(latex, i, end);
+                i = end;
+
+                switch (command) {
+                    case "documentclass" -> documentClass = true;
+                    case "begin", "end" -> {
+                        Matcher matcher = ENVIRONMENT.matcher(latex).region(i, latex.length());
+                        if (!matcher.lookingAt()) break;
+                        String name = matcher.group(1).trim();
+                        // Preamble macros may open and close environments separately; only the body is checked
+                        if (!inBody && !name.equals("document")) break;
+                        if (command.equals("begin")) {
+                            environments.push(name);
+                            environmentLines.push(line);
+                            if (ALIGNMENT_ENVIRONMENTS.contains(name)) alignmentDepth++;
+                            if (name.equals("document")) {
+                                inBody = true;
+                                bodyStart = matcher.end();
+                            }
+                        } else if (environments.isEmpty()) {
+                            errors.add(new Issue(Kind.ENVIRONMENTS, line, "\\end{" + name + "} without \\begin"));
+                        } else if (!environments.peek().equals(name)) {
+                            errors.add(new Issue(Kind.ENVIRONMENTS, line, "\\end{" + name + "} closes \\begin{"
+                                    + environments.peek() + "} from line " + environmentLines.peek()));
+                        } else {
+                            environments.pop();
+                            environmentLines.pop();
+                            if (ALIGNMENT_ENVIRONMENTS.contains(name)) alignmentDepth--;
+                            if (name.equals("document")) {
+                                bodyEnded = true;
+                                bodyEnd = i - "\\end".length();
+                            }
+                        }
+                    }
+                    case "usepackage", "RequirePackage" -> {
+                        Matcher matcher = PACKAGES.matcher(latex).region(i, latex.length());
+                        if (!matcher.lookingAt() || allowedPackages.isEmpty()) break;
+                        for (String name : matcher.group(1).split(",")) {
+                            if (!name.isBlank() && !allowedPackages.contains(name.trim())) {
+                                errors.add(new Issue(Kind.PACKAGE, line, "package '" + name.trim() + "' is not allowed"));
+                            }
+                        }
+                    }
+                    default -> {
+                        if (VERBATIM_ARGUMENT_COMMANDS.contains(command)) {
+                            int close = verbatimArgumentEnd(latex, i);
+                            if (close > 0) {
+                                out.append(latex, i, close);
+                                i = close;
+                            }
+                        }
+                    }
+                }
+                continue;
+            } else if (c == '{') {
+                braces.push(line);
+            } else if (c == '}') {
+                if (braces.isEmpty()) {
+                    errors.add(new Issue(Kind.BRACES, line, "unmatched }"));
+                } else {
+                    braces.pop();
+                }
+            } else if (c == '$') {
+                String delimiter = i + 1 < latex.length() && latex.charAt(i + 1) == '$' ? "$$" : "$";
+                if (mathClose == null) {
+                    mathLine = line;
+                    mathClose = delimiter;
+                } else if (delimiter.equals(mathClose)) {
+                    mathLine = 0;
+                    mathClose = null;
+                } else {
+                    errors.add(new Issue(Kind.MATH, line, delimiter + " inside math that expects " + mathClose));
+                }
+                out.append(delimiter);
+                i += delimiter.length();
+                continue;
+            } else if (inBody && !bodyEnded && mathLine == 0 && isSpecial(c, alignmentDepth)) {
+                out.append('\\').append(c);
+                repairs.add(new Issue(Kind.ESCAPING, line, "escaped " + c));
+                i++;
+                continue;
+            }
+            out.append(c);
+            i++;
+        }
+
+        if (!braces.isEmpty()) {
+            errors.add(new Issue(Kind.BRACES, braces.peekLast(), braces.size() + " unclosed {"));
+        }
+        if (!environments.isEmpty()) {
+            errors.add(new Issue(Kind.ENVIRONMENTS, environmentLines.peek(), "\\begin{" + environments.peek() + "} is never closed"));
+        }
+        if (mathLine != 0) {
+            errors.add(new Issue(Kind.MATH, mathLine, "math mode is never closed"));
+        }
+        if (!documentClass) errors.add(new Issue(Kind.STRUCTURE, 0, "missing \\documentclass"));
+        if (!inBody) errors.add(new Issue(Kind.STRUCTURE, 0, "missing \\begin{document}"));
+        if (inBody && !bodyEnded) errors.add(new Issue(Kind.STRUCTURE, 0, "missing \\end{document}"));
+
+        String repaired = out.toString();
+        int estimatedLines = bodyStart < 0 ? 0 : estimateLines(latex.substring(bodyStart, Math.max(bodyStart, bodyEnd)));
+        if (maxLines > 0 && estimatedLines > maxLines) {
+            errors.add(new Issue(Kind.LENGTH, 0, "about " + estimatedLines + " lines, limit is " + maxLines + " (would not fit the page)"));
+        }
+        return new Result(repaired, errors, repairs, estimatedLines);
+    }
+
+    private static boolean isSpecial(char c, int alignmentDepth) {
+        return c == '_' || c == '#' || (c == '&' && alignmentDepth == 0);
+    }
+
+    /**
+     * End (exclusive) of the brace group starting at {@code from} after optional spaces, or -1
+     */
+    private static int verbatimArgumentEnd(String latex, int from) {
+        int i = from;
+        while (i < latex.length() && latex.charAt(i) == ' ') i++;
+        if (i >= latex.length() || latex.charAt(i) != '{') return -1;
+        int depth = 0;
+        for (; i < latex.length(); i++) {
+            char c = latex.charAt(i);
+            if (c == '\n') return -1;
+            if (c == '{') depth++;
+            if (c == '}' && --depth == 0) return i + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Rough printed line count of a document body: visible characters per source line wrapped
+     * at {@link #CHARS_PER_LINE}, plus room for each section heading. Command names, braces and
+     * the arguments of spacing commands are not counted.
+     */
+    public static int estimateLines(String body) {
+        int lines = 0;
+        int visible = 0;
+        boolean space = true;
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c == '\n') {
+                lines += wrap(visible);
+                visible = 0;
+                space = true;
+            } else if (c == '%') {
+                int end = body.indexOf('\n', i);
+                i = (end < 0 ? body.length() : end) - 1;
+            } else if (c == '\\') {
+                int end = i + 1;
+                while (end < body.length() && Character.isLetter(body.charAt(end))) end++;
+                if (end == i + 1) {
+                    // Escaped character such as \% or \&
+                    if (end < body.length() && body.charAt(end) != '\n') {
+                        visible++;
+                        space = false;
+                        i = end;
+                    }
+                    continue;
+                }
+                String command = body.substring(i + 1, end);
+                if (SECTION_COMMANDS.contains(command)) lines += LINES_PER_SECTION;
+                if (SPACING_COMMANDS.contains(command)) end = skipGroup(body, end);
+                i = end - 1;
+            } else if (Character.isWhitespace(c)) {
+                if (!space) visible++;
+                space = true;
+            } else if ("{}$&~".indexOf(c) < 0) {
+                visible++;
+                space = false;
+            }
+        }
+        return lines + wrap(visible);
+    }
+
+    private static int wrap(int visible) {
+        return (visible + CHARS_PER_LINE - 1) / CHARS_PER_LINE;
+    }
+
+    /**
+     * Index just after the (optionally starred) brace group at {@code from}, or {@code from}
+     */
+    private static int skipGroup(String text, int from) {
+        int i = from;
+        while (i < text.length() && (text.charAt(i) == ' ' || text.charAt(i) == '*')) i++;
+        if (i >= text.length() || text.charAt(i) != '{') return from;
+        int depth = 0;
+        for (; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '{') depth++;
+            if (c == '}' && --depth == 0) return i + 1;
+        }
+        return from;
+    }
+
+    /**
+     * Issue kinds as lowercase names, for stats
+     */
+    public static String key(Kind kind) {
+        return kind.name().toLowerCase(Locale.ROOT);
+    }
+}
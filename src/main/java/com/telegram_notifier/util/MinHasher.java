@@ -0,0 +1,110 @@
+package com.telegram_notifier.util;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * MinHash signatures over word shingles.
+ * <p>
+ * Text is normalized first (lowercased, links dropped, everything except letters and digits
+ * turned into spaces), so reposts that differ only in emoji, punctuation or the link they carry
+ * produce the same shingles. The fraction of equal positions in two signatures estimates the
+ * Jaccard similarity of their shingle sets.
+ */
+public final class MinHasher {
+
+    private static final Pattern URL = Pattern.compile("(https?://|www\\.|t\\.me/)\\S+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final int numHashes;
+    private final int shingleSize;
+    private final long[] seeds;
+
+    public MinHasher(int numHashes, int shingleSize) {
+        this.numHashes = numHashes;
+        this.shingleSize = Math.max(1, shingleSize);
+        this.seeds = new long[numHashes];
+        long seed = 0x2545F4914F6CDD1DL;
+        for (int i = 0; i < numHashes; i++) {
+            seed = mix64(seed + 0x9E3779B97F4A7C15L);
+            seeds[i] = seed;
+        }
+    }
+
+    public int numHashes() {
+        return numHashes;
+    }
+
+    /**
+     * Signature of the text, or null if it has no words
+     */
+    public long[] signature(String text) {
+        Set<Long> shingles = shingles(text);
+        if (shingles.isEmpty()) {
+            return null;
+        }
+        long[] signature = new long[numHashes];
+        java.util.Arrays.fill(signature, Long.MAX_VALUE);
+        for (long shingle : shingles) {
+            for (int i = 0; i < numHashes; i++) {
+                long h = mix64(shingle ^ seeds[i]);
+                if (h < signature[i]) {
+                    signature[i] = h;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Estimated Jaccard similarity of two signatures
+     */
+    public static double similarity(long[] a, long[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) equal++;
+        }
+        return (double) equal / a.length;
+    }
+
+    Set<Long> shingles(String text) {
+        Set<Long> shingles = new HashSet<>();
+        if (text == null) return shingles;
+
+        String normalized = NON_WORD.matcher(URL.matcher(text.toLowerCase(Locale.ROOT)).replaceAll(" ")).replaceAll(" ").trim();
+        if (normalized.isEmpty()) return shingles;
+        String[] words = normalized.split(" ");
+
+        if (words.length < shingleSize) {
+            shingles.add(hashWords(words, 0, words.length));
+            return shingles;
+        }
+        for (int i = 0; i + shingleSize <= words.length; i++) {
+            shingles.add(hashWords(words, i, shingleSize));
+        }
+        return shingles;
+    }
+
+    private static long hashWords(String[] words, int from, int count) {
+        // FNV-1a over the words with a separator
+        long hash = 0xcbf29ce484222325L;
+        for (int w = from; w < from + count; w++) {
+            String word = words[w];
+            for (int i = 0; i < word.length(); i++) {
+                hash ^= word.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= ' ';
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    static long mix64(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
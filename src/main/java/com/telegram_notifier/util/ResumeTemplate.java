@@ -0,0 +1,167 @@
+package com.telegram_notifier.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A LaTeX resume split into addressable, editable fragments.
+ * <p>
+ * Only the document body is scanned. Each {@code \cvsection{Name}} starts a section, and inside a
+ * section every bullet body ({@code \item {...}}) and every labelled field
+ * ({@code \textbf{Label}{: ...}}) becomes a {@link Fragment} with a stable id such as
+ * {@code experience-3}. Commented-out lines are ignored. {@link #apply} splices replacement text
+ * into the original source, so everything outside the fragments is kept byte for byte.
+ */
+public final class ResumeTemplate {
+
+    private static final Pattern TOKEN = Pattern.compile(
+        "\\\\cvsection\\{([^{}]*)\\}|\\\\item\\s*\\{|\\\\textbf\\{([^{}]*)\\}\\s*\\{");
+    private static final Pattern LABELLED_FIELD = Pattern.compile("\\\\textbf\\{[^{}]*\\}\\s*\\{");
+    private static final Pattern FORBIDDEN = Pattern.compile(
+        "\\\\(begin|end|item|section|cvsection|input|include|documentclass|usepackage|newcommand|renewcommand|def|write)(?![a-zA-Z])");
+
+    /**
+     * Editable span of the source: {@code text} is {@code source.substring(start, end)}
+     * @param label bold label of a labelled field, null for bullets
+     */
+    public record Fragment(String id, String section, String label, int start, int end, String text) {}
+
+    private final String source;
+    private final List<Fragment> fragments;
+    private final Map<String, Fragment> byId = new LinkedHashMap<>();
+
+    private ResumeTemplate(String source, List<Fragment> fragments) {
+        this.source = source;
+        this.fragments = Collections.unmodifiableList(fragments);
+        fragments.forEach(fragment -> byId.put(fragment.id(), fragment));
+    }
+
+    public static ResumeTemplate parse(String source) {
+        List<Fragment> fragments = new ArrayList<>();
+        int pos = source.indexOf("\\begin{document}");
+        if (pos < 0) {
+            return new ResumeTemplate(source, fragments);
+        }
+
+        Matcher matcher = TOKEN.matcher(source);
+        String section = null;
+        int counter = 0;
+        while (matcher.find(pos)) {
+            pos = matcher.end();
+            if (isCommented(source, matcher.start())) continue;
+
+            if (matcher.group(1) != null) {
+                section = slug(matcher.group(1));
+                counter = 0;
+                continue;
+            }
+            if (section == null) continue;
+
+            int close = matchingBrace(source, matcher.end());
+            if (close < 0) continue;
+            String body = source.substring(matcher.end(), close);
+            if (LABELLED_FIELD.matcher(body).find()) {
+                // A bullet wrapping labelled fields (e.g. the skills list): address the fields instead
+                continue;
+            }
+
+            int start = matcher.end();
+            int end = close;
+            while (start < end && (Character.isWhitespace(source.charAt(start)) || source.charAt(start) == ':')) start++;
+            while (end > start && Character.isWhitespace(source.charAt(end - 1))) end--;
+            if (start < end) {
+                fragments.add(new Fragment(section + "-" + (++counter), section, matcher.group(2),
+                        start, end, source.substring(start, end)));
+            }
+            pos = close + 1;
+        }
+        return new ResumeTemplate(source, fragments);
+    }
+
+    public String source() {
+        return source;
+    }
+
+    public List<Fragment> fragments() {
+        return fragments;
+    }
+
+    public Fragment fragment(String id) {
+        return byId.get(id);
+    }
+
+    /**
+     * The source with the given fragments replaced; unknown ids are ignored
+     */
+    public String apply(Map<String, String> replacements) {
+        StringBuilder out = new StringBuilder(source.length() + 256);
+        int last = 0;
+        for (Fragment fragment : fragments) {
+            String replacement = replacements.get(fragment.id());
+            if (replacement == null) continue;
+            out.append(source, last, fragment.start()).append(replacement);
+            last = fragment.end();
+        }
+        return out.append(source, last, source.length()).toString();
+    }
+
+    /**
+     * Make model-written text safe to splice into a fragment: escapes bare {@code % & # $ _} and
+     * flattens newlines. Returns null if the text has unbalanced braces or structural commands.
+     */
+    public static String sanitize(String text) {
+        if (text == null) return null;
+        String flat = text.replaceAll("\\s*\\R\\s*", " ").trim();
+        if (flat.isEmpty() || FORBIDDEN.matcher(flat).find()) return null;
+
+        StringBuilder out = new StringBuilder(flat.length() + 8);
+        int depth = 0;
+        for (int i = 0; i < flat.length(); i++) {
+            char c = flat.charAt(i);
+            if (c == '\\') {
+                out.append(c);
+                if (i + 1 < flat.length()) out.append(flat.charAt(++i));
+                continue;
+            }
+            if (c == '{') depth++;
+            if (c == '}' && --depth < 0) return null;
+            if ("%&#$_".indexOf(c) >= 0) out.append('\\');
+            out.append(c);
+        }
+        return depth == 0 ? out.toString() : null;
+    }
+
+    private static boolean isCommented(String source, int index) {
+        int lineStart = source.lastIndexOf('\n', index) + 1;
+        for (int i = lineStart; i < index; i++) {
+            char c = source.charAt(i);
+            if (c == '\\') i++;
+            else if (c == '%') return true;
+        }
+        return false;
+    }
+
+    /**
+     * Index of the brace closing the group opened just before {@code from}, or -1
+     */
+    private static int matchingBrace(String source, int from) {
+        int depth = 1;
+        for (int i = from; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (c == '\\') i++;
+            else if (c == '{') depth++;
+            else if (c == '}' && --depth == 0) return i;
+        }
+        return -1;
+    }
+
+    private static String slug(String name) {
+        return name.trim().toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("^-|-$", "");
+    }
+}
@@ -0,0 +1,421 @@
+package com.telegram_notifier.util;
+
+import com.telegram_notifier.model.TelegramMessage;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Single-pass tokenizer for the t.me/s/&lt;channel&gt; widget markup.
+ * <p>
+ * Walks the page once, tracking only {@code <div>} nesting depth, and emits one
+ * {@link TelegramMessage} per {@code tgme_widget_message} block with its cleaned text,
+ * {@code data-post} id and {@code <time datetime>}. No regular expressions, no backtracking;
+ * nested divs inside a message are handled by depth rather than by the first closing tag.
+ * Messages without a text/caption get empty content; messages without a datetime get a
+ * {@code null} timestamp so the caller can decide on a fallback.
+ */
+public final class TelegramWidgetTokenizer {
+
+    private static final String MESSAGE_CLASS = "tgme_widget_message";
+    private static final String TEXT_CLASS = "tgme_widget_message_text";
+    private static final String CAPTION_CLASS = "tgme_widget_message_media_caption";
+    private static final String DATE_CLASS = "tgme_widget_message_date";
+
+    private static final DateTimeFormatter TITLE_FORMAT =
+            DateTimeFormatter.ofPattern("MMM d, yyyy 'at' HH:mm:ss", Locale.ENGLISH);
+
+    private TelegramWidgetTokenizer() {}
+
+    public static List<TelegramMessage> parse(String html, String channelName) {
+        return new Scanner(html, channelName).run();
+    }
+
+    /**
+     * Parse the numeric id out of a {@code data-post} value such as "channel/1234"
+     */
+    public static long parseMessageId(String postId) {
+        if (postId == null) return 0;
+        long id = 0;
+        boolean digits = false;
+        for (int i = postId.lastIndexOf('/') + 1; i < postId.length(); i++) {
+            char c = postId.charAt(i);
+            if (c < '0' || c > '9') return 0;
+            id = id * 10 + (c - '0');
+            digits = true;
+        }
+        return digits ? id : 0;
+    }
+
+    private static final class Scanner {
+        private final String html;
+        private final String channelName;
+        private final int length;
+        private final List<TelegramMessage> messages = new ArrayList<>();
+
+        private int pos;
+        private int divDepth;
+
+        // Current message state
+        private int messageDepth = -1;
+        private String postId;
+        private String datetime;
+        private String dateTitle;
+        private String content;
+
+        // Current text capture state
+        private int textDepth = -1;
+        private final StringBuilder text = new StringBuilder(512);
+        private boolean pendingSpace;
+
+        // Attributes of the tag being read; only the ones we care about are materialized
+        private String attrClass;
+        private String attrDataPost;
+        private String attrDatetime;
+        private String attrTitle;
+
+        Scanner(String html, String channelName) {
+            this.html = html;
+            this.channelName = channelName;
+            this.length = html.length();
+        }
+
+        List<TelegramMessage> run() {
+            while (pos < length) {
+                int lt = html.indexOf('<', pos);
+                if (lt < 0) {
+                    appendText(pos, length);
+                    break;
+                }
+                appendText(pos, lt);
+                pos = lt + 1;
+                if (pos >= length) break;
+
+                char c = html.charAt(pos);
+                if (c == '!') {
+                    skipDeclaration();
+                } else if (c == '/') {
+                    pos++;
+                    readClosingTag();
+                } else if (isNameStart(c)) {
+                    readOpeningTag();
+                } else {
+                    // Stray '<' in text
+                    appendChar('<');
+                }
+            }
+            if (messageDepth >= 0) {
+                finishMessage();
+            }
+            return messages;
+        }
+
+        private void readOpeningTag() {
+            int nameStart = pos;
+            while (pos < length && isNameChar(html.charAt(pos))) pos++;
+            int nameEnd = pos;
+            boolean selfClosing = readAttributes();
+
+            if (nameMatches(nameStart, nameEnd, "div")) {
+                if (!selfClosing) openDiv();
+            } else if (nameMatches(nameStart, nameEnd, "br")) {
+                if (textDepth >= 0) pendingSpace = text.length() > 0;
+            } else if (nameMatches(nameStart, nameEnd, "time")) {
+                if (messageDepth >= 0 && datetime == null && attrDatetime != null) {
+                    datetime = attrDatetime;
+                }
+            } else if (nameMatches(nameStart, nameEnd, "span") || nameMatches(nameStart, nameEnd, "a")) {
+                if (messageDepth >= 0 && dateTitle == null && attrTitle != null && hasClass(attrClass, DATE_CLASS)) {
+                    dateTitle = attrTitle;
+                }
+            } else if (nameMatches(nameStart, nameEnd, "script") || nameMatches(nameStart, nameEnd, "style")) {
+                if (!selfClosing) skipRawText(nameStart, nameEnd);
+            }
+        }
+
+        private void openDiv() {
+            divDepth++;
+            if (attrClass == null) return;
+
+            if (attrDataPost != null && hasClass(attrClass, MESSAGE_CLASS)) {
+                if (messageDepth >= 0) finishMessage();
+                messageDepth = divDepth;
+                postId = attrDataPost;
+                datetime = null;
+                dateTitle = null;
+                content = null;
+            } else if (messageDepth >= 0 && textDepth < 0 && content == null
+                    && (hasClass(attrClass, TEXT_CLASS) || hasClass(attrClass, CAPTION_CLASS))) {
+                textDepth = divDepth;
+                text.setLength(0);
+                pendingSpace = false;
+            }
+        }
+
+        private void readClosingTag() {
+            int nameStart = pos;
+            while (pos < length && isNameChar(html.charAt(pos))) pos++;
+            int nameEnd = pos;
+            int gt = html.indexOf('>', pos);
+            pos = gt < 0 ? length : gt + 1;
+
+            if (!nameMatches(nameStart, nameEnd, "div") || divDepth == 0) return;
+
+            if (divDepth == textDepth) {
+                textDepth = -1;
+                if (text.length() > 0) {
+                    content = text.toString();
+                }
+            }
+            if (divDepth == messageDepth) {
+                finishMessage();
+            }
+            divDepth--;
+        }
+
+        private void finishMessage() {
+            if (textDepth >= 0) {
+                textDepth = -1;
+                if (text.length() > 0) content = text.toString();
+            }
+            messages.add(new TelegramMessage(
+                    content != null ? content : "",
+                    parseTimestamp(datetime, dateTitle),
+                    channelName,
+                    postId,
+                    parseMessageId(postId)));
+            messageDepth = -1;
+            postId = null;
+            content = null;
+        }
+
+        /**
+         * Read attributes up to and including the closing '&gt;'.
+         * @return true if the tag was self-closing
+         */
+        private boolean readAttributes() {
+            attrClass = null;
+            attrDataPost = null;
+            attrDatetime = null;
+            attrTitle = null;
+
+            while (pos < length) {
+                char c = html.charAt(pos);
+                if (c == '>') {
+                    pos++;
+                    return false;
+                }
+                if (c == '/') {
+                    pos++;
+                    if (pos < length && html.charAt(pos) == '>') {
+                        pos++;
+                        return true;
+                    }
+                    continue;
+                }
+                if (isWhitespace(c)) {
+                    pos++;
+                    continue;
+                }
+
+                int nameStart = pos;
+                while (pos < length) {
+                    c = html.charAt(pos);
+                    if (isWhitespace(c) || c == '=' || c == '>' || c == '/') break;
+                    pos++;
+                }
+                int nameEnd = pos;
+                while (pos < length && isWhitespace(html.charAt(pos))) pos++;
+                if (pos >= length || html.charAt(pos) != '=') continue;
+                pos++;
+                while (pos < length && isWhitespace(html.charAt(pos))) pos++;
+                if (pos >= length) break;
+
+                int valueStart;
+                int valueEnd;
+                char quote = html.charAt(pos);
+                if (quote == '"' || quote == '\'') {
+                    valueStart = pos + 1;
+                    int close = html.indexOf(quote, valueStart);
+                    valueEnd = close < 0 ? length : close;
+                    pos = close < 0 ? length : close + 1;
+                } else {
+                    valueStart = pos;
+                    while (pos < length && !isWhitespace(html.charAt(pos)) && html.charAt(pos) != '>') pos++;
+                    valueEnd = pos;
+                }
+                storeAttribute(nameStart, nameEnd, valueStart, valueEnd);
+            }
+            return false;
+        }
+
+        private void storeAttribute(int nameStart, int nameEnd, int valueStart, int valueEnd) {
+            if (nameMatches(nameStart, nameEnd, "class")) {
+                attrClass = html.substring(valueStart, valueEnd);
+            } else if (nameMatches(nameStart, nameEnd, "data-post")) {
+                attrDataPost = html.substring(valueStart, valueEnd);
+            } else if (nameMatches(nameStart, nameEnd, "datetime")) {
+                attrDatetime = html.substring(valueStart, valueEnd);
+            } else if (nameMatches(nameStart, nameEnd, "title")) {
+                attrTitle = html.substring(valueStart, valueEnd);
+            }
+        }
+
+        private void skipDeclaration() {
+            if (html.startsWith("!--", pos)) {
+                int end = html.indexOf("-->", pos + 3);
+                pos = end < 0 ? length : end + 3;
+            } else {
+                int end = html.indexOf('>', pos);
+                pos = end < 0 ? length : end + 1;
+            }
+        }
+
+        private void skipRawText(int nameStart, int nameEnd) {
+            String closing = "</" + html.substring(nameStart, nameEnd);
+            int end = indexOfIgnoreCase(closing, pos);
+            if (end < 0) {
+                pos = length;
+                return;
+            }
+            int gt = html.indexOf('>', end);
+            pos = gt < 0 ? length : gt + 1;
+        }
+
+        private int indexOfIgnoreCase(String needle, int from) {
+            for (int i = html.indexOf('<', from); i >= 0; i = html.indexOf('<', i + 1)) {
+                if (html.regionMatches(true, i, needle, 0, needle.length())) return i;
+            }
+            return -1;
+        }
+
+        private void appendText(int from, int to) {
+            if (textDepth < 0 || from >= to) return;
+            int i = from;
+            while (i < to) {
+                char c = html.charAt(i);
+                if (c == '&') {
+                    int semi = -1;
+                    for (int j = i + 1; j < to && j <= i + 10; j++) {
+                        if (html.charAt(j) == ';') {
+                            semi = j;
+                            break;
+                        }
+                    }
+                    if (semi > i + 1) {
+                        int decoded = decodeEntity(i + 1, semi);
+                        if (decoded >= 0) {
+                            appendCodePoint(decoded);
+                            i = semi + 1;
+                            continue;
+                        }
+                    }
+                }
+                appendChar(c);
+                i++;
+            }
+        }
+
+        private int decodeEntity(int start, int end) {
+            if (html.charAt(start) == '#') {
+                try {
+                    boolean hex = end - start > 1 && (html.charAt(start + 1) == 'x' || html.charAt(start + 1) == 'X');
+                    return hex
+                            ? Integer.parseInt(html, start + 2, end, 16)
+                            : Integer.parseInt(html, start + 1, end, 10);
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+            switch (html.substring(start, end)) {
+                case "amp": return '&';
+                case "lt": return '<';
+                case "gt": return '>';
+                case "quot": return '"';
+                case "apos": return '\'';
+                case "nbsp": return ' ';
+                case "mdash": return '—';
+                case "ndash": return '–';
+                default: return -1;
+            }
+        }
+
+        private void appendCodePoint(int codePoint) {
+            if (Character.isBmpCodePoint(codePoint)) {
+                appendChar((char) codePoint);
+            } else if (Character.isValidCodePoint(codePoint)) {
+                flushSpace();
+                text.appendCodePoint(codePoint);
+            }
+        }
+
+        private void appendChar(char c) {
+            if (textDepth < 0) return;
+            if (isWhitespace(c)) {
+                pendingSpace = text.length() > 0;
+                return;
+            }
+            flushSpace();
+            text.append(c);
+        }
+
+        private void flushSpace() {
+            if (pendingSpace) {
+                text.append(' ');
+                pendingSpace = false;
+            }
+        }
+
+        private boolean nameMatches(int start, int end, String name) {
+            return end - start == name.length() && html.regionMatches(true, start, name, 0, name.length());
+        }
+    }
+
+    static LocalDateTime parseTimestamp(String datetime, String dateTitle) {
+        try {
+            // Example: "2024-08-25T04:15:51+00:00"
+            if (datetime != null && datetime.length() >= 19) {
+                return LocalDateTime.parse(datetime.substring(0, 19), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            }
+            // Example: "Aug 25, 2024 at 09:45:51"
+            if (dateTitle != null && dateTitle.contains("at")) {
+                return LocalDateTime.parse(dateTitle, TITLE_FORMAT);
+            }
+        } catch (DateTimeParseException e) {
+            // Caller falls back to its own timestamp
+        }
+        return null;
+    }
+
+    /**
+     * True if the space-separated class list contains exactly this class token
+     */
+    static boolean hasClass(String classList, String className) {
+        int from = 0;
+        int len = className.length();
+        while (true) {
+            int idx = classList.indexOf(className, from);
+            if (idx < 0) return false;
+            boolean startOk = idx == 0 || isWhitespace(classList.charAt(idx - 1));
+            boolean endOk = idx + len == classList.length() || isWhitespace(classList.charAt(idx + len));
+            if (startOk && endOk) return true;
+            from = idx + len;
+        }
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+
+    private static boolean isNameStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isNameChar(char c) {
+        return isNameStart(c) || (c >= '0' && c <= '9') || c == '-' || c == ':' || c == '_';
+    }
+}
@@ -0,0 +1,56 @@
+package com.telegram_notifier.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WebClientFactoryTests {
+
+	private DisposableServer server;
+	private WebClientFactory factory;
+
+	@BeforeEach
+	void setUp() {
+		// Headers at once, then one body chunk every 300 ms
+		server = HttpServer.create()
+				.port(0)
+				.route(routes -> routes
+						.get("/fast", (request, response) -> response.sendString(Flux.just("done")))
+						.get("/slow", (request, response) -> response.sendString(
+								Flux.interval(Duration.ofMillis(300)).take(10).map(i -> "chunk " + i + "\n"))))
+				.bindNow();
+		AppProperties properties = new AppProperties();
+		properties.getHttp().setHttp2Enabled(false);
+		factory = new WebClientFactory(properties);
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.disposeNow();
+		factory.shutdown();
+	}
+
+	@Test
+	void requestTimeoutBoundsTheWholeBody() {
+		var client = factory.builder("test", null, Duration.ofSeconds(1), 1024 * 1024)
+				.baseUrl("http://localhost:" + server.port())
+				.build();
+
+		assertEquals("done", client.get().uri("/fast").retrieve().bodyToMono(String.class).block());
+
+		// Every chunk arrives well within the timeout, but the whole body takes 3 s
+		RuntimeException e = assertThrows(RuntimeException.class,
+				() -> client.get().uri("/slow").retrieve().bodyToMono(String.class).block(Duration.ofSeconds(10)));
+		assertInstanceOf(TimeoutException.class, e.getCause());
+	}
+}
@@ -0,0 +1,108 @@
+package com.telegram_notifier.service;
+
+import com.telegram_notifier.config.AppProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NearDuplicateDetectorTests {
+
+	private static final String POST = "We are hiring a Senior Java Developer for our payments team in Berlin. "
+			+ "Spring Boot, Kafka and PostgreSQL experience required. Apply at https://example.com/jobs/1";
+	private static final String REPOST = "🔥 We are hiring a Senior Java Developer for our payments team in Berlin! "
+			+ "Spring Boot, Kafka and PostgreSQL experience required. Apply at t.me/another_channel";
+	private static final String OTHER = "Frontend developer position with React and TypeScript, salary 20 LPA, "
+			+ "office in Bangalore, two days remote per week";
+
+	@TempDir
+	Path stateDir;
+
+	private AppProperties properties;
+
+	@BeforeEach
+	void setUp() {
+		properties = new AppProperties();
+		properties.getState().setDir(stateDir.toString());
+	}
+
+	@Test
+	void matchesRepostThroughSharedBands() {
+		NearDuplicateDetector detector = new NearDuplicateDetector(properties);
+
+		assertNull(detector.check("a/1", POST));
+		assertNull(detector.check("b/7", OTHER));
+		NearDuplicateDetector.Match match = detector.check("c/3", REPOST);
+
+		assertNotNull(match);
+		assertEquals("a/1", match.originalPostId());
+		assertTrue(match.similarity() >= properties.getDedup().getSimilarityThreshold());
+		assertEquals(1L, detector.getStats().get("duplicates"));
+		// The unrelated post shares no band with the repost, so it is never compared
+		assertEquals(1L, detector.getStats().get("candidate_comparisons"));
+	}
+
+	@Test
+	void postNeverMatchesItself() {
+		NearDuplicateDetector detector = new NearDuplicateDetector(properties);
+
+		assertNull(detector.check("a/1", POST));
+		assertNull(detector.check("a/1", POST));
+	}
+
+	@Test
+	void originalIsPendingUntilAckedAndForgottenWhenItFails() {
+		NearDuplicateDetector detector = new NearDuplicateDetector(properties);
+
+		detector.check("a/1", POST);
+		assertFalse(detector.check("c/3", REPOST).originalAcked());
+
+		detector.forget("a/1");
+		assertNull(detector.check("c/3", REPOST), "the repost takes the failed original's place");
+
+		detector.acked("c/3");
+		NearDuplicateDetector.Match match = detector.check("a/1", POST);
+		assertEquals("c/3", match.originalPostId());
+		assertTrue(match.originalAcked());
+	}
+
+	@Test
+	void evictsOldestPostsBeyondWindowSize() {
+		properties.getDedup().setWindowSize(1);
+		NearDuplicateDetector detector = new NearDuplicateDetector(properties);
+
+		detector.check("a/1", POST);
+		detector.check("b/7", OTHER);
+
+		assertEquals(1, detector.getStats().get("window_posts"));
+		assertNull(detector.check("c/3", REPOST));
+	}
+
+	@Test
+	void restoresAckedPostsAfterRestart() {
+		NearDuplicateDetector detector = new NearDuplicateDetector(properties);
+		detector.loadWindow();
+		detector.check("a/1", POST);
+		detector.check("b/7", OTHER);
+		detector.acked("a/1");
+		detector.closeWindow();
+
+		NearDuplicateDetector restarted = new NearDuplicateDetector(properties);
+		restarted.loadWindow();
+		Map<String, Object> stats = restarted.getStats();
+
+		assertEquals(1, stats.get("window_posts"), "pending posts are not persisted");
+		NearDuplicateDetector.Match match = restarted.check("c/3", REPOST);
+		assertEquals("a/1", match.originalPostId());
+		assertTrue(match.originalAcked());
+		restarted.closeWindow();
+	}
+}
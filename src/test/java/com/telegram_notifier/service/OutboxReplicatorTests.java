@@ -0,0 +1,205 @@
+package com.telegram_notifier.service;
+
+import com.telegram_notifier.config.AppProperties;
+import com.telegram_notifier.model.JobDetails;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class OutboxReplicatorTests {
+
+	@TempDir
+	Path stateDir;
+
+	private AppProperties properties;
+	private SqliteStorageBackend store;
+	private OutboxReplicator replicator;
+	private final RecordingSink sink = new RecordingSink();
+
+	@BeforeEach
+	void setUp() {
+		properties = new AppProperties();
+		properties.getState().setDir(stateDir.toString());
+		properties.getStorage().getOutbox().setRequestsPerSecond(1000);
+		properties.getStorage().getOutbox().setBaseBackoffSeconds(0);
+		store = new SqliteStorageBackend(properties);
+		store.init();
+		replicator = new OutboxReplicator(properties, store);
+		replicator.start(List.of(sink));
+	}
+
+	@AfterEach
+	void tearDown() {
+		store.close();
+	}
+
+	@Test
+	void copiesCreateThenResumeLinkUsingTheSinkId() {
+		String id = store.saveJobAsync(job("Acme"), null, true, List.of(sink.name())).block();
+		store.updateResumeLinkAsync(id, "https://example.com/resume.pdf", List.of(sink.name())).block();
+
+		drainUntilEmpty();
+
+		assertEquals(List.of("find " + id, "save " + id, "update sink-1 https://example.com/resume.pdf"), sink.calls);
+		assertEquals("sink-1", store.findSinkId(id, sink.name()).block());
+		assertEquals(2L, replicator.getStats().get("delivered"));
+	}
+
+	@Test
+	void retriedCreateReusesTheCopyTheSinkAlreadyHas() {
+		// The first save reaches the sink but reports a failure, as on a timeout
+		sink.failSaves.set(1);
+		String id = store.saveJobAsync(job("Acme"), null, false, List.of(sink.name())).block();
+
+		drainUntilEmpty();
+
+		assertEquals(List.of("find " + id, "save " + id, "find " + id), sink.calls);
+		assertEquals("sink-1", store.findSinkId(id, sink.name()).block());
+		assertEquals(1L, replicator.getStats().get("deduplicated"));
+		assertEquals(1L, replicator.getStats().get("failed_attempts"));
+	}
+
+	@Test
+	void pacesEverySinkRequest() {
+		properties.getStorage().getOutbox().setRequestsPerSecond(10);
+		properties.getStorage().getOutbox().setConcurrency(4);
+		// Every save fails once, so each create costs a lookup, a save and another lookup
+		sink.failSaves.set(3);
+		for (String company : List.of("Acme", "Globex", "Initech")) {
+			store.saveJobAsync(job(company), null, false, List.of(sink.name())).block();
+		}
+
+		drainUntilEmpty();
+
+		assertEquals(9, sink.startedAt.size());
+		for (int i = 1; i < sink.startedAt.size(); i++) {
+			long gapMillis = (sink.startedAt.get(i) - sink.startedAt.get(i - 1)) / 1_000_000;
+			assertTrue(gapMillis >= 90, "requests " + (i - 1) + " and " + i + " started " + gapMillis + " ms apart");
+		}
+	}
+
+	@Test
+	void parksEntriesTheSinkRejectsForGoodUntilTheNextStart() {
+		sink.rejectSaves.set(true);
+		String id = store.saveJobAsync(job("Acme"), null, true, List.of(sink.name())).block();
+		store.updateResumeLinkAsync(id, "https://example.com/resume.pdf", List.of(sink.name())).block();
+
+		drainUntil(summary -> summary.parked() > 0);
+
+		// Parked after one attempt, and the resume link waits behind it
+		assertEquals(List.of("find " + id, "save " + id), sink.calls);
+		SqliteStorageBackend.OutboxSummary summary = store.summarizeOutbox().block();
+		assertEquals(2, summary.depth());
+		assertEquals(1, summary.parked());
+		assertEquals(0, summary.retrying());
+		assertEquals(1L, replicator.getStats().get("parked_entries"));
+
+		sink.rejectSaves.set(false);
+		replicator.start(List.of(sink));
+		drainUntilEmpty();
+
+		assertEquals("sink-1", store.findSinkId(id, sink.name()).block());
+		assertEquals(0, store.summarizeOutbox().block().depth());
+	}
+
+	private void drainUntilEmpty() {
+		drainUntil(summary -> summary.depth() == 0);
+	}
+
+	private void drainUntil(Predicate<SqliteStorageBackend.OutboxSummary> done) {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!done.test(store.summarizeOutbox().block())) {
+			if (System.currentTimeMillis() > deadline) fail("outbox not drained: " + sink.calls);
+			replicator.drain();
+			try {
+				Thread.sleep(20);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				fail(e);
+			}
+		}
+	}
+
+	private static JobDetails job(String company) {
+		return JobDetails.builder().company(company).role("Java Developer").build();
+	}
+
+	/**
+	 * Sink that keeps its jobs in memory and records every call
+	 */
+	private static class RecordingSink implements StorageBackend {
+
+		final List<String> calls = new CopyOnWriteArrayList<>();
+		final List<Long> startedAt = new CopyOnWriteArrayList<>();
+		final AtomicInteger failSaves = new AtomicInteger();
+		final AtomicBoolean rejectSaves = new AtomicBoolean();
+		private final Map<String, String> pageIds = new ConcurrentHashMap<>();
+
+		@Override
+		public String name() {
+			return "recording";
+		}
+
+		@Override
+		public Mono<String> saveJobAsync(JobDetails jobDetails, String resumeLink) {
+			return Mono.error(new UnsupportedOperationException("copies are saved with saveCopyAsync"));
+		}
+
+		@Override
+		public Mono<String> saveCopyAsync(String localId, JobDetails jobDetails, String resumeLink) {
+			record("save " + localId);
+			if (rejectSaves.get()) {
+				return Mono.error(WebClientResponseException.create(400, "Bad Request", null,
+						"Job ID is not a property that exists.".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+			}
+			String pageId = "sink-" + (pageIds.size() + 1);
+			pageIds.put(localId, pageId);
+			if (failSaves.getAndDecrement() > 0) return Mono.error(new IllegalStateException("timed out"));
+			return Mono.just(pageId);
+		}
+
+		@Override
+		public Mono<Void> updateResumeLinkAsync(String id, String resumeLink) {
+			record("update " + id + " " + resumeLink);
+			return Mono.empty();
+		}
+
+		@Override
+		public Mono<String> findSavedJobAsync(String localId) {
+			record("find " + localId);
+			return Mono.justOrEmpty(pageIds.get(localId));
+		}
+
+		private void record(String call) {
+			startedAt.add(System.nanoTime());
+			calls.add(call);
+		}
+
+		@Override
+		public String getStorageInfo() {
+			return "recording";
+		}
+
+		@Override
+		public Map<String, Object> getStats() {
+			return Map.of();
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package com.telegram_notifier.service;
+
+import com.telegram_notifier.config.AppProperties;
+import com.telegram_notifier.model.JobDetails;
+import com.telegram_notifier.service.SqliteStorageBackend.OutboxEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqliteStorageBackendTests {
+
+	@TempDir
+	Path stateDir;
+
+	private AppProperties properties;
+	private SqliteStorageBackend store;
+
+	@BeforeEach
+	void setUp() {
+		properties = new AppProperties();
+		properties.getState().setDir(stateDir.toString());
+		store = open();
+	}
+
+	@AfterEach
+	void tearDown() {
+		store.close();
+	}
+
+	@Test
+	void savesAndUpdatesJobsThroughTheStorageBackendInterface() {
+		StorageBackend backend = store;
+
+		String id = backend.saveJobAsync(job("Acme"), null).block();
+		backend.updateResumeLinkAsync(id, "https://example.com/resume.pdf").block();
+
+		SqliteStorageBackend.StoredJob stored = store.findJob(id).block();
+		assertEquals("Acme", stored.jobDetails().getCompany());
+		assertEquals("Java Developer", stored.jobDetails().getRole());
+		assertEquals("https://example.com/resume.pdf", stored.resumeLink());
+		assertNull(store.findJob("missing").block());
+	}
+
+	@Test
+	void rejectsResumeLinkForUnknownJob() {
+		assertThrows(IllegalArgumentException.class,
+				() -> store.updateResumeLinkAsync("missing", "https://example.com/resume.pdf").block());
+	}
+
+	@Test
+	void failingWriteDoesNotFailTheOthersInItsBatch() {
+		String id = store.saveJobAsync(job("Acme"), null).block();
+
+		// Submitted back to back, so they are usually committed as one batch
+		List<CompletableFuture<?>> writes = List.of(
+				store.saveJobAsync(job("Globex"), null).toFuture(),
+				store.updateResumeLinkAsync("missing", "https://example.com/a.pdf").toFuture(),
+				store.updateResumeLinkAsync(id, "https://example.com/b.pdf").toFuture());
+		CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+
+		assertTrue(writes.get(1).isCompletedExceptionally());
+		assertEquals("Globex", store.findJob((String) writes.get(0).join()).block().jobDetails().getCompany());
+		assertEquals("https://example.com/b.pdf", store.findJob(id).block().resumeLink());
+		assertEquals(1L, store.getStats().get("failed_writes"));
+	}
+
+	@Test
+	void tracksJobsAwaitingResume() {
+		String pending = store.saveJobAsync(job("Acme"), null, true, List.of()).block();
+		String abandoned = store.saveJobAsync(job("Globex"), null, true, List.of()).block();
+		store.saveJobAsync(job("Initech"), "https://example.com/resume.pdf", false, List.of()).block();
+
+		store.clearResumePendingAsync(abandoned).block();
+		assertEquals(List.of(pending), store.findJobsAwaitingResume().block());
+
+		store.updateResumeLinkAsync(pending, "https://example.com/resume.pdf").block();
+		assertEquals(List.of(), store.findJobsAwaitingResume().block());
+	}
+
+	@Test
+	void queuesOneOutboxEntryPerSinkAndKeepsEachJobInOrder() {
+		String id = store.saveJobAsync(job("Acme"), null, true, List.of("notion", "sheets")).block();
+		store.updateResumeLinkAsync(id, "https://example.com/resume.pdf", List.of("notion")).block();
+
+		List<OutboxEntry> due = store.findDueOutboxEntries(System.currentTimeMillis(), 10).block();
+		assertEquals(List.of("notion:create", "sheets:create"), describe(due));
+		assertEquals(3, store.summarizeOutbox().block().depth());
+
+		// The resume link only becomes due once the create ahead of it is delivered
+		OutboxEntry notionCreate = due.get(0);
+		store.completeOutboxEntry(notionCreate, "page-1").block();
+		assertEquals("page-1", store.findSinkId(id, "notion").block());
+		assertEquals(List.of("sheets:create", "notion:resume_link"),
+				describe(store.findDueOutboxEntries(System.currentTimeMillis(), 10).block()));
+	}
+
+	@Test
+	void rescheduledOutboxEntryIsNotDueUntilItsNextAttempt() {
+		store.saveJobAsync(job("Acme"), null, false, List.of("notion")).block();
+		OutboxEntry entry = store.findDueOutboxEntries(System.currentTimeMillis(), 10).block().get(0);
+
+		long nextAttemptAt = System.currentTimeMillis() + 60_000;
+		store.rescheduleOutboxEntry(entry, 1, nextAttemptAt, "timeout").block();
+
+		assertEquals(List.of(), store.findDueOutboxEntries(System.currentTimeMillis(), 10).block());
+		assertEquals(1, store.findDueOutboxEntries(nextAttemptAt, 10).block().get(0).attempts());
+		assertEquals(1, store.summarizeOutbox().block().retrying());
+	}
+
+	@Test
+	void keepsCommittedWritesAcrossRestartsAndRejectsWritesAfterClose() {
+		String id = store.saveJobAsync(job("Acme"), null).block();
+		store.close();
+
+		Mono<String> afterClose = store.saveJobAsync(job("Globex"), null);
+		assertThrows(IllegalStateException.class, afterClose::block);
+
+		store = open();
+		assertEquals("Acme", store.findJob(id).block().jobDetails().getCompany());
+	}
+
+	private SqliteStorageBackend open() {
+		SqliteStorageBackend backend = new SqliteStorageBackend(properties);
+		backend.init();
+		return backend;
+	}
+
+	private static List<String> describe(List<OutboxEntry> entries) {
+		return entries.stream().map(entry -> entry.sink() + ":" + entry.kind()).toList();
+	}
+
+	private static JobDetails job(String company) {
+		return JobDetails.builder()
+				.company(company)
+				.role("Java Developer")
+				.url("https://example.com/jobs/" + company.toLowerCase())
+				.build();
+	}
+}
@@ -0,0 +1,136 @@
+package com.telegram_notifier.service;
+
+import com.telegram_notifier.config.AppProperties;
+import com.telegram_notifier.config.WebClientFactory;
+import com.telegram_notifier.model.TelegramMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TelegramServiceTests {
+
+	private static final String CHANNEL = "jobs_channel";
+
+	@TempDir
+	Path stateDir;
+
+	private final AtomicInteger notModified = new AtomicInteger();
+	private boolean honorValidators;
+	private boolean failBackfill;
+	private ChannelTimestampService timestampService;
+	private TelegramService telegramService;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		AppProperties properties = new AppProperties();
+		properties.getState().setDir(stateDir.toString());
+		properties.getTelegram().setChannels(CHANNEL);
+		properties.getTelegram().setHostRequestIntervalMillis(0);
+		properties.getTelegram().getPrefilter().setMinLength(0);
+
+		String page = fixture("channel-page.html");
+		WebClient.Builder builder = WebClient.builder().exchangeFunction(request -> {
+			if (request.url().getQuery() != null && request.url().getQuery().startsWith("before=")) {
+				// Nothing older than the fixture's posts
+				return Mono.just(failBackfill
+						? ClientResponse.create(HttpStatus.BAD_GATEWAY).build()
+						: ClientResponse.create(HttpStatus.OK)
+								.header(HttpHeaders.CONTENT_TYPE, "text/html; charset=utf-8")
+								.body("<html><body></body></html>")
+								.build());
+			}
+			if (honorValidators && request.headers().getFirst(HttpHeaders.IF_NONE_MATCH) != null) {
+				notModified.incrementAndGet();
+				return Mono.just(ClientResponse.create(HttpStatus.NOT_MODIFIED).build());
+			}
+			return Mono.just(ClientResponse.create(HttpStatus.OK)
+					.header(HttpHeaders.CONTENT_TYPE, "text/html; charset=utf-8")
+					.header(HttpHeaders.ETAG, "\"v1\"")
+					.body(page)
+					.build());
+		});
+		WebClientFactory webClientFactory = mock(WebClientFactory.class);
+		when(webClientFactory.builder(any(), any(), any(), anyInt())).thenReturn(builder);
+
+		KeywordPrefilter keywordPrefilter = new KeywordPrefilter(properties);
+		keywordPrefilter.compileRules();
+		timestampService = new ChannelTimestampService(properties);
+		telegramService = new TelegramService(properties, timestampService, new ChannelPollScheduler(properties),
+				keywordPrefilter, webClientFactory);
+		telegramService.initializeWebClient();
+
+		// Cursor just below the fixture's posts (101-104)
+		timestampService.recordDispatched(CHANNEL, List.of(), 100);
+	}
+
+	@Test
+	void redeliversNackedPostWhenPageIsNotModified() {
+		honorValidators = true;
+		List<TelegramMessage> first = telegramService.fetchRecentMessages(List.of(CHANNEL));
+		TelegramMessage nacked = first.get(0);
+		first.subList(1, first.size()).forEach(timestampService::ack);
+
+		timestampService.nack(nacked);
+		List<TelegramMessage> second = telegramService.fetchRecentMessages(List.of(CHANNEL));
+
+		assertEquals(List.of(nacked.getMessageId()), second.stream().map(TelegramMessage::getMessageId).toList());
+		assertEquals(0, notModified.get());
+
+		// Once acked, the unchanged page is revalidated again
+		timestampService.ack(second.get(0));
+		assertEquals(List.of(), telegramService.fetchRecentMessages(List.of(CHANNEL)));
+		assertEquals(1, notModified.get());
+	}
+
+	@Test
+	void redeliversNackedPostWhenPageFingerprintIsUnchanged() {
+		honorValidators = false;
+		List<TelegramMessage> first = telegramService.fetchRecentMessages(List.of(CHANNEL));
+		TelegramMessage nacked = first.get(first.size() - 1);
+
+		timestampService.nack(nacked);
+		List<TelegramMessage> second = telegramService.fetchRecentMessages(List.of(CHANNEL));
+
+		assertEquals(List.of(nacked.getMessageId()), second.stream().map(TelegramMessage::getMessageId).toList());
+	}
+
+	@Test
+	void keepsCursorWhenBackfillPageFails() {
+		// Far enough behind that the fixture page does not reach the cursor
+		String channel = "lagging_channel";
+		timestampService.recordDispatched(channel, List.of(), 50);
+
+		failBackfill = true;
+		assertEquals(List.of(), telegramService.fetchRecentMessages(List.of(channel)));
+		assertEquals(50, timestampService.getLastMessageId(channel));
+
+		failBackfill = false;
+		assertEquals(List.of(101L, 102L, 104L), telegramService.fetchRecentMessages(List.of(channel)).stream()
+				.map(TelegramMessage::getMessageId)
+				.toList());
+	}
+
+	private static String fixture(String name) throws IOException {
+		try (InputStream in = TelegramServiceTests.class.getResourceAsStream("/fixtures/telegram/" + name)) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+}
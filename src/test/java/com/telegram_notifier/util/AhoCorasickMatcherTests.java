@@ -0,0 +1,64 @@
+package com.telegram_notifier.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AhoCorasickMatcherTests {
+
+	@Test
+	void reportsOutputsReachedThroughFailureLinks() {
+		List<String> patterns = List.of("he", "she", "his", "hers");
+
+		// "she" ends where "he" does; "hers" is only reached after falling back from "she"
+		assertEquals(List.of("she@1", "he@2", "hers@2"), matches(patterns, "ushers"));
+		assertEquals(List.of("his@1", "she@3", "he@4"), matches(patterns, "ahishe"));
+	}
+
+	@Test
+	void reportsOverlappingOccurrences() {
+		assertEquals(List.of("aa@0", "aa@1", "aa@2"), matches(List.of("aa"), "aaaa"));
+		assertEquals(List.of("ab@0", "b@1", "ab@2", "b@3"), matches(List.of("ab", "b"), "abab"));
+		assertEquals(List.of("java@0", "java developer@0"), matches(List.of("java developer", "java"), "java developer"));
+	}
+
+	@Test
+	void foldsCaseOfPatternsAndText() {
+		assertEquals(List.of("Java@0", "Java@16"), matches(List.of("Java"), "JAVA developer, java"));
+		assertEquals(List.of("REMOTE@5"), matches(List.of("REMOTE"), "100% Remote"));
+	}
+
+	@Test
+	void stopsWhenListenerReturnsFalse() {
+		AhoCorasickMatcher matcher = new AhoCorasickMatcher(List.of("job", "hiring"));
+		List<Integer> starts = new ArrayList<>();
+
+		matcher.scan("hiring: job, job, job", (pattern, start) -> {
+			starts.add(start);
+			return starts.size() < 2;
+		});
+
+		assertEquals(List.of(0, 8), starts);
+	}
+
+	@Test
+	void ignoresEmptyPatternsAndFindsNothingInUnrelatedText() {
+		AhoCorasickMatcher matcher = new AhoCorasickMatcher(List.of("", "salary"));
+
+		assertEquals(2, matcher.patternCount());
+		assertEquals(List.of("salary@5"), matches(List.of("", "salary"), "good salary"));
+		assertEquals(List.of(), matches(List.of("salary"), "nothing to see here"));
+	}
+
+	private static List<String> matches(List<String> patterns, String text) {
+		List<String> found = new ArrayList<>();
+		new AhoCorasickMatcher(patterns).scan(text, (pattern, start) -> {
+			found.add(patterns.get(pattern) + "@" + start);
+			return true;
+		});
+		return found;
+	}
+}
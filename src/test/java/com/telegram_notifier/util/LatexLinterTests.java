@@ -0,0 +1,71 @@
+package com.telegram_notifier.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatexLinterTests {
+
+	private final LatexLinter linter = new LatexLinter(List.of("geometry", "hyperref"));
+
+	@Test
+	void leavesMathAloneAndEscapesText() {
+		LatexLinter.Result result = linter.lint(document("a_b $$x_1 + y_2$$ c_d \\[z_3\\] e_f $w_4$ g_h"), 0);
+
+		assertTrue(result.isValid(), result.errors().toString());
+		assertEquals(document("a\\_b $$x_1 + y_2$$ c\\_d \\[z_3\\] e\\_f $w_4$ g\\_h"), result.latex());
+		assertEquals(4, result.repairs().size());
+	}
+
+	@Test
+	void reportsMismatchedAndUnclosedMath() {
+		// The wrong closing delimiter is reported, and the span is still open at the end
+		assertKinds(List.of(LatexLinter.Kind.MATH, LatexLinter.Kind.MATH), linter.lint(document("$$x_1$ and more"), 0));
+		assertKinds(List.of(LatexLinter.Kind.MATH, LatexLinter.Kind.MATH), linter.lint(document("\\[x_1\\)"), 0));
+		assertKinds(List.of(LatexLinter.Kind.MATH), linter.lint(document("stray \\]"), 0));
+	}
+
+	@Test
+	void keepsCommentsAfterNumbers() {
+		String latex = document("Cut costs by 50\\% % TODO: check the number_\nand again 30% of it");
+
+		LatexLinter.Result result = linter.lint(latex, 0);
+
+		assertTrue(result.isValid(), result.errors().toString());
+		assertEquals(latex, result.latex());
+		assertEquals(List.of(), result.repairs());
+	}
+
+	@Test
+	void rejectsPackagesOutsideTheAllowList() {
+		String latex = "\\documentclass{article}\n\\usepackage[margin=1in]{geometry}\n\\usepackage{hyperref,minted}\n"
+				+ "\\begin{document}\nHello\n\\end{document}\n";
+
+		LatexLinter.Result result = linter.lint(latex, 0);
+
+		assertKinds(List.of(LatexLinter.Kind.PACKAGE), result);
+		assertEquals(3, result.errors().get(0).line());
+		assertTrue(result.errors().get(0).message().contains("minted"), result.errors().get(0).message());
+	}
+
+	@Test
+	void reportsMissingStructure() {
+		LatexLinter.Result result = linter.lint("\\begin{document}\n{Hello\n", 0);
+
+		assertFalse(result.isValid());
+		assertTrue(result.errors().stream().anyMatch(error -> error.kind() == LatexLinter.Kind.BRACES));
+		assertTrue(result.errors().stream().anyMatch(error -> error.kind() == LatexLinter.Kind.STRUCTURE));
+	}
+
+	private static void assertKinds(List<LatexLinter.Kind> expected, LatexLinter.Result result) {
+		assertEquals(expected, result.errors().stream().map(LatexLinter.Issue::kind).toList(), result.errors().toString());
+	}
+
+	private static String document(String body) {
+		return "\\documentclass{article}\n\\begin{document}\n" + body + "\n\\end{document}\n";
+	}
+}
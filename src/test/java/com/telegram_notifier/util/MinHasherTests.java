@@ -0,0 +1,43 @@
+package com.telegram_notifier.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MinHasherTests {
+
+	private final MinHasher minHasher = new MinHasher(64, 3);
+
+	@Test
+	void ignoresCaseLinksEmojiAndPunctuation() {
+		long[] original = minHasher.signature("Hiring: Senior Java Developer, Berlin. Apply at https://example.com/jobs/1");
+		long[] repost = minHasher.signature("🚀 HIRING senior java developer — berlin!! apply at t.me/other_channel");
+
+		assertArrayEquals(original, repost);
+		assertEquals(1.0, MinHasher.similarity(original, repost));
+	}
+
+	@Test
+	void estimatesJaccardSimilarityOfShingles() {
+		String base = "we are hiring a senior backend engineer with java spring and kafka experience for our payments team in berlin";
+		long[] signature = minHasher.signature(base);
+
+		double nearDuplicate = MinHasher.similarity(signature, minHasher.signature(base + " remote friendly"));
+		double unrelated = MinHasher.similarity(signature,
+				minHasher.signature("frontend developer position with react and typescript salary twenty lpa bangalore office"));
+
+		assertTrue(nearDuplicate >= 0.7, "near duplicate similarity " + nearDuplicate);
+		assertTrue(unrelated <= 0.1, "unrelated similarity " + unrelated);
+	}
+
+	@Test
+	void shortTextIsOneShingleAndEmptyTextHasNoSignature() {
+		assertEquals(1, minHasher.shingles("java dev").size());
+		assertEquals(3, minHasher.shingles("one two three four five").size());
+		assertNull(minHasher.signature("🚀 !!! https://example.com"));
+		assertNull(minHasher.signature(null));
+	}
+}
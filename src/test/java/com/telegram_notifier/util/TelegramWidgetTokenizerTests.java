@@ -0,0 +1,158 @@
+package com.telegram_notifier.util;
+
+import com.telegram_notifier.model.TelegramMessage;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TelegramWidgetTokenizerTests {
+
+	@Test
+	void parsesChannelPageFixture() throws IOException {
+		List<TelegramMessage> messages = TelegramWidgetTokenizer.parse(fixture("channel-page.html"), "jobs_channel");
+
+		assertEquals(4, messages.size());
+
+		TelegramMessage first = messages.get(0);
+		assertEquals("jobs_channel/101", first.getPostId());
+		assertEquals(101, first.getMessageId());
+		assertEquals("jobs_channel", first.getChannelName());
+		assertEquals(LocalDateTime.of(2024, 8, 25, 4, 15, 51), first.getTimestamp());
+		assertEquals("Hiring: Backend Engineer Company: Acme & Co Stack: Java <17>, Spring Boot Apply here 'today' — remote",
+				first.getContent());
+
+		// Media caption, reply header ignored, numeric and named entities decoded
+		TelegramMessage caption = messages.get(1);
+		assertEquals(102, caption.getMessageId());
+		assertEquals("Frontend Developer position — salary 20 LPA 🚀", caption.getContent());
+		assertEquals(LocalDateTime.of(2024, 8, 25, 5, 0, 0), caption.getTimestamp());
+
+		// Service message: id is still reported so cursors can advance past it
+		TelegramMessage service = messages.get(2);
+		assertEquals(103, service.getMessageId());
+		assertEquals("", service.getContent());
+		assertNull(service.getTimestamp());
+
+		// Nested div inside the text block and title-based timestamp
+		TelegramMessage nested = messages.get(3);
+		assertEquals(104, nested.getMessageId());
+		assertEquals("Senior Java developer needed in Berlin", nested.getContent());
+		assertEquals(LocalDateTime.of(2024, 8, 26, 9, 45, 51), nested.getTimestamp());
+	}
+
+	@Test
+	void toleratesTruncatedMarkup() {
+		String html = "<div class=\"tgme_widget_message\" data-post=\"c/7\"><div class=\"tgme_widget_message_text\">cut off &amp";
+
+		List<TelegramMessage> messages = TelegramWidgetTokenizer.parse(html, "c");
+
+		assertEquals(1, messages.size());
+		assertEquals(7, messages.get(0).getMessageId());
+		assertEquals("cut off &amp", messages.get(0).getContent());
+	}
+
+	@Test
+	void parsesMessageIds() {
+		assertEquals(1234, TelegramWidgetTokenizer.parseMessageId("channel/1234"));
+		assertEquals(0, TelegramWidgetTokenizer.parseMessageId("channel/abc"));
+		assertEquals(0, TelegramWidgetTokenizer.parseMessageId("channel/"));
+		assertEquals(0, TelegramWidgetTokenizer.parseMessageId(null));
+	}
+
+	/**
+	 * Throughput comparison against the previous regex-based parser on a ~2 MB page of plain
+	 * messages, which both parsers read the same way. Excluded from the default run (see the
+	 * excludedGroups property in pom.xml); run it with {@code mvn test -DexcludedGroups= -Dgroups=benchmark}.
+	 */
+	@Test
+	@Tag("benchmark")
+	void benchmarkAgainstRegexParser(TestReporter reporter) {
+		String page = buildLargePage(2 * 1024 * 1024);
+		List<String> expected = LegacyRegexParser.parse(page);
+		List<String> actual = TelegramWidgetTokenizer.parse(page, "jobs_channel").stream()
+				.map(TelegramMessage::getContent)
+				.toList();
+		assertFalse(expected.isEmpty());
+		assertEquals(expected, actual);
+
+		int rounds = 20;
+		long tokenizerNanos = averageNanos(rounds, () -> TelegramWidgetTokenizer.parse(page, "jobs_channel"));
+		long regexNanos = averageNanos(rounds, () -> LegacyRegexParser.parse(page));
+
+		double mb = page.length() / (1024.0 * 1024.0);
+		reporter.publishEntry("tokenizer_mb_per_s", String.format("%.1f", mb / (tokenizerNanos / 1e9)));
+		reporter.publishEntry("regex_mb_per_s", String.format("%.1f", mb / (regexNanos / 1e9)));
+	}
+
+	private static long averageNanos(int rounds, Runnable parse) {
+		// Warm up first
+		for (int i = 0; i < 5; i++) parse.run();
+		long start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) parse.run();
+		return (System.nanoTime() - start) / rounds;
+	}
+
+	private static String buildLargePage(int targetChars) {
+		StringBuilder page = new StringBuilder(targetChars + 1024);
+		page.append("<html><body><div class=\"tgme_channel_history js-message_history\">\n");
+		for (int id = 1; page.length() < targetChars; id++) {
+			page.append("<div class=\"tgme_widget_message_wrap js-widget_message_wrap\">")
+					.append("<div class=\"tgme_widget_message js-widget_message\" data-post=\"jobs_channel/").append(id).append("\">\n")
+					.append("  <div class=\"tgme_widget_message_bubble\">\n")
+					.append("    <div class=\"tgme_widget_message_text js-message_text\" dir=\"auto\"><b>Hiring ").append(id)
+					.append(":</b> Java developer, <i>remote</i>, apply via the form</div>\n")
+					.append("    <div class=\"tgme_widget_message_footer compact js-message_footer\">")
+					.append("<time datetime=\"2024-08-25T04:15:51+00:00\" class=\"time\">04:15</time></div>\n")
+					.append("  </div>\n</div></div>\n");
+		}
+		page.append("</div></body></html>");
+		return page.toString();
+	}
+
+	private static String fixture(String name) throws IOException {
+		try (InputStream in = TelegramWidgetTokenizerTests.class.getResourceAsStream("/fixtures/telegram/" + name)) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * The regex extraction previously used by TelegramService, kept here as the benchmark baseline.
+	 */
+	private static final class LegacyRegexParser {
+		static List<String> parse(String html) {
+			List<String> contents = new ArrayList<>();
+			Pattern messageBlockPattern = Pattern.compile(
+				"<div class=\"tgme_widget_message[^\"]*\"[^>]*data-post=\"[^\"]+\"[^>]*>(.*?)</div>\\s*</div>",
+				Pattern.DOTALL | Pattern.CASE_INSENSITIVE
+			);
+			Matcher blockMatcher = messageBlockPattern.matcher(html);
+			while (blockMatcher.find()) {
+				String block = blockMatcher.group(1);
+				for (Pattern pattern : List.of(
+						Pattern.compile("<div class=\"tgme_widget_message_text[^\"]*\"[^>]*>(.*?)</div>", Pattern.DOTALL | Pattern.CASE_INSENSITIVE),
+						Pattern.compile("<div class=\"tgme_widget_message_media_caption[^\"]*\"[^>]*>(.*?)</div>", Pattern.DOTALL | Pattern.CASE_INSENSITIVE))) {
+					Matcher matcher = pattern.matcher(block);
+					if (matcher.find()) {
+						contents.add(matcher.group(1).replaceAll("<[^>]+>", "").replaceAll("\\s+", " ").trim());
+						break;
+					}
+				}
+				Pattern.compile("<time[^>]+datetime=\"([^\"]+)\"", Pattern.CASE_INSENSITIVE).matcher(block).find();
+			}
+			return contents;
+		}
+	}
+}